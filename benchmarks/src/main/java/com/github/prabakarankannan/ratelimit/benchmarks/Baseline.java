@@ -0,0 +1,41 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs all of the benchmarks with 1, 2, 4, ... up to the given number of threads and writes the results of each
+ * thread count as a JMH json file, to be committed as the baseline of the next changes.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.github.prabakarankannan.ratelimit.benchmarks.Baseline [dir] [maxThreads] [include]}
+ *
+ * @author Prabakaran Kannan
+ */
+public final class Baseline {
+
+    private Baseline() {}
+
+    public static void main(String[] args) throws RunnerException {
+        File dir = new File(args.length > 0 ? args[0] : "baseline");
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String include = args.length > 2 ? args[2] : Baseline.class.getPackage().getName() + ".*";
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IllegalStateException("Could not create the baseline directory: " + dir);
+
+        for (int threads = 1; threads <= Math.max(1, maxThreads); threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(dir, "threads-" + threads + ".json").getPath())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
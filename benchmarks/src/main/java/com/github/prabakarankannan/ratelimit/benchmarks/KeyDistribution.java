@@ -0,0 +1,59 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import java.util.Random;
+
+/**
+ * The distributions of the requester keys that the benchmarks consume.
+ *
+ * @author Prabakaran Kannan
+ */
+public enum KeyDistribution {
+
+    /**
+     * Nine of ten requests come from the same requester, the rest are spread over all of the requesters.
+     */
+    HOT {
+        @Override
+        int next(Random random, int keys) {
+            return (random.nextInt(10) == 0) ? random.nextInt(keys) : 0;
+        }
+    },
+
+    /**
+     * The requests are spread evenly over all of the requesters.
+     */
+    UNIFORM {
+        @Override
+        int next(Random random, int keys) {
+            return random.nextInt(keys);
+        }
+    };
+
+    /**
+     * The number of the distinct requesters.
+     */
+    static final int KEYS = 10_000;
+
+    /**
+     * The number of the pre-generated samples of each benchmark thread, a power of two.
+     */
+    static final int SAMPLES = 4096;
+
+    /**
+     * Returns the pre-generated requester indexes, so the benchmarks do not measure the random generator.
+     *
+     * @param seed The seed of the samples, distinct per thread.
+     * @return The {@link #SAMPLES} requester indexes.
+     */
+    int[] samples(long seed) {
+        Random random = new Random(seed);
+        int[] samples = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = next(random, KEYS);
+        }
+
+        return samples;
+    }
+
+    abstract int next(Random random, int keys);
+}
@@ -0,0 +1,92 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Measures generating the requester keys by the {@link HeaderBasedKeyGenerator}.
+ *
+ * @author Prabakaran Kannan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyGeneratorBenchmark {
+
+    static final String FORWARDED_FOR = "X-FORWARDED-FOR";
+
+    static final String USER_AGENT = "User-Agent";
+
+    @Param({"HOT", "UNIFORM"})
+    private KeyDistribution distribution;
+
+    private final HeaderBasedKeyGenerator keyGenerator =
+            new HeaderBasedKeyGenerator(new LinkedHashSet<>(asList(FORWARDED_FOR, USER_AGENT)));
+
+    private final Policy policy = new Policy(Duration.ofMinutes(1), 100, "BY_IP", Collections.emptySet(), null);
+
+    @Benchmark
+    public String generateKey(Requests requests) {
+        return keyGenerator.generateKey(requests.next(), policy);
+    }
+
+    /**
+     * The requests of a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+
+        private MockHttpServletRequest[] requests;
+
+        private int next;
+
+        @Setup
+        public void setUp(KeyGeneratorBenchmark benchmark, ThreadParams threadParams) {
+            requests = requests(benchmark.distribution, threadParams.getThreadIndex(), "/api/items");
+        }
+
+        MockHttpServletRequest next() {
+            return requests[next++ & (KeyDistribution.SAMPLES - 1)];
+        }
+    }
+
+    /**
+     * Returns the pre-built requests of the requesters by the given distribution, a request per sample.
+     */
+    static MockHttpServletRequest[] requests(KeyDistribution distribution, long seed, String uri) {
+        int[] samples = distribution.samples(seed);
+        MockHttpServletRequest[] requests = new MockHttpServletRequest[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+            request.addHeader(FORWARDED_FOR, "10.0." + (samples[i] >> 8) + "." + (samples[i] & 0xFF));
+            request.addHeader(USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64)");
+            requests[i] = request;
+        }
+
+        return requests;
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import com.github.prabakarankannan.ratelimit.repositories.redis.RateHash;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A stand-in of the redis backed {@link RedisRepository} that keeps the rates in a hash map, to benchmark
+ * the {@link RedisRateCache} without a redis server and its network round trips.
+ * <p>
+ * The rates are copied on save and find, as they would be serialized to and from redis.
+ *
+ * @author Prabakaran Kannan
+ */
+class MapRedisRepository implements RedisRepository {
+
+    private final ConcurrentMap<String, RateHash> rates = new ConcurrentHashMap<>();
+
+    @Override
+    public <S extends RateHash> S save(S entity) {
+        rates.put(entity.getKey(), copy(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends RateHash> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Optional<RateHash> findById(String key) {
+        return Optional.ofNullable(rates.get(key)).map(MapRedisRepository::copy);
+    }
+
+    @Override
+    public boolean existsById(String key) {
+        return rates.containsKey(key);
+    }
+
+    @Override
+    public Iterable<RateHash> findAll() {
+        return new ArrayList<>(rates.values());
+    }
+
+    @Override
+    public Iterable<RateHash> findAllById(Iterable<String> keys) {
+        List<RateHash> found = new ArrayList<>();
+        keys.forEach(key -> findById(key).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return rates.size();
+    }
+
+    @Override
+    public void deleteById(String key) {
+        rates.remove(key);
+    }
+
+    @Override
+    public void delete(RateHash entity) {
+        rates.remove(entity.getKey());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends RateHash> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        rates.clear();
+    }
+
+    private static RateHash copy(RateHash rateHash) {
+        return new RateHash(rateHash.getKey(), rateHash.getExpiration(), rateHash.getRemaining());
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.conf.error.DefaultTooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.filter.RateLimitFilter;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+import com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Measures the whole path of a request through the {@link RateLimitFilter}, matching its policies, generating
+ * the requester keys and consuming the rates by the {@link InMemoryRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"HOT", "UNIFORM"})
+    private KeyDistribution distribution;
+
+    private InMemoryRateCache rateLimiter;
+
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        Policy perMinute = new Policy(Duration.ofMinutes(1), 1_000_000, "BY_IP",
+                new HashSet<>(asList(new Route("/api/**", null), new Route("/admin/**", null))), null);
+        Policy perHour = new Policy(Duration.ofHours(1), 1_000_000, "BY_IP",
+                Collections.singleton(new Route("/api/items", HttpMethod.GET)), null);
+        RateLimitProperties properties = new RateLimitProperties(
+                true, 0, null, new HashSet<>(asList(perMinute, perHour)), Collections.emptySet());
+
+        Map<String, RateLimitKeyGenerator> keyGenerators = Collections.singletonMap("BY_IP", new HeaderBasedKeyGenerator(
+                new LinkedHashSet<>(asList(KeyGeneratorBenchmark.FORWARDED_FOR, KeyGeneratorBenchmark.USER_AGENT))));
+
+        rateLimiter = new InMemoryRateCache();
+        filter = new RateLimitFilter(properties, rateLimiter, keyGenerators, new DefaultTooManyRequestErrorHandler());
+    }
+
+    @TearDown
+    public void tearDown() {
+        rateLimiter.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter(Requests requests) throws ServletException, IOException {
+        MockHttpServletResponse response = requests.response;
+        filter.doFilter(requests.next(), response, NO_OP_CHAIN);
+        return response;
+    }
+
+    /**
+     * The requests of a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+
+        private MockHttpServletRequest[] requests;
+
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        private int next;
+
+        @Setup
+        public void setUp(RateLimitFilterBenchmark benchmark, ThreadParams threadParams) {
+            requests = KeyGeneratorBenchmark.requests(benchmark.distribution, threadParams.getThreadIndex(), "/api/items");
+        }
+
+        MockHttpServletRequest next() {
+            return requests[next++ & (KeyDistribution.SAMPLES - 1)];
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures consuming the rates of the requesters by the {@link RateLimiter} implementations, the redis one
+ * is backed by the {@link MapRedisRepository} stand-in.
+ * <p>
+ * The {@code IN_MEMORY_SYNCHRONIZED} limiter is the {@link InMemoryRateCache} behind a single monitor, as it was
+ * when its {@code consume} was {@code synchronized}, so running the benchmark by 1, 2, 4, ... threads on a multi-core
+ * machine compares the per-key updates of the {@code IN_MEMORY} limiter with the former global lock.
+ *
+ * @author Prabakaran Kannan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"IN_MEMORY", "IN_MEMORY_SYNCHRONIZED", "REDIS"})
+    private String limiter;
+
+    @Param({"HOT", "UNIFORM"})
+    private KeyDistribution distribution;
+
+    private RateLimiter rateLimiter;
+
+    private InMemoryRateCache inMemoryRateCache;
+
+    private RatePolicy[] policies;
+
+    @Setup
+    public void setUp() {
+        switch (limiter) {
+            case "IN_MEMORY":
+                rateLimiter = inMemoryRateCache = new InMemoryRateCache();
+                break;
+            case "IN_MEMORY_SYNCHRONIZED":
+                InMemoryRateCache cache = inMemoryRateCache = new InMemoryRateCache();
+                rateLimiter = ratePolicy -> {
+                    synchronized (cache) {
+                        return cache.consume(ratePolicy);
+                    }
+                };
+                break;
+            default:
+                rateLimiter = new RedisRateCache(new MapRedisRepository());
+        }
+        policies = new RatePolicy[KeyDistribution.KEYS];
+        for (int i = 0; i < policies.length; i++) {
+            policies[i] = new RatePolicy("/api/items_GET_PT1M_1000000_10.0.0." + i, Duration.ofMinutes(1), 1_000_000, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (inMemoryRateCache != null)
+            inMemoryRateCache.close();
+    }
+
+    @Benchmark
+    public Rate consume(Requester requester) {
+        return rateLimiter.consume(policies[requester.next()]);
+    }
+
+    /**
+     * The requesters of a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Requester {
+
+        private int[] samples;
+
+        private int next;
+
+        @Setup
+        public void setUp(RateLimiterBenchmark benchmark, ThreadParams threadParams) {
+            samples = benchmark.distribution.samples(threadParams.getThreadIndex());
+        }
+
+        int next() {
+            return samples[next++ & (KeyDistribution.SAMPLES - 1)];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.prabakarankannan.ratelimit.benchmarks;
+
+import com.github.prabakarankannan.ratelimit.conf.filter.RouteIndex;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compares finding the matched policies of a request by the {@link RouteIndex} with scanning every policy route
+ * by the {@link AntPathMatcher}, the way the filter did before the index.
+ *
+ * @author Prabakaran Kannan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteMatchingBenchmark {
+
+    /**
+     * The number of configured policies, each one has a route of its own.
+     */
+    @Param({"10", "100", "500"})
+    private int routes;
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private List<Policy> policies;
+
+    private RouteIndex routeIndex;
+
+    private String[] uris;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        policies = new ArrayList<>();
+        for (int i = 0; i < routes; i++) {
+            String uri = (i % 3 == 0) ? "/api/v1/resource" + i + "/*" : "/api/v1/resource" + i + "/{id}/items";
+            policies.add(new Policy(Duration.ofSeconds(1 + (i % 60)), 10, "BY_IP",
+                    Collections.singleton(new Route(uri, (i % 2 == 0) ? HttpMethod.GET : null)), null));
+        }
+        policies.add(new Policy(Duration.ofHours(1), 1000, "BY_IP", Collections.singleton(new Route("/**", null)), null));
+
+        routeIndex = new RouteIndex(policies);
+        uris = new String[]{"/api/v1/resource0/12", "/api/v1/resource" + (routes - 1) + "/12/items", "/api/v2/unknown"};
+    }
+
+    @Benchmark
+    public List<Policy> routeIndex() {
+        return routeIndex.match(nextUri(), "GET");
+    }
+
+    @Benchmark
+    public List<Policy> antPathMatcherScan() {
+        String uri = nextUri();
+        return policies.stream()
+                .filter(it -> it.getRoutes().stream().anyMatch(route -> {
+                    if (route.getMethod() == null)
+                        return pathMatcher.match(route.getUri(), uri);
+
+                    return pathMatcher.match(route.getUri(), uri) && route.getMethod().name().equals("GET");
+                })).sorted(comparing(Policy::getDuration)).collect(toList());
+    }
+
+    private String nextUri() {
+        return uris[next++ % uris.length];
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.prabakarankannan.ratelimit;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RateLimitClock} that caches the time of another clock, updated by a background thread every
+ * {@link #getResolution() resolution}, so reading it on the hot path is a single volatile read.
+ * <p>
+ * The time could be behind the source clock by up to the resolution, so the windows could be longer by that much.
+ * The time never goes back, even if the source clock does.
+ *
+ * @author Prabakaran Kannan
+ */
+public class CoarseClock implements RateLimitClock, AutoCloseable {
+
+    /**
+     * The default interval of updating the time.
+     */
+    public static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(1);
+
+    /**
+     * The clock that the time is read from.
+     */
+    private final RateLimitClock source;
+
+    private final Duration resolution;
+
+    /**
+     * Updates the {@link #millis} periodically.
+     */
+    private final ScheduledExecutorService updater;
+
+    /**
+     * The cached time in milliseconds since the epoch.
+     */
+    private volatile long millis;
+
+    public CoarseClock() {
+        this(DEFAULT_RESOLUTION, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param resolution The interval of updating the time, at least a millisecond.
+     * @param source     The clock that the time is read from.
+     */
+    public CoarseClock(@Nonnull Duration resolution, @Nonnull RateLimitClock source) {
+        if (resolution.isNegative() || resolution.isZero())
+            throw new IllegalArgumentException("The resolution should be positive.");
+
+        this.source = source;
+        this.resolution = resolution;
+        this.millis = source.millis();
+
+        long periodMicros = Math.max(1_000, TimeUnit.NANOSECONDS.toMicros(resolution.toNanos()));
+        this.updater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.updater.scheduleAtFixedRate(this::update, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @return The cached time in milliseconds since the epoch.
+     */
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    public Duration getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Stops updating the time.
+     */
+    @Override
+    public void close() {
+        updater.shutdownNow();
+    }
+
+    /**
+     * Reads the time of the {@link #source}, only the updater thread writes the {@link #millis}.
+     */
+    private void update() {
+        long now = source.millis();
+        if (now > millis)
+            millis = now;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.prabakarankannan.ratelimit;
+
+/**
+ * A {@link RateLimitClock} that reads the system clock once, and then adds the elapsed time of {@link System#nanoTime()}
+ * to it, so the time never goes back even if the system clock is set back.
+ *
+ * @author Prabakaran Kannan
+ */
+final class MonotonicClock implements RateLimitClock {
+
+    static final MonotonicClock INSTANCE = new MonotonicClock();
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /**
+     * The system clock time when the clock is created, in milliseconds since the epoch.
+     */
+    private final long originMillis;
+
+    /**
+     * The {@link System#nanoTime()} when the clock is created.
+     */
+    private final long originNanos;
+
+    MonotonicClock() {
+        this.originMillis = System.currentTimeMillis();
+        this.originNanos = System.nanoTime();
+    }
+
+    @Override
+    public long millis() {
+        return originMillis + (System.nanoTime() - originNanos) / NANOS_PER_MILLI;
+    }
+}
@@ -54,7 +54,15 @@ public final class Rate {
     }
 
     public boolean isExpired() {
-        return Instant.now().isAfter(expiration);
+        return isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * @param nowMillis The current time in milliseconds since the epoch.
+     * @return Whether the {@link #expiration} is passed at the given time.
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > expiration.toEpochMilli();
     }
 
     public boolean isExceed() {
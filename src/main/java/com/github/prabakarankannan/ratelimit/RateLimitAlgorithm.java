@@ -0,0 +1,32 @@
+package com.github.prabakarankannan.ratelimit;
+
+/**
+ * Represents the all supported algorithms to limit the rate of a policy.
+ *
+ * @author Prabakaran Kannan
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * Allows the count of the policy in a window of the policy duration, that starts by the first request.
+     */
+    FIXED_WINDOW,
+
+    /**
+     * Allows bursts up to the capacity of the policy, and refills the count of the policy per its duration
+     * continuously, so there is no window boundary to send twice of the count around it.
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * Allows the count of the policy in a window of the policy duration that slides by the time, the count of the
+     * sliding window is estimated by the counts of the current and the previous fixed windows.
+     */
+    SLIDING_WINDOW,
+
+    /**
+     * The generic cell rate algorithm, allows a call every duration divided by the count of the policy and
+     * bursts up to the capacity of the policy, by keeping only the theoretical arrival time of the next call.
+     */
+    GCRA
+}
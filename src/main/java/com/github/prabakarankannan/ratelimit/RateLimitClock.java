@@ -0,0 +1,28 @@
+package com.github.prabakarankannan.ratelimit;
+
+/**
+ * Contract of the clock that the rate limiters compute the windows and the expirations by.
+ * <p>
+ * The time is a primitive number of milliseconds since the epoch, so reading it allocates nothing, and it should never
+ * go back, otherwise a window could be extended or a rate could expire twice.
+ *
+ * @author Prabakaran Kannan
+ */
+@FunctionalInterface
+public interface RateLimitClock {
+
+    /**
+     * @return The current time in milliseconds since the epoch.
+     */
+    long millis();
+
+    /**
+     * Returns the default clock, which is anchored to the system clock once and advanced by {@link System#nanoTime()},
+     * so it's monotonic and it's not affected by the system clock adjustments.
+     *
+     * @return The shared {@link MonotonicClock}.
+     */
+    static RateLimitClock monotonic() {
+        return MonotonicClock.INSTANCE;
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.prabakarankannan.ratelimit;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Contract to cache the rate limit detail.
@@ -14,4 +16,22 @@ public interface RateLimiter {
      * @return Details of a requester`s rate limit.
      */
     Rate consume(@Nonnull RatePolicy ratePolicy);
+
+    /**
+     * Consumes the rate without waiting for it, the implementations that block on I/O should override it.
+     * By default, it consumes the rate by {@link #consume(RatePolicy)} on the calling thread.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Details of a requester`s rate limit, completed when it's consumed.
+     */
+    default CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        CompletableFuture<Rate> rate = new CompletableFuture<>();
+        try {
+            rate.complete(consume(ratePolicy));
+        } catch (RuntimeException e) {
+            rate.completeExceptionally(e);
+        }
+
+        return rate;
+    }
 }
@@ -31,11 +31,33 @@ public final class RatePolicy {
      */
     private final Duration blockDuration;
 
+    /**
+     * The algorithm to limit the rate.
+     */
+    private final RateLimitAlgorithm algorithm;
+
+    /**
+     * Represents the max number of calls in a burst, used by the {@link RateLimitAlgorithm#TOKEN_BUCKET}.
+     * The null value means the {@link #count}.
+     */
+    private final Integer capacity;
+
     public RatePolicy(@Nonnull String key, @Nonnull Duration duration, @Nonnull Integer count, @Nullable Duration blockDuration) {
+        this(key, duration, count, blockDuration, RateLimitAlgorithm.FIXED_WINDOW, null);
+    }
+
+    public RatePolicy(@Nonnull String key,
+                      @Nonnull Duration duration,
+                      @Nonnull Integer count,
+                      @Nullable Duration blockDuration,
+                      @Nonnull RateLimitAlgorithm algorithm,
+                      @Nullable Integer capacity) {
         this.key = key;
         this.duration = duration;
         this.count = count;
         this.blockDuration = blockDuration;
+        this.algorithm = algorithm;
+        this.capacity = capacity;
     }
 
     public String getKey() {
@@ -53,4 +75,17 @@ public final class RatePolicy {
     public Duration getBlockDuration() {
         return blockDuration;
     }
+
+    public RateLimitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the max number of calls in a burst, that is the {@link #count} if the capacity is not set.
+     *
+     * @return The burst capacity.
+     */
+    public int getCapacity() {
+        return (capacity != null) ? capacity : count;
+    }
 }
@@ -0,0 +1,22 @@
+package com.github.prabakarankannan.ratelimit;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+/**
+ * Defines a contract to generate a key from the reactive Http server request.
+ *
+ * @author Prabakaran Kannan
+ */
+public interface ReactiveRateLimitKeyGenerator {
+
+    /**
+     * Returns the generated key.
+     *
+     * @param serverRequest Encapsulates the reactive http server request.
+     * @param policy        Encapsulates the rate limit policy properties.
+     * @return Generated key.
+     */
+    String generateKey(ServerHttpRequest serverRequest, Policy policy);
+}
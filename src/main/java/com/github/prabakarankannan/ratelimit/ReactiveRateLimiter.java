@@ -0,0 +1,19 @@
+package com.github.prabakarankannan.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Contract to cache the rate limit detail without blocking the calling thread, used by the reactive web applications.
+ *
+ * @author Prabakaran Kannan
+ */
+public interface ReactiveRateLimiter {
+
+    /**
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Details of a requester`s rate limit, emitted when it's consumed.
+     */
+    Mono<Rate> consume(@Nonnull RatePolicy ratePolicy);
+}
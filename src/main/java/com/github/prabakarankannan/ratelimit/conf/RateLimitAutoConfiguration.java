@@ -1,31 +1,80 @@
 package com.github.prabakarankannan.ratelimit.conf;
 
+import com.github.prabakarankannan.ratelimit.CoarseClock;
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
 import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
 import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimiter;
+import com.github.prabakarankannan.ratelimit.conf.error.DefaultReactiveTooManyRequestErrorHandler;
 import com.github.prabakarankannan.ratelimit.conf.error.DefaultTooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.error.ReactiveTooManyRequestErrorHandler;
 import com.github.prabakarankannan.ratelimit.conf.error.TooManyRequestErrorHandler;
 import com.github.prabakarankannan.ratelimit.conf.filter.RateLimitFilter;
+import com.github.prabakarankannan.ratelimit.conf.filter.ReactiveRateLimitFilter;
+import com.github.prabakarankannan.ratelimit.conf.metrics.MicrometerRateLimitRecorder;
+import com.github.prabakarankannan.ratelimit.conf.metrics.RateLimitRecorder;
 import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.repositories.CaffeineRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ExceededRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ExecutorRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.FallbackRateLimiter;
 import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.OffHeapRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ReactiveRateLimiterAdapter;
+import com.github.prabakarankannan.ratelimit.repositories.ShardedRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.replicated.ReplicatedRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.BatchingRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.LeasingRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisCounterRateCache;
 import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.ReactiveRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisScriptRateCache;
 import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRepository;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.lettuce.core.RedisURI;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 
 import static com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.PREFIX;
 
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import javax.servlet.DispatcherType;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Auto-configuration responsible for registering a {@link RateLimiter} and {@link RateLimitKeyGenerator}
@@ -33,6 +82,12 @@ import java.util.Map;
  * <p>
  * Defaults implementations of {@link RateLimiter} are base of memory and redis
  * that is configurable in the properties file.
+ * <p>
+ * The servlet web applications are filtered by a {@link RateLimitFilter}, and the reactive ones by
+ * a {@link ReactiveRateLimitFilter} which consumes the rates by a {@link ReactiveRateLimiter}.
+ * <p>
+ * The builtin repositories read the time of the registered {@link RateLimitClock}, so a custom clock bean,
+ * e.g. a manually advanced one in the tests, drives all of their windows.
  *
  * <h3>Custom Rate Limiter</h3>
  * In order to provide your own custom {@link RateLimiter} implementation,
@@ -52,20 +107,109 @@ import java.util.Map;
 @ConditionalOnProperty(prefix = PREFIX, name = "enabled", havingValue = "true")
 public class RateLimitAutoConfiguration {
 
-    public RateLimitAutoConfiguration(ApplicationContext context, RateLimitProperties rateLimitProperties) {
-        registerKeyGeneratorsBeans(context, rateLimitProperties);
+    /**
+     * Registers a bean of {@link RateLimitClock} that the builtin repositories read the time of.
+     *
+     * @param rateLimitProperties Encapsulates the rate limit properties.
+     * @return Expected {@link CoarseClock} if set `true` value on `clock.coarse` property, else the monotonic clock.
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimitClock.class)
+    public RateLimitClock rateLimitClock(RateLimitProperties rateLimitProperties) {
+        RateLimitProperties.Clock clock = rateLimitProperties.getClock();
+        if (clock.isCoarse())
+            return new CoarseClock(clock.getResolution(), RateLimitClock.monotonic());
+
+        return RateLimitClock.monotonic();
     }
 
     /**
-     * Registers a bean of {@link RateLimiter} if set `IN_MEMORY` value on `repository` property.
+     * Registers a bean of {@link RateLimiter} if set `IN_MEMORY` value on `repository` property. If the snapshot
+     * is enabled, the states are restored from the snapshot file and written back to it when the context is closed.
      *
+     * @param rateLimitProperties Encapsulates the rate limit properties.
+     * @param clock               The registered {@link RateLimitClock} bean.
      * @return The expected {@link InMemoryRateCache}.
      */
     @Bean
     @ConditionalOnMissingBean(RateLimiter.class)
     @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "IN_MEMORY")
-    public RateLimiter imMemoryRateLimiter() {
-        return new InMemoryRateCache();
+    public RateLimiter imMemoryRateLimiter(RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+        RateLimitProperties.InMemory.Snapshot snapshot = rateLimitProperties.getInMemory().getSnapshot();
+        Path snapshotPath = snapshot.isEnabled() ? Paths.get(snapshot.getPath()) : null;
+        return new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, true, clock, snapshotPath);
+    }
+
+    /**
+     * Registers a bean of {@link RateLimiter} if set `OFF_HEAP` value on `repository` property.
+     *
+     * @param rateLimitProperties Encapsulates the rate limit properties.
+     * @param clock               The registered {@link RateLimitClock} bean.
+     * @return The expected {@link OffHeapRateCache}.
+     * @throws IllegalStateException If a policy algorithm is not supported by the {@link OffHeapRateCache}.
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "OFF_HEAP")
+    public RateLimiter offHeapRateLimiter(RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+        for (RateLimitProperties.Policy policy : rateLimitProperties.getPolicies()) {
+            if (policy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+                throw new IllegalStateException("The OFF_HEAP repository does not support the " + policy.getAlgorithm()
+                        + " algorithm, use the BOUNDED_IN_MEMORY repository instead.");
+        }
+
+        return new OffHeapRateCache(rateLimitProperties.getInMemory().getMaximumSize(), clock);
+    }
+
+    /**
+     * Registers a bean of {@link RateLimiter} if set `REPLICATED_IN_MEMORY` value on `repository` property.
+     *
+     * @param rateLimitProperties Encapsulates the rate limit properties.
+     * @param clock               The registered {@link RateLimitClock} bean.
+     * @return The expected {@link ReplicatedRateCache}.
+     * @throws IllegalStateException If a policy algorithm is not supported by the {@link ReplicatedRateCache}.
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "REPLICATED_IN_MEMORY")
+    public RateLimiter replicatedInMemoryRateLimiter(RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+        for (RateLimitProperties.Policy policy : rateLimitProperties.getPolicies()) {
+            if (policy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+                throw new IllegalStateException("The REPLICATED_IN_MEMORY repository does not support the " + policy.getAlgorithm()
+                        + " algorithm.");
+        }
+
+        RateLimitProperties.InMemory.Replication replication = rateLimitProperties.getInMemory().getReplication();
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String peer : replication.getPeers()) {
+            peers.add(socketAddress(peer));
+        }
+
+        return new ReplicatedRateCache(new InetSocketAddress(replication.getHost(), replication.getPort()), peers,
+                replication.getInterval(), clock);
+    }
+
+    /**
+     * Encapsulates the bounded in memory rate limiter auto-configuration to register bean of {@link CaffeineRateCache}
+     * if set `BOUNDED_IN_MEMORY` value on `repository` property and exist Caffeine.
+     */
+    @Configuration
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnClass(Caffeine.class)
+    @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "BOUNDED_IN_MEMORY")
+    public static class CaffeineConfiguration {
+
+        /**
+         * Registers a bean of {@link RateLimiter} to cache rate limit detail into a bounded memory cache.
+         *
+         * @param rateLimitProperties Encapsulates the rate limit properties.
+         * @param clock               The registered {@link RateLimitClock} bean.
+         * @return Expected {@link CaffeineRateCache}.
+         */
+        @Bean
+        public RateLimiter caffeineRateLimiter(RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+            return new CaffeineRateCache(rateLimitProperties.getInMemory().getMaximumSize(), clock);
+        }
     }
 
     /**
@@ -82,56 +226,437 @@ public class RateLimitAutoConfiguration {
         /**
          * Registers a bean of {@link RateLimiter} to cache rate limit detail into Redis.
          *
-         * @param redisRepository Provides redis repository to persist and retrieve from/to Redis.
-         * @return Expected {@link RedisRateCache}.
+         * @param redisRepository     Provides redis repository to persist and retrieve from/to Redis.
+         * @param rateLimitProperties Encapsulates the rate limit properties.
+         * @param clock               The registered {@link RateLimitClock} bean.
+         * @return Expected {@link RedisRateCache}, decorated by an {@link ExecutorRateLimiter} if the filter is asynchronous,
+         * and by a {@link FallbackRateLimiter} and an {@link ExceededRateCache} if they're enabled.
+         * @throws IllegalStateException If a policy algorithm is not supported by the {@link RedisRateCache}.
          */
         @Bean
-        public RateLimiter redisRateLimiter(RedisRepository redisRepository) {
-            return new RedisRateCache(redisRepository);
+        public RateLimiter redisRateLimiter(RedisRepository redisRepository, RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+            for (RateLimitProperties.Policy policy : rateLimitProperties.getPolicies()) {
+                if (policy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+                    throw new IllegalStateException("The REDIS repository does not support the " + policy.getAlgorithm()
+                            + " algorithm, use the REDIS_SCRIPT repository instead.");
+            }
+
+            RateLimiter rateLimiter = offload(new RedisRateCache(redisRepository, clock), true, rateLimitProperties);
+            return cacheExceeded(fallback(rateLimiter, rateLimitProperties, clock), rateLimitProperties, clock);
         }
     }
 
     /**
-     * Registers a bean of {@link TooManyRequestErrorHandler} to handle too many request error.
-     *
-     * @return Expected {@link DefaultTooManyRequestErrorHandler}.
+     * Encapsulates the redis script based rate limiter auto-configuration to register bean of {@link RedisScriptRateCache}
+     * if set `REDIS_SCRIPT` value on `repository` property and exist {@link StringRedisTemplate}.
      */
-    @Bean
-    @ConditionalOnMissingBean(TooManyRequestErrorHandler.class)
-    public TooManyRequestErrorHandler tooManyRequestErrorHandler() {
-        return new DefaultTooManyRequestErrorHandler();
+    @Configuration
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "REDIS_SCRIPT")
+    public static class RedisScriptConfiguration {
+
+        /**
+         * Registers a bean of {@link RateLimiter} to consume rate limits atomically by a Lua script in Redis.
+         * If the leasing is enabled, the permits are leased from redis in chunks, else if the batching is enabled,
+         * the consumptions of the concurrent requests are sent in redis pipelines. If the redis shards are set,
+         * the keys are spread over them by a {@link ShardedRateLimiter}, each shard on its own redis connection.
+         *
+         * @param redisTemplate       Provides redis template to execute the script on Redis.
+         * @param rateLimitProperties Encapsulates the rate limit properties.
+         * @param clock               The registered {@link RateLimitClock} bean.
+         * @return Expected {@link RedisScriptRateCache}, {@link LeasingRedisScriptRateCache}, {@link BatchingRedisScriptRateCache}
+         * or {@link ShardedRateLimiter}, decorated by an {@link ExecutorRateLimiter} if the filter is asynchronous and the cache
+         * {@link RedisScriptRateCache#isBlocking() blocks}, and by a {@link FallbackRateLimiter} and an {@link ExceededRateCache} if they're enabled.
+         */
+        @Bean
+        public RateLimiter redisScriptRateLimiter(StringRedisTemplate redisTemplate, RateLimitProperties rateLimitProperties,
+                                                  RateLimitClock clock) {
+            List<String> shards = rateLimitProperties.getRedis().getShards();
+            if (shards.isEmpty()) {
+                RedisScriptRateCache rateCache = redisScriptRateCache(redisTemplate, rateLimitProperties, clock);
+                RateLimiter rateLimiter = offload(rateCache, rateCache.isBlocking(), rateLimitProperties);
+                rateLimiter = cacheExceeded(fallback(rateLimiter, rateLimitProperties, clock), rateLimitProperties, clock);
+
+                // The container initializes only the returned bean, so a decorated cache loads its scripts here.
+                if (rateLimiter != rateCache)
+                    rateCache.afterPropertiesSet();
+
+                return rateLimiter;
+            }
+
+            Map<String, RateLimiter> shardRateLimiters = new LinkedHashMap<>();
+            for (String uri : shards) {
+                RedisShard shard = new RedisShard(uri, rateLimitProperties, clock);
+                shardRateLimiters.put(uri, offload(shard, shard.rateCache.isBlocking(), rateLimitProperties));
+            }
+
+            return cacheExceeded(fallback(new ShardedRateLimiter(shardRateLimiters), rateLimitProperties, clock), rateLimitProperties, clock);
+        }
+
+        private static RedisScriptRateCache redisScriptRateCache(StringRedisTemplate redisTemplate, RateLimitProperties rateLimitProperties,
+                                                                 RateLimitClock clock) {
+            boolean hashTag = rateLimitProperties.getRedis().getHashTag().isEnabled();
+
+            RateLimitProperties.Redis.Lease lease = rateLimitProperties.getRedis().getLease();
+            if (lease.isEnabled())
+                return new LeasingRedisScriptRateCache(redisTemplate, lease.getRatio(), hashTag, clock);
+
+            RateLimitProperties.Redis.Batch batch = rateLimitProperties.getRedis().getBatch();
+            if (batch.isEnabled())
+                return new BatchingRedisScriptRateCache(redisTemplate, batch.getWindow(), batch.getMaxSize(), hashTag, clock,
+                        batch.getTimeout());
+
+            return new RedisScriptRateCache(redisTemplate, hashTag, clock);
+        }
+
+        /**
+         * A shard of the redis script repository on its own Lettuce connection to a standalone redis node,
+         * the connection is closed by the shard.
+         */
+        private static final class RedisShard implements RateLimiter, AutoCloseable {
+
+            private final LettuceConnectionFactory connectionFactory;
+
+            private final RedisScriptRateCache rateCache;
+
+            private RedisShard(String uri, RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+                RedisURI redisURI = RedisURI.create(uri);
+                RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(redisURI.getHost(), redisURI.getPort());
+                configuration.setDatabase(redisURI.getDatabase());
+                if (redisURI.getPassword() != null) {
+                    configuration.setPassword(RedisPassword.of(redisURI.getPassword()));
+                }
+
+                this.connectionFactory = new LettuceConnectionFactory(configuration, redisURI.isSsl()
+                        ? LettuceClientConfiguration.builder().useSsl().build()
+                        : LettuceClientConfiguration.defaultConfiguration());
+                this.connectionFactory.afterPropertiesSet();
+
+                this.rateCache = redisScriptRateCache(new StringRedisTemplate(connectionFactory), rateLimitProperties, clock);
+                this.rateCache.afterPropertiesSet();
+            }
+
+            @Override
+            public Rate consume(@Nonnull RatePolicy ratePolicy) {
+                return rateCache.consume(ratePolicy);
+            }
+
+            @Override
+            public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+                return rateCache.consumeAsync(ratePolicy);
+            }
+
+            @Override
+            public void close() {
+                try {
+                    if (rateCache instanceof AutoCloseable) {
+                        ((AutoCloseable) rateCache).close();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not close the rate limiter.", e);
+                } finally {
+                    connectionFactory.destroy();
+                }
+            }
+        }
     }
 
     /**
-     * Registers a bean of {@link RateLimitFilter} servlet filter.
+     * Encapsulates the redis counter based rate limiter auto-configuration to register bean of {@link RedisCounterRateCache}
+     * if set `REDIS_COUNTER` value on `repository` property and exist {@link StringRedisTemplate}.
+     */
+    @Configuration
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "REDIS_COUNTER")
+    public static class RedisCounterConfiguration {
+
+        /**
+         * Registers a bean of {@link RateLimiter} to count the calls by plain counter keys in Redis.
+         *
+         * @param redisTemplate       Provides redis template to execute the script on Redis.
+         * @param rateLimitProperties Encapsulates the rate limit properties.
+         * @param clock               The registered {@link RateLimitClock} bean.
+         * @return Expected {@link RedisCounterRateCache}, decorated by an {@link ExecutorRateLimiter} if the filter is asynchronous,
+         * and by a {@link FallbackRateLimiter} and an {@link ExceededRateCache} if they're enabled.
+         * @throws IllegalStateException If a policy algorithm is not supported by the {@link RedisCounterRateCache}.
+         */
+        @Bean
+        public RateLimiter redisCounterRateLimiter(StringRedisTemplate redisTemplate, RateLimitProperties rateLimitProperties,
+                                                   RateLimitClock clock) {
+            for (RateLimitProperties.Policy policy : rateLimitProperties.getPolicies()) {
+                if (policy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+                    throw new IllegalStateException("The REDIS_COUNTER repository does not support the " + policy.getAlgorithm()
+                            + " algorithm, use the REDIS_SCRIPT repository instead.");
+            }
+
+            boolean migrate = rateLimitProperties.getRedis().getMigration().isEnabled();
+            RateLimiter rateLimiter = offload(new RedisCounterRateCache(redisTemplate, migrate, clock), true, rateLimitProperties);
+            return cacheExceeded(fallback(rateLimiter, rateLimitProperties, clock), rateLimitProperties, clock);
+        }
+    }
+
+    /**
+     * Encapsulates the metrics auto-configuration to register bean of {@link MicrometerRateLimitRecorder}
+     * if exist Micrometer and a {@link MeterRegistry}.
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    public static class MetricsConfiguration {
+
+        /**
+         * Registers a bean of {@link RateLimitRecorder} to record the rate limit decisions by Micrometer meters.
+         *
+         * @param meterRegistry       Provides the meter registry, if it's present.
+         * @param rateLimitProperties Encapsulates the rate limit properties.
+         * @param rateLimiter         The registered implemented {@link RateLimiter} bean.
+         * @return Expected {@link MicrometerRateLimitRecorder}, or {@link RateLimitRecorder#NOOP} if there is no meter registry.
+         */
+        @Bean
+        @ConditionalOnMissingBean(RateLimitRecorder.class)
+        public RateLimitRecorder rateLimitRecorder(
+                ObjectProvider<MeterRegistry> meterRegistry,
+                RateLimitProperties rateLimitProperties,
+                RateLimiter rateLimiter) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null)
+                return RateLimitRecorder.NOOP;
+
+            return new MicrometerRateLimitRecorder(registry, rateLimitProperties.getPolicies(), rateLimiter);
+        }
+    }
+
+    /**
+     * Encapsulates the servlet web application auto-configuration to register beans of {@link RateLimitFilter}
+     * and {@link TooManyRequestErrorHandler}.
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    public static class ServletConfiguration {
+
+        public ServletConfiguration(ApplicationContext context, RateLimitProperties rateLimitProperties) {
+            registerKeyGeneratorsBeans(context, rateLimitProperties);
+        }
+
+        /**
+         * Registers a bean of {@link TooManyRequestErrorHandler} to handle too many request error.
+         *
+         * @return Expected {@link DefaultTooManyRequestErrorHandler}.
+         */
+        @Bean
+        @ConditionalOnMissingBean(TooManyRequestErrorHandler.class)
+        public TooManyRequestErrorHandler tooManyRequestErrorHandler() {
+            return new DefaultTooManyRequestErrorHandler();
+        }
+
+        /**
+         * Registers a bean of {@link RateLimitFilter} servlet filter.
+         *
+         * @param rateLimitProperties        Encapsulates the rate limit properties.
+         * @param rateLimiter                The registered implemented {@link RateLimiter} bean.
+         * @param keyGenerators              A map of {@link RateLimitKeyGenerator}s beans.
+         * @param tooManyRequestErrorHandler The registered implemented {@link TooManyRequestErrorHandler} bean.
+         * @param rateLimitRecorder          Provides the registered {@link RateLimitRecorder} bean, if it's present.
+         * @return Expected {@link RateLimitFilter}.
+         */
+        @Bean
+        @ConditionalOnMissingBean(RateLimitFilter.class)
+        public RateLimitFilter rateLimitFilter(
+                RateLimitProperties rateLimitProperties,
+                RateLimiter rateLimiter,
+                Map<String, RateLimitKeyGenerator> keyGenerators,
+                TooManyRequestErrorHandler tooManyRequestErrorHandler,
+                ObjectProvider<RateLimitRecorder> rateLimitRecorder
+        ) {
+            return new RateLimitFilter(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler,
+                    RateLimitFilter.DEFAULT_MATCHED_POLICIES_CACHE_SIZE, rateLimitRecorder.getIfAvailable(() -> RateLimitRecorder.NOOP));
+        }
+
+        /**
+         * Registers the {@link RateLimitFilter} for the async dispatches too, if set `true` value on `async` property,
+         * since the filter completes the requests that it started their asynchronous processing on their dispatch.
+         *
+         * @param rateLimitFilter The registered {@link RateLimitFilter} bean.
+         * @return Expected {@link FilterRegistrationBean} of the {@link RateLimitFilter}.
+         */
+        @Bean
+        @ConditionalOnProperty(prefix = PREFIX, name = "async", havingValue = "true")
+        public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+            FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+            registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+            registration.setAsyncSupported(true);
+            return registration;
+        }
+    }
+
+    /**
+     * Encapsulates the reactive web application auto-configuration to register beans of {@link ReactiveRateLimiter},
+     * {@link ReactiveRateLimitFilter} and {@link ReactiveTooManyRequestErrorHandler}.
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = Type.REACTIVE)
+    public static class ReactiveConfiguration {
+
+        public ReactiveConfiguration(ApplicationContext context, RateLimitProperties rateLimitProperties) {
+            registerKeyGeneratorsBeans(context, rateLimitProperties);
+        }
+
+        /**
+         * Encapsulates the reactive redis script based rate limiter auto-configuration to register bean of
+         * {@link ReactiveRedisScriptRateCache} if set `REDIS_SCRIPT` value on `repository` property and exist
+         * {@link ReactiveStringRedisTemplate}.
+         */
+        @Configuration
+        @ConditionalOnMissingBean(ReactiveRateLimiter.class)
+        @ConditionalOnClass(ReactiveStringRedisTemplate.class)
+        @ConditionalOnProperty(prefix = PREFIX, name = "repository", havingValue = "REDIS_SCRIPT")
+        public static class ReactiveRedisScriptConfiguration {
+
+            /**
+             * Registers a bean of {@link ReactiveRateLimiter} to consume rate limits by a Lua script on a reactive
+             * redis connection. If the redis shards are set, or the fallback, the exceeded cache, the lease or the batch
+             * is enabled, the rates are consumed asynchronously by the registered {@link RateLimiter} instead, so they're
+             * sharded, bounded, cached, leased and batched the same way.
+             *
+             * @param redisTemplate       Provides reactive redis template to execute the script on Redis.
+             * @param rateLimitProperties Encapsulates the rate limit properties.
+             * @param rateLimiter         The registered implemented {@link RateLimiter} bean.
+             * @param clock               The registered {@link RateLimitClock} bean.
+             * @return Expected {@link ReactiveRedisScriptRateCache}.
+             */
+            @Bean
+            public ReactiveRateLimiter reactiveRedisScriptRateLimiter(
+                    ReactiveStringRedisTemplate redisTemplate,
+                    RateLimitProperties rateLimitProperties,
+                    ObjectProvider<RateLimiter> rateLimiter,
+                    RateLimitClock clock
+            ) {
+                RateLimitProperties.Redis redis = rateLimitProperties.getRedis();
+                if (!redis.getShards().isEmpty() || redis.getFallback().isEnabled() || redis.getExceededCache().isEnabled()
+                        || redis.getLease().isEnabled() || redis.getBatch().isEnabled()) {
+                    RateLimiter registeredRateLimiter = rateLimiter.getObject();
+                    return ratePolicy -> Mono.defer(() -> Mono.fromCompletionStage(registeredRateLimiter.consumeAsync(ratePolicy)));
+                }
+
+                return new ReactiveRedisScriptRateCache(redisTemplate, rateLimitProperties.getRedis().getHashTag().isEnabled(), clock);
+            }
+        }
+
+        /**
+         * Registers a bean of {@link ReactiveRateLimiter} that adapts the registered {@link RateLimiter},
+         * if there is no reactive implementation of the repository.
+         *
+         * @param rateLimiter The registered implemented {@link RateLimiter} bean.
+         * @return Expected {@link ReactiveRateLimiterAdapter}.
+         */
+        @Bean
+        @ConditionalOnMissingBean(ReactiveRateLimiter.class)
+        public ReactiveRateLimiter reactiveRateLimiter(RateLimiter rateLimiter) {
+            return new ReactiveRateLimiterAdapter(rateLimiter);
+        }
+
+        /**
+         * Registers a bean of {@link ReactiveTooManyRequestErrorHandler} to handle too many request error.
+         *
+         * @return Expected {@link DefaultReactiveTooManyRequestErrorHandler}.
+         */
+        @Bean
+        @ConditionalOnMissingBean(ReactiveTooManyRequestErrorHandler.class)
+        public ReactiveTooManyRequestErrorHandler reactiveTooManyRequestErrorHandler() {
+            return new DefaultReactiveTooManyRequestErrorHandler();
+        }
+
+        /**
+         * Registers a bean of {@link ReactiveRateLimitFilter} web filter.
+         *
+         * @param rateLimitProperties        Encapsulates the rate limit properties.
+         * @param rateLimiter                The registered implemented {@link ReactiveRateLimiter} bean.
+         * @param keyGenerators              A map of {@link ReactiveRateLimitKeyGenerator}s beans.
+         * @param tooManyRequestErrorHandler The registered implemented {@link ReactiveTooManyRequestErrorHandler} bean.
+         * @param rateLimitRecorder          Provides the registered {@link RateLimitRecorder} bean, if it's present.
+         * @return Expected {@link ReactiveRateLimitFilter}.
+         */
+        @Bean
+        @ConditionalOnMissingBean(ReactiveRateLimitFilter.class)
+        public ReactiveRateLimitFilter reactiveRateLimitFilter(
+                RateLimitProperties rateLimitProperties,
+                ReactiveRateLimiter rateLimiter,
+                Map<String, ReactiveRateLimitKeyGenerator> keyGenerators,
+                ReactiveTooManyRequestErrorHandler tooManyRequestErrorHandler,
+                ObjectProvider<RateLimitRecorder> rateLimitRecorder
+        ) {
+            return new ReactiveRateLimitFilter(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler,
+                    RateLimitFilter.DEFAULT_MATCHED_POLICIES_CACHE_SIZE, rateLimitRecorder.getIfAvailable(() -> RateLimitRecorder.NOOP));
+        }
+    }
+
+    /**
+     * Parses the given {@code host:port} address of a replication peer.
      *
-     * @param rateLimitProperties        Encapsulates the rate limit properties.
-     * @param rateLimiter                The registered implemented {@link RateLimiter} bean.
-     * @param keyGenerators              A map of {@link RateLimitKeyGenerator}s beans.
-     * @param tooManyRequestErrorHandler The registered implemented {@link TooManyRequestErrorHandler} bean.
-     * @return Expected {@link RateLimitFilter}.
+     * @throws IllegalStateException If the address does not have a port.
      */
-    @Bean
-    @ConditionalOnMissingBean(RateLimitFilter.class)
-    public RateLimitFilter rateLimitFilter(
-            RateLimitProperties rateLimitProperties,
-            RateLimiter rateLimiter,
-            Map<String, RateLimitKeyGenerator> keyGenerators,
-            TooManyRequestErrorHandler tooManyRequestErrorHandler
-    ) {
-        return new RateLimitFilter(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler);
+    private static InetSocketAddress socketAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0 || separator == address.length() - 1)
+            throw new IllegalStateException("The replication peer " + address + " should be in the host:port format.");
+
+        String host = address.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        return new InetSocketAddress(host, Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    /**
+     * Decorates the given blocking redis {@link RateLimiter} by an {@link ExecutorRateLimiter} if the servlet filter
+     * is asynchronous, so the container thread is released while redis is called. The {@link FallbackRateLimiter}
+     * calls redis on its own threads, so it's not decorated if the fallback is enabled.
+     */
+    private static RateLimiter offload(RateLimiter rateLimiter, boolean blocking, RateLimitProperties rateLimitProperties) {
+        if (!blocking || !rateLimitProperties.isAsync() || rateLimitProperties.getRedis().getFallback().isEnabled())
+            return rateLimiter;
+
+        return new ExecutorRateLimiter(rateLimiter);
+    }
+
+    /**
+     * Decorates the given redis {@link RateLimiter} by a {@link FallbackRateLimiter}, if it's enabled. It's decorated
+     * before the {@link ExceededRateCache}, so the cached exceeded rates are answered without the latency budget.
+     */
+    private static RateLimiter fallback(RateLimiter rateLimiter, RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+        RateLimitProperties.Redis.Fallback fallback = rateLimitProperties.getRedis().getFallback();
+        if (!fallback.isEnabled())
+            return rateLimiter;
+
+        return new FallbackRateLimiter(rateLimiter, fallback.getTimeout(), fallback.getMode(), fallback.getLocalRatio(),
+                fallback.getFailureRateThreshold(), fallback.getMinimumCalls(), fallback.getOpenDuration(), clock);
+    }
+
+    /**
+     * Decorates the given redis {@link RateLimiter} by an {@link ExceededRateCache}, if it's enabled.
+     */
+    private static RateLimiter cacheExceeded(RateLimiter rateLimiter, RateLimitProperties rateLimitProperties, RateLimitClock clock) {
+        if (!rateLimitProperties.getRedis().getExceededCache().isEnabled())
+            return rateLimiter;
+
+        return new ExceededRateCache(rateLimiter, InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, clock);
     }
 
     /**
-     * Registers all key generators that define in the configuration properties file to Spring context as a bean.
+     * Registers all key generators that define in the configuration properties file to Spring context as a bean,
+     * by the servlet or the reactive configuration, so they are registered before the filter of the application type.
      */
-    private void registerKeyGeneratorsBeans(ApplicationContext context, RateLimitProperties rateLimitProperties) {
+    private static void registerKeyGeneratorsBeans(ApplicationContext context, RateLimitProperties rateLimitProperties) {
         BeanDefinitionRegistry registry = (BeanDefinitionRegistry) context.getAutowireCapableBeanFactory();
 
         for (RateLimitProperties.KeyGenerator keyGenerator : rateLimitProperties.getKeyGenerators()) {
             BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder
                     .rootBeanDefinition(keyGenerator.getGenerator())
                     .addConstructorArgValue(keyGenerator.getParams());
+            if (keyGenerator.isCompact()) {
+                beanDefinitionBuilder.addConstructorArgValue(true);
+            }
 
             registry.registerBeanDefinition(keyGenerator.getName(), beanDefinitionBuilder.getBeanDefinition());
         }
@@ -0,0 +1,36 @@
+package com.github.prabakarankannan.ratelimit.conf.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Default implementation of {@link ReactiveTooManyRequestErrorHandler} to handle too many request error response,
+ * the same response as the {@link DefaultTooManyRequestErrorHandler} writes.
+ *
+ * @author Prabakaran Kannan
+ */
+public class DefaultReactiveTooManyRequestErrorHandler implements ReactiveTooManyRequestErrorHandler {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /**
+     * Sets the response status code with 429 with {@code RETRY_AFTER_HEADER} header and the response body empty.
+     *
+     * @param exchange Encapsulates the http server request and response.
+     * @param rate     Encapsulates the rate limit details.
+     * @return Completes when the response is written.
+     */
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Rate rate) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(RETRY_AFTER_HEADER, String.valueOf(rate.getExpiration().getEpochSecond()));
+
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.prabakarankannan.ratelimit.conf.error;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * In order to handle too many request error response of the reactive web applications.
+ *
+ * @author Prabakaran Kannan
+ */
+public interface ReactiveTooManyRequestErrorHandler {
+
+    /**
+     * @param exchange Encapsulates the http server request and response.
+     * @param rate     Encapsulates the rate limit details.
+     * @return Completes when the response is written.
+     */
+    Mono<Void> handle(ServerWebExchange exchange, Rate rate);
+}
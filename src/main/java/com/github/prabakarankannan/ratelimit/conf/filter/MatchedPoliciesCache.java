@@ -0,0 +1,173 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * A bounded concurrent cache of the matched policies by the request uri and HTTP method.
+ * <p>
+ * The entries are evicted by the CLOCK algorithm, an entry which is read since the last time the clock hand
+ * passed over it gets a second chance, so the hot uris stay in the cache while the high cardinality ones,
+ * e.g. {@code /users/{id}}, are evicted without growing the cache beyond its {@link #maxSize}.
+ *
+ * @author Prabakaran Kannan
+ */
+public final class MatchedPoliciesCache {
+
+    /**
+     * The max number of the cached uri and method pairs.
+     */
+    private final int maxSize;
+
+    private final ConcurrentHashMap<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * The keys in the order of their insertion, the head of the queue is the clock hand.
+     */
+    private final Queue<Key> clock = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public MatchedPoliciesCache(int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("The matched policies cache max size should be positive.");
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached policies of the given uri and method, or matches them by the given {@code matcher}
+     * and caches the result.
+     *
+     * @param uri     The request uri.
+     * @param method  The request HTTP method.
+     * @param matcher Finds the matched policies of a uri and method.
+     * @return The matched policies.
+     */
+    public List<Policy> get(@Nonnull String uri, String method,
+                            @Nonnull BiFunction<String, String, List<Policy>> matcher) {
+        Key key = new Key(uri, method);
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            hitCount.increment();
+            // Only written when it's cleared, so the hits of a hot entry don't keep invalidating its cache line.
+            if (!entry.referenced)
+                entry.referenced = true;
+            return entry.policies;
+        }
+
+        missCount.increment();
+        List<Policy> policies = matcher.apply(uri, method);
+        if (cache.putIfAbsent(key, new Entry(policies)) == null) {
+            clock.offer(key);
+            if (size.incrementAndGet() > maxSize)
+                evict();
+        }
+
+        return policies;
+    }
+
+    /**
+     * Returns the number of the lookups that found their policies in the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of the lookups that matched the policies because they were not cached.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of the cached uri and method pairs.
+     *
+     * @return The size of the cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Moves the clock hand until an entry which is not referenced since the last pass is found and removes it.
+     */
+    private void evict() {
+        Key key;
+        while (size.get() > maxSize && (key = clock.poll()) != null) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.referenced) {
+                entry.referenced = false;
+                clock.offer(key);
+            } else {
+                cache.remove(key);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final String uri;
+
+        private final String method;
+
+        private final int hash;
+
+        private Key(String uri, String method) {
+            this.uri = uri;
+            this.method = method;
+            this.hash = 31 * uri.hashCode() + Objects.hashCode(method);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && uri.equals(key.uri) && Objects.equals(method, key.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + uri;
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<Policy> policies;
+
+        /**
+         * Whether the entry is read since the clock hand passed over it.
+         */
+        private volatile boolean referenced;
+
+        private Entry(List<Policy> policies) {
+            this.policies = Objects.requireNonNull(policies);
+        }
+    }
+}
@@ -5,33 +5,54 @@ import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
 import com.github.prabakarankannan.ratelimit.RateLimiter;
 import com.github.prabakarankannan.ratelimit.RatePolicy;
 import com.github.prabakarankannan.ratelimit.conf.error.TooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.metrics.RateLimitRecorder;
 import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
 import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
 
 import org.springframework.boot.web.servlet.filter.OrderedFilter;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.annotation.Nonnull;
+import javax.servlet.AsyncContext;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-
-import static java.util.Comparator.comparing;
-import static java.util.stream.Collectors.toList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * A servlet filter to filtering requests to handle rate limiting.
+ * <p>
+ * If the {@link RateLimitProperties#isAsync()} is enabled and the request supports the asynchronous processing,
+ * the rates are consumed by the {@link RateLimiter#consumeAsync(RatePolicy)} and the container thread is released
+ * meanwhile. When they are consumed, the request is dispatched to the container again, and the filter completes it
+ * on the container thread, by passing it to the rest of the chain or by the too many request error.
  *
  * @author Prabakaran Kannan
  */
 public class RateLimitFilter extends OncePerRequestFilter implements OrderedFilter {
 
+    /**
+     * The default max number of the request uri and method pairs to cache their matched policies.
+     */
+    public static final int DEFAULT_MATCHED_POLICIES_CACHE_SIZE = 10_000;
+
+    /**
+     * The request attribute that keeps the result of the asynchronous consumption until the request is dispatched.
+     */
+    static final String ASYNC_RESULT_ATTRIBUTE = RateLimitFilter.class.getName() + ".ASYNC_RESULT";
+
+    /**
+     * The asynchronous consumption result of a request that none of its rates is exceeded.
+     */
+    private static final Object ALLOWED = new Object();
+
     /**
      * Encapsulates the rate limit properties.
      */
@@ -48,24 +69,64 @@ public class RateLimitFilter extends OncePerRequestFilter implements OrderedFilt
     private final Map<String, RateLimitKeyGenerator> keyGenerators;
 
     /**
-     * A utility class to path matching.
+     * The compiled index of the policies routes to find the matched policies.
      */
-    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final RouteIndex routeIndex;
+
+    /**
+     * Caches the matched policies of the recent request uris, so the repeated requests skip the route matching.
+     */
+    private final MatchedPoliciesCache matchedPoliciesCache;
 
     /**
      * Used to handle too many request error.
      */
     private final TooManyRequestErrorHandler tooManyRequestErrorHandler;
 
+    /**
+     * Used to record the rate limit decisions.
+     */
+    private final RateLimitRecorder rateLimitRecorder;
+
     public RateLimitFilter(
             RateLimitProperties rateLimitProperties,
             RateLimiter rateLimiter,
             Map<String, RateLimitKeyGenerator> keyGenerators,
             TooManyRequestErrorHandler tooManyRequestErrorHandler) {
+        this(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler, DEFAULT_MATCHED_POLICIES_CACHE_SIZE);
+    }
+
+    /**
+     * @param matchedPoliciesCacheSize The max number of the request uri and method pairs to cache their matched policies.
+     */
+    public RateLimitFilter(
+            RateLimitProperties rateLimitProperties,
+            RateLimiter rateLimiter,
+            Map<String, RateLimitKeyGenerator> keyGenerators,
+            TooManyRequestErrorHandler tooManyRequestErrorHandler,
+            int matchedPoliciesCacheSize) {
+        this(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler, matchedPoliciesCacheSize,
+                RateLimitRecorder.NOOP);
+    }
+
+    /**
+     * @param matchedPoliciesCacheSize The max number of the request uri and method pairs to cache their matched policies.
+     * @param rateLimitRecorder        Used to record the rate limit decisions.
+     */
+    public RateLimitFilter(
+            RateLimitProperties rateLimitProperties,
+            RateLimiter rateLimiter,
+            Map<String, RateLimitKeyGenerator> keyGenerators,
+            TooManyRequestErrorHandler tooManyRequestErrorHandler,
+            int matchedPoliciesCacheSize,
+            RateLimitRecorder rateLimitRecorder) {
+        this.rateLimitRecorder = rateLimitRecorder;
         this.rateLimitProperties = rateLimitProperties;
         this.rateLimiter = rateLimiter;
         this.keyGenerators = keyGenerators;
         this.tooManyRequestErrorHandler = tooManyRequestErrorHandler;
+        this.routeIndex = new RouteIndex(rateLimitProperties.getPolicies());
+        this.matchedPoliciesCache = new MatchedPoliciesCache(matchedPoliciesCacheSize);
     }
 
     /**
@@ -87,20 +148,28 @@ public class RateLimitFilter extends OncePerRequestFilter implements OrderedFilt
             HttpServletRequest httpServletRequest,
             @Nonnull HttpServletResponse httpServletResponse,
             @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        Object asyncResult = httpServletRequest.getAttribute(ASYNC_RESULT_ATTRIBUTE);
+        if (asyncResult != null) {
+            httpServletRequest.removeAttribute(ASYNC_RESULT_ATTRIBUTE);
+            completeAsync(asyncResult, httpServletRequest, httpServletResponse, filterChain);
+            return;
+        }
+
         List<Policy> matchedPolicies = getMatchedPolicies(httpServletRequest.getRequestURI(), httpServletRequest.getMethod());
 
+        if (rateLimitProperties.isAsync() && !matchedPolicies.isEmpty() && httpServletRequest.isAsyncSupported()) {
+            consumeAsync(matchedPolicies, httpServletRequest, httpServletResponse);
+            return;
+        }
+
         boolean doFilterChain = true;
 
         for (Policy policy : matchedPolicies) {
-            final RateLimitKeyGenerator rateLimitKeyGenerator = keyGenerators.get(policy.getKeyGenerator());
-            final String generatedKey = rateLimitKeyGenerator.generateKey(httpServletRequest, policy);
-            final RatePolicy ratePolicy = new RatePolicy(
-                    generatedKey,
-                    policy.getDuration(),
-                    policy.getCount(),
-                    (policy.getBlock() != null) ? policy.getBlock().getDuration() : null);
+            final RatePolicy ratePolicy = toRatePolicy(httpServletRequest, policy);
 
+            long start = System.nanoTime();
             Rate rate = rateLimiter.consume(ratePolicy);
+            rateLimitRecorder.record(policy, rate, System.nanoTime() - start);
 
             if (rate.isExceed()) {
                 tooManyRequestErrorHandler.handle(httpServletResponse, rate);
@@ -119,14 +188,120 @@ public class RateLimitFilter extends OncePerRequestFilter implements OrderedFilt
         return rateLimitProperties.getFilterOrder();
     }
 
+    /**
+     * Returns the number of the requests that their matched policies found in the cache.
+     *
+     * @return The matched policies cache hit count.
+     */
+    public long getMatchedPoliciesCacheHitCount() {
+        return matchedPoliciesCache.getHitCount();
+    }
+
+    /**
+     * Returns the number of the requests that their policies matched by the routes.
+     *
+     * @return The matched policies cache miss count.
+     */
+    public long getMatchedPoliciesCacheMissCount() {
+        return matchedPoliciesCache.getMissCount();
+    }
+
     private List<Policy> getMatchedPolicies(String uri, String method) {
-        return rateLimitProperties.getPolicies()
-                .stream()
-                .filter(it -> it.getRoutes().stream().anyMatch(route -> {
-                    if (route.getMethod() == null)
-                        return pathMatcher.match(route.getUri(), uri);
-
-                    return pathMatcher.match(route.getUri(), uri) && route.getMethod().name().equals(method);
-                })).sorted(comparing(Policy::getDuration)).collect(toList());
+        return matchedPoliciesCache.get(uri, method, routeIndex::match);
+    }
+
+    private RatePolicy toRatePolicy(HttpServletRequest httpServletRequest, Policy policy) {
+        final RateLimitKeyGenerator rateLimitKeyGenerator = keyGenerators.get(policy.getKeyGenerator());
+        final String generatedKey = rateLimitKeyGenerator.generateKey(httpServletRequest, policy);
+        return new RatePolicy(
+                generatedKey,
+                policy.getDuration(),
+                policy.getCount(),
+                (policy.getBlock() != null) ? policy.getBlock().getDuration() : null,
+                policy.getAlgorithm(),
+                policy.getCapacity());
+    }
+
+    /**
+     * Generates the keys on the container thread, since the request should not be used by the other threads,
+     * then starts the asynchronous processing and consumes the rates one after another, and stops on the first
+     * exceeded one. The result is kept in the request, which is dispatched to the container again.
+     */
+    private void consumeAsync(
+            List<Policy> matchedPolicies,
+            HttpServletRequest httpServletRequest,
+            HttpServletResponse httpServletResponse) {
+        List<RatePolicy> ratePolicies = new ArrayList<>(matchedPolicies.size());
+        for (Policy policy : matchedPolicies) {
+            ratePolicies.add(toRatePolicy(httpServletRequest, policy));
+        }
+
+        AsyncContext asyncContext = httpServletRequest.startAsync(httpServletRequest, httpServletResponse);
+        consumeAsync(matchedPolicies, ratePolicies, 0).whenComplete((rate, e) -> {
+            Object result = (e != null) ? e : (rate != null) ? rate : ALLOWED;
+            httpServletRequest.setAttribute(ASYNC_RESULT_ATTRIBUTE, result);
+            try {
+                asyncContext.dispatch();
+            } catch (IllegalStateException ignored) {
+                // The asynchronous processing is completed already, e.g. by its timeout.
+            }
+        });
+    }
+
+    /**
+     * Consumes the rate policy of the given index, then the next ones while the rates are not exceeded.
+     *
+     * @return The first exceeded rate, or {@code null} if none of them is exceeded.
+     */
+    private CompletionStage<Rate> consumeAsync(List<Policy> policies, List<RatePolicy> ratePolicies, int index) {
+        if (index == policies.size())
+            return CompletableFuture.completedFuture(null);
+
+        Policy policy = policies.get(index);
+        long start = System.nanoTime();
+        CompletionStage<Rate> consumed;
+        try {
+            consumed = rateLimiter.consumeAsync(ratePolicies.get(index));
+        } catch (RuntimeException e) {
+            CompletableFuture<Rate> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return consumed.thenCompose(rate -> {
+            rateLimitRecorder.record(policy, rate, System.nanoTime() - start);
+            return rate.isExceed()
+                    ? CompletableFuture.completedFuture(rate)
+                    : consumeAsync(policies, ratePolicies, index + 1);
+        });
+    }
+
+    private void completeAsync(
+            Object asyncResult,
+            HttpServletRequest httpServletRequest,
+            HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws ServletException, IOException {
+        if (asyncResult instanceof Rate) {
+            tooManyRequestErrorHandler.handle(httpServletResponse, (Rate) asyncResult);
+            return;
+        }
+
+        if (asyncResult instanceof Throwable) {
+            Throwable e = (asyncResult instanceof CompletionException && ((Throwable) asyncResult).getCause() != null)
+                    ? ((Throwable) asyncResult).getCause()
+                    : (Throwable) asyncResult;
+            if (e instanceof RuntimeException)
+                throw (RuntimeException) e;
+            if (e instanceof Error)
+                throw (Error) e;
+            if (e instanceof IOException)
+                throw (IOException) e;
+            if (e instanceof ServletException)
+                throw (ServletException) e;
+
+            throw new ServletException(e);
+        }
+
+        filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
 }
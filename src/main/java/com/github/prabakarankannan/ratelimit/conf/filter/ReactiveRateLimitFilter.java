@@ -0,0 +1,164 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimiter;
+import com.github.prabakarankannan.ratelimit.conf.error.ReactiveTooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.metrics.RateLimitRecorder;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A web filter to filtering requests to handle rate limiting in the reactive web applications,
+ * the equivalent of the servlet {@link RateLimitFilter}.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ReactiveRateLimitFilter implements WebFilter, Ordered {
+
+    /**
+     * Encapsulates the rate limit properties.
+     */
+    private final RateLimitProperties rateLimitProperties;
+
+    /**
+     * Used to rate limiting.
+     */
+    private final ReactiveRateLimiter rateLimiter;
+
+    /**
+     * Provides a map of key generators.
+     */
+    private final Map<String, ReactiveRateLimitKeyGenerator> keyGenerators;
+
+    /**
+     * The compiled index of the policies routes to find the matched policies.
+     */
+    private final RouteIndex routeIndex;
+
+    /**
+     * Caches the matched policies of the recent request uris, so the repeated requests skip the route matching.
+     */
+    private final MatchedPoliciesCache matchedPoliciesCache;
+
+    /**
+     * Used to handle too many request error.
+     */
+    private final ReactiveTooManyRequestErrorHandler tooManyRequestErrorHandler;
+
+    /**
+     * Used to record the rate limit decisions.
+     */
+    private final RateLimitRecorder rateLimitRecorder;
+
+    public ReactiveRateLimitFilter(
+            RateLimitProperties rateLimitProperties,
+            ReactiveRateLimiter rateLimiter,
+            Map<String, ReactiveRateLimitKeyGenerator> keyGenerators,
+            ReactiveTooManyRequestErrorHandler tooManyRequestErrorHandler) {
+        this(rateLimitProperties, rateLimiter, keyGenerators, tooManyRequestErrorHandler,
+                RateLimitFilter.DEFAULT_MATCHED_POLICIES_CACHE_SIZE, RateLimitRecorder.NOOP);
+    }
+
+    /**
+     * @param matchedPoliciesCacheSize The max number of the request uri and method pairs to cache their matched policies.
+     * @param rateLimitRecorder        Used to record the rate limit decisions.
+     */
+    public ReactiveRateLimitFilter(
+            RateLimitProperties rateLimitProperties,
+            ReactiveRateLimiter rateLimiter,
+            Map<String, ReactiveRateLimitKeyGenerator> keyGenerators,
+            ReactiveTooManyRequestErrorHandler tooManyRequestErrorHandler,
+            int matchedPoliciesCacheSize,
+            RateLimitRecorder rateLimitRecorder) {
+        this.rateLimitProperties = rateLimitProperties;
+        this.rateLimiter = rateLimiter;
+        this.keyGenerators = keyGenerators;
+        this.tooManyRequestErrorHandler = tooManyRequestErrorHandler;
+        this.rateLimitRecorder = rateLimitRecorder;
+        this.routeIndex = new RouteIndex(rateLimitProperties.getPolicies());
+        this.matchedPoliciesCache = new MatchedPoliciesCache(matchedPoliciesCacheSize);
+    }
+
+    /**
+     * Consumes the matched policies of the request one after another, and stops on the first exceeded one
+     * to return too many request error, else passes the request to the rest of the chain.
+     *
+     * @param exchange The current server exchange.
+     * @param chain    Provides a way to delegate to the next filter.
+     * @return Completes when the request processing is complete.
+     */
+    @Override
+    @Nonnull
+    public Mono<Void> filter(@Nonnull ServerWebExchange exchange, @Nonnull WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        List<Policy> matchedPolicies = matchedPoliciesCache.get(request.getPath().value(), request.getMethodValue(), routeIndex::match);
+        if (matchedPolicies.isEmpty())
+            return chain.filter(exchange);
+
+        return Flux.fromIterable(matchedPolicies)
+                .concatMap(policy -> consume(request, policy))
+                .filter(Rate::isExceed)
+                .next()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(exceeded -> exceeded.isPresent()
+                        ? tooManyRequestErrorHandler.handle(exchange, exceeded.get())
+                        : chain.filter(exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        return rateLimitProperties.getFilterOrder();
+    }
+
+    /**
+     * Returns the number of the requests that their matched policies found in the cache.
+     *
+     * @return The matched policies cache hit count.
+     */
+    public long getMatchedPoliciesCacheHitCount() {
+        return matchedPoliciesCache.getHitCount();
+    }
+
+    /**
+     * Returns the number of the requests that their policies matched by the routes.
+     *
+     * @return The matched policies cache miss count.
+     */
+    public long getMatchedPoliciesCacheMissCount() {
+        return matchedPoliciesCache.getMissCount();
+    }
+
+    private Mono<Rate> consume(ServerHttpRequest request, Policy policy) {
+        return Mono.defer(() -> {
+            final String generatedKey = keyGenerators.get(policy.getKeyGenerator()).generateKey(request, policy);
+            final RatePolicy ratePolicy = new RatePolicy(
+                    generatedKey,
+                    policy.getDuration(),
+                    policy.getCount(),
+                    (policy.getBlock() != null) ? policy.getBlock().getDuration() : null,
+                    policy.getAlgorithm(),
+                    policy.getCapacity());
+
+            long start = System.nanoTime();
+            return rateLimiter.consume(ratePolicy)
+                    .doOnNext(rate -> rateLimitRecorder.record(policy, rate, System.nanoTime() - start));
+        });
+    }
+}
@@ -0,0 +1,543 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * An index of the policies routes that is compiled once, to find the matched policies of a request
+ * without matching the request against every route.
+ * <p>
+ * The route uris are compiled into a trie of the path segments, where the literal segments are found by a hash
+ * lookup and only the wildcard segments ({@code *}, {@code ?}, <code>{variable}</code> and {@code **}) are matched
+ * one by one, with the same semantics of the {@link AntPathMatcher}. Each route end keeps the bitmask of its policies
+ * per HTTP method, so a request is matched by walking its path segments once and the matched policies are returned
+ * as a cached immutable list, sorted by the policy duration.
+ *
+ * @author Prabakaran Kannan
+ */
+public final class RouteIndex {
+
+    private static final String SEPARATOR = "/";
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    /**
+     * The method slot of the HTTP methods that are not in {@link HttpMethod}.
+     */
+    private static final int UNKNOWN_METHOD = HttpMethod.values().length;
+
+    /**
+     * The max number of the cached distinct results.
+     */
+    private static final int MAX_CACHED_RESULTS = 1024;
+
+    /**
+     * The policies sorted by their duration, the index of a policy in this list is its bit in the masks.
+     */
+    private final List<Policy> policies;
+
+    private final int words;
+
+    /**
+     * The root of the routes that start with the separator.
+     */
+    private final Node absoluteRoot = new Node();
+
+    /**
+     * The root of the routes that do not start with the separator.
+     */
+    private final Node relativeRoot = new Node();
+
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * The lists of the matched policies by their masks, it's replaced by a new array on every change.
+     */
+    private volatile CachedResult[] results = new CachedResult[0];
+
+    public RouteIndex(@Nonnull List<Policy> policies) {
+        List<Policy> sorted = new ArrayList<>(policies);
+        sorted.sort(comparing(Policy::getDuration));
+
+        this.policies = Collections.unmodifiableList(sorted);
+        this.words = Math.max(1, (sorted.size() + 63) / 64);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(words));
+
+        for (int i = 0; i < sorted.size(); i++) {
+            for (Route route : sorted.get(i).getRoutes()) {
+                add(route, i);
+            }
+        }
+    }
+
+    /**
+     * Returns the policies that any of their routes matches the given {@code uri} and {@code method},
+     * sorted by the policy duration.
+     *
+     * @param uri    The request uri.
+     * @param method The request HTTP method.
+     * @return The immutable list of matched policies.
+     */
+    public List<Policy> match(@Nonnull String uri, @Nonnull String method) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        int methodSlot = (httpMethod != null) ? httpMethod.ordinal() : UNKNOWN_METHOD;
+
+        Scratch scratch = this.scratch.get();
+        scratch.tokenize(uri);
+        Arrays.fill(scratch.mask, 0L);
+
+        Node root = uri.startsWith(SEPARATOR) ? absoluteRoot : relativeRoot;
+        match(root, 0, uri, uri.endsWith(SEPARATOR), methodSlot, scratch);
+
+        return result(scratch.mask);
+    }
+
+    private void add(Route route, int policyIndex) {
+        String uri = route.getUri();
+        String[] segments = Arrays.stream(uri.split(SEPARATOR)).filter(it -> !it.isEmpty()).toArray(String[]::new);
+        boolean hasDoubleWildcard = Arrays.asList(segments).contains(DOUBLE_WILDCARD);
+
+        Node node = uri.startsWith(SEPARATOR) ? absoluteRoot : relativeRoot;
+        for (String segment : segments) {
+            node = node.child(segment);
+        }
+
+        Terminal terminal;
+        if (hasDoubleWildcard) {
+            terminal = node.anyTrailing();
+        } else if (uri.endsWith(SEPARATOR)) {
+            terminal = node.trailingSeparator();
+        } else {
+            terminal = node.noTrailingSeparator();
+        }
+
+        terminal.add(route.getMethod(), policyIndex, words);
+    }
+
+    /**
+     * Walks the trie from the given {@code node} by the path segments from the {@code index}
+     * and adds the policies of the reached route ends to the mask.
+     */
+    private void match(Node node, int index, String uri, boolean trailingSeparator, int methodSlot, Scratch scratch) {
+        if (node.doubleWildcard != null) {
+            for (int i = index; i <= scratch.count; i++) {
+                match(node.doubleWildcard, i, uri, trailingSeparator, methodSlot, scratch);
+            }
+        }
+
+        if (index == scratch.count) {
+            add(node.anyTrailing, methodSlot, scratch.mask);
+            add(trailingSeparator ? node.trailingSeparator : node.noTrailingSeparator, methodSlot, scratch.mask);
+
+            // The same as the AntPathMatcher, a single wildcard matches the end of a path that ends with the separator
+            if (trailingSeparator && node.singleWildcard != null) {
+                add(node.singleWildcard.trailingSeparator, methodSlot, scratch.mask);
+                add(node.singleWildcard.noTrailingSeparator, methodSlot, scratch.mask);
+            }
+            return;
+        }
+
+        int start = scratch.starts[index];
+        int end = scratch.ends[index];
+
+        Node literal = node.literal(uri, start, end);
+        if (literal != null)
+            match(literal, index + 1, uri, trailingSeparator, methodSlot, scratch);
+
+        for (int i = 0; i < node.wildcardCount; i++) {
+            if (node.wildcardSegments[i].matches(uri, start, end))
+                match(node.wildcardChildren[i], index + 1, uri, trailingSeparator, methodSlot, scratch);
+        }
+    }
+
+    private static void add(Terminal terminal, int methodSlot, long[] mask) {
+        if (terminal == null)
+            return;
+
+        long[] methodMask = terminal.masks[methodSlot];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] |= methodMask[i];
+        }
+    }
+
+    /**
+     * Returns the cached list of the policies of the given mask, or caches a new one.
+     */
+    private List<Policy> result(long[] mask) {
+        int hash = Arrays.hashCode(mask);
+        for (CachedResult result : results) {
+            if (result.hash == hash && Arrays.equals(result.mask, mask))
+                return result.policies;
+        }
+
+        List<Policy> matched = new ArrayList<>();
+        for (int i = 0; i < policies.size(); i++) {
+            if ((mask[i >>> 6] & (1L << i)) != 0)
+                matched.add(policies.get(i));
+        }
+
+        CachedResult result = new CachedResult(mask.clone(), hash, Collections.unmodifiableList(matched));
+        synchronized (this) {
+            CachedResult[] current = results;
+            if (current.length < MAX_CACHED_RESULTS) {
+                CachedResult[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = result;
+                results = updated;
+            }
+        }
+
+        return result.policies;
+    }
+
+    /**
+     * Represents a path segment node of the trie.
+     */
+    private static final class Node {
+
+        /**
+         * The literal children in an open addressing hash table, to look them up by a range of the uri.
+         */
+        private String[] literalKeys = new String[0];
+
+        private Node[] literalChildren = new Node[0];
+
+        private int literalCount;
+
+        private SegmentMatcher[] wildcardSegments = new SegmentMatcher[0];
+
+        private Node[] wildcardChildren = new Node[0];
+
+        private int wildcardCount;
+
+        /**
+         * The child of the exact {@code *} segment, that is also one of the {@link #wildcardChildren}.
+         */
+        private Node singleWildcard;
+
+        private Node doubleWildcard;
+
+        /**
+         * The ends of the routes which contain {@code **}, those ignore the trailing separator.
+         */
+        private Terminal anyTrailing;
+
+        private Terminal trailingSeparator;
+
+        private Terminal noTrailingSeparator;
+
+        private Node child(String segment) {
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (doubleWildcard == null)
+                    doubleWildcard = new Node();
+                return doubleWildcard;
+            }
+
+            SegmentMatcher matcher = SegmentMatcher.of(segment);
+            if (matcher == null) {
+                Node child = literal(segment, 0, segment.length());
+                return (child != null) ? child : putLiteral(segment);
+            }
+
+            for (int i = 0; i < wildcardCount; i++) {
+                if (wildcardSegments[i].segment.equals(segment))
+                    return wildcardChildren[i];
+            }
+
+            Node child = new Node();
+            wildcardSegments = Arrays.copyOf(wildcardSegments, wildcardCount + 1);
+            wildcardChildren = Arrays.copyOf(wildcardChildren, wildcardCount + 1);
+            wildcardSegments[wildcardCount] = matcher;
+            wildcardChildren[wildcardCount] = child;
+            wildcardCount++;
+
+            if ("*".equals(segment))
+                singleWildcard = child;
+
+            return child;
+        }
+
+        private Node literal(String uri, int start, int end) {
+            if (literalCount == 0)
+                return null;
+
+            int length = end - start;
+            int mask = literalKeys.length - 1;
+            for (int i = hash(uri, start, end) & mask; literalKeys[i] != null; i = (i + 1) & mask) {
+                String key = literalKeys[i];
+                if (key.length() == length && uri.regionMatches(start, key, 0, length))
+                    return literalChildren[i];
+            }
+
+            return null;
+        }
+
+        private Node putLiteral(String segment) {
+            if ((literalCount + 1) * 2 > literalKeys.length) {
+                String[] keys = literalKeys;
+                Node[] children = literalChildren;
+                literalKeys = new String[Math.max(4, keys.length * 2)];
+                literalChildren = new Node[literalKeys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != null)
+                        insertLiteral(keys[i], children[i]);
+                }
+            }
+
+            Node child = new Node();
+            insertLiteral(segment, child);
+            literalCount++;
+
+            return child;
+        }
+
+        private void insertLiteral(String segment, Node child) {
+            int mask = literalKeys.length - 1;
+            int i = hash(segment, 0, segment.length()) & mask;
+            while (literalKeys[i] != null) {
+                i = (i + 1) & mask;
+            }
+
+            literalKeys[i] = segment;
+            literalChildren[i] = child;
+        }
+
+        private static int hash(String value, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + value.charAt(i);
+            }
+
+            return hash ^ (hash >>> 16);
+        }
+
+        private Terminal anyTrailing() {
+            if (anyTrailing == null)
+                anyTrailing = new Terminal();
+            return anyTrailing;
+        }
+
+        private Terminal trailingSeparator() {
+            if (trailingSeparator == null)
+                trailingSeparator = new Terminal();
+            return trailingSeparator;
+        }
+
+        private Terminal noTrailingSeparator() {
+            if (noTrailingSeparator == null)
+                noTrailingSeparator = new Terminal();
+            return noTrailingSeparator;
+        }
+    }
+
+    /**
+     * Keeps the policies masks of the routes that end in a node, per HTTP method.
+     */
+    private static final class Terminal {
+
+        private long[][] masks;
+
+        private void add(HttpMethod method, int policyIndex, int words) {
+            if (masks == null)
+                masks = new long[UNKNOWN_METHOD + 1][words];
+
+            for (int slot = 0; slot < masks.length; slot++) {
+                if (method == null || method.ordinal() == slot)
+                    masks[slot][policyIndex >>> 6] |= 1L << policyIndex;
+            }
+        }
+    }
+
+    /**
+     * Matches a path segment by a wildcard segment pattern with the same semantics of the {@link AntPathMatcher}.
+     * The {@code *}, {@code ?} and <code>{variable}</code> patterns are matched in place, and the
+     * <code>{variable:regex}</code> patterns by a regular expression.
+     */
+    private static final class SegmentMatcher {
+
+        private final String segment;
+
+        /**
+         * The glob form of the segment, where a <code>{variable}</code> is replaced with {@code *}.
+         */
+        private final String glob;
+
+        private final Pattern pattern;
+
+        private SegmentMatcher(String segment, String glob, Pattern pattern) {
+            this.segment = segment;
+            this.glob = glob;
+            this.pattern = pattern;
+        }
+
+        /**
+         * Returns a matcher of the given segment, or {@code null} if it's a literal segment.
+         */
+        private static SegmentMatcher of(String segment) {
+            if (segment.indexOf('*') < 0 && segment.indexOf('?') < 0 && segment.indexOf('{') < 0)
+                return null;
+
+            StringBuilder glob = new StringBuilder();
+            StringBuilder regex = new StringBuilder();
+            boolean hasRegex = false;
+            int literalStart = 0;
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '*' || c == '?') {
+                    regex.append(Pattern.quote(segment.substring(literalStart, i))).append(c == '*' ? ".*" : ".");
+                    glob.append(c);
+                    literalStart = i + 1;
+                } else if (c == '{') {
+                    int close = variableEnd(segment, i);
+                    if (close < 0) {
+                        glob.append(c);
+                        continue;
+                    }
+
+                    String variable = segment.substring(i + 1, close);
+                    int colon = variable.indexOf(':');
+                    regex.append(Pattern.quote(segment.substring(literalStart, i)));
+                    if (colon < 0) {
+                        regex.append("((?s).*)");
+                        glob.append('*');
+                    } else {
+                        regex.append('(').append(variable.substring(colon + 1)).append(')');
+                        hasRegex = true;
+                    }
+                    i = close;
+                    literalStart = close + 1;
+                } else {
+                    glob.append(c);
+                }
+            }
+            regex.append(Pattern.quote(segment.substring(literalStart)));
+
+            return new SegmentMatcher(segment, glob.toString(), hasRegex ? Pattern.compile(regex.toString()) : null);
+        }
+
+        private static int variableEnd(String segment, int open) {
+            int depth = 0;
+            for (int i = open; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private boolean matches(String uri, int start, int end) {
+            if (pattern != null)
+                return pattern.matcher(uri).region(start, end).matches();
+
+            return globMatches(uri, start, end);
+        }
+
+        /**
+         * Matches the glob with the {@code *} and {@code ?} wildcards against the given range of the uri.
+         */
+        private boolean globMatches(String uri, int start, int end) {
+            int g = 0;
+            int u = start;
+            int starG = -1;
+            int starU = 0;
+            while (u < end) {
+                if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == uri.charAt(u))) {
+                    g++;
+                    u++;
+                } else if (g < glob.length() && glob.charAt(g) == '*') {
+                    starG = g++;
+                    starU = u;
+                } else if (starG >= 0) {
+                    g = starG + 1;
+                    u = ++starU;
+                } else {
+                    return false;
+                }
+            }
+
+            while (g < glob.length() && glob.charAt(g) == '*') {
+                g++;
+            }
+
+            return g == glob.length();
+        }
+    }
+
+    /**
+     * The per thread state of a matching, reused by the next matchings of the same thread.
+     */
+    private static final class Scratch {
+
+        private final long[] mask;
+
+        private int[] starts = new int[16];
+
+        private int[] ends = new int[16];
+
+        /**
+         * The number of the path segments.
+         */
+        private int count;
+
+        private Scratch(int words) {
+            this.mask = new long[words];
+        }
+
+        /**
+         * Finds the ranges of the non-empty path segments of the given uri.
+         */
+        private void tokenize(String uri) {
+            count = 0;
+            int start = 0;
+            int length = uri.length();
+            while (start < length) {
+                int end = uri.indexOf('/', start);
+                if (end < 0)
+                    end = length;
+
+                if (end > start) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        ends = Arrays.copyOf(ends, count * 2);
+                    }
+                    starts[count] = start;
+                    ends[count] = end;
+                    count++;
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final long[] mask;
+
+        private final int hash;
+
+        private final List<Policy> policies;
+
+        private CachedResult(long[] mask, int hash, List<Policy> policies) {
+            this.mask = mask;
+            this.hash = hash;
+            this.policies = policies;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.prabakarankannan.ratelimit.conf.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.repositories.CaffeineRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ExceededRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.FallbackRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.OffHeapRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.replicated.ReplicatedRateCache;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An implementation of {@link RateLimitRecorder} to record the rate limit decisions by the Micrometer meters.
+ * <p>
+ * The meters are tagged by the policy name, or {@code policy-<index>} for the policies without a name,
+ * and never by the requester key, so the number of the meters is bounded by the number of the policies.
+ * All of the meters are registered up front, so recording a decision only looks up the policy meters
+ * in an identity map, without any allocation.
+ * <p>
+ * Registers the following meters:
+ * <ul>
+ *     <li>{@code rate.limit.consume}: Timer of the rate limiter consumptions, tagged by {@code policy}.</li>
+ *     <li>{@code rate.limit.requests}: Counter of the requests, tagged by {@code policy} and {@code result},
+ *     that is {@code allowed} or {@code rejected}.</li>
+ *     <li>{@code rate.limit.store.size}: Gauge of the number of the cached rates of the {@link InMemoryRateCache},
+ *     the {@link CaffeineRateCache}, the {@link OffHeapRateCache} or the {@link ReplicatedRateCache}.</li>
+ *     <li>{@code rate.limit.store.evictions}: Counter of the expired rates that the {@link InMemoryRateCache} or the
+ *     {@link ReplicatedRateCache} reclaimed, or the keys that the {@link CaffeineRateCache} or the {@link OffHeapRateCache} evicted.</li>
+ *     <li>{@code rate.limit.fallbacks}: Counter of the consumptions that the {@link FallbackRateLimiter} decided by its
+ *     fallback, tagged by {@code mode}.</li>
+ * </ul>
+ *
+ * @author Prabakaran Kannan
+ */
+public class MicrometerRateLimitRecorder implements RateLimitRecorder {
+
+    public static final String CONSUME_METER = "rate.limit.consume";
+
+    public static final String REQUESTS_METER = "rate.limit.requests";
+
+    public static final String STORE_SIZE_METER = "rate.limit.store.size";
+
+    public static final String STORE_EVICTIONS_METER = "rate.limit.store.evictions";
+
+    public static final String FALLBACKS_METER = "rate.limit.fallbacks";
+
+    /**
+     * The meters of each policy by the policy identity.
+     */
+    private final Map<Policy, PolicyMeters> meters = new IdentityHashMap<>();
+
+    /**
+     * @param meterRegistry The registry to register the meters.
+     * @param policies      The rate limit policies, to register their meters.
+     * @param rateLimiter   The rate limiter, to register the store meters if it supports them.
+     */
+    public MicrometerRateLimitRecorder(MeterRegistry meterRegistry, List<Policy> policies, RateLimiter rateLimiter) {
+        for (int i = 0; i < policies.size(); i++) {
+            Policy policy = policies.get(i);
+            String name = StringUtils.hasText(policy.getName()) ? policy.getName() : "policy-" + i;
+            meters.put(policy, new PolicyMeters(meterRegistry, name));
+        }
+
+        if (rateLimiter instanceof ExceededRateCache) {
+            rateLimiter = ((ExceededRateCache) rateLimiter).getDelegate();
+        }
+
+        if (rateLimiter instanceof FallbackRateLimiter) {
+            FallbackRateLimiter fallbackRateLimiter = (FallbackRateLimiter) rateLimiter;
+            FunctionCounter.builder(FALLBACKS_METER, fallbackRateLimiter, FallbackRateLimiter::getFallbackCount)
+                    .description("The number of the consumptions that decided by the fallback")
+                    .tag("mode", fallbackRateLimiter.getMode().name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        if (rateLimiter instanceof InMemoryRateCache) {
+            InMemoryRateCache inMemoryRateCache = (InMemoryRateCache) rateLimiter;
+            Gauge.builder(STORE_SIZE_METER, inMemoryRateCache, InMemoryRateCache::size)
+                    .description("The number of the cached rates")
+                    .tag("store", "in_memory")
+                    .register(meterRegistry);
+            FunctionCounter.builder(STORE_EVICTIONS_METER, inMemoryRateCache, InMemoryRateCache::getEvictionCount)
+                    .description("The number of the expired rates that reclaimed")
+                    .tag("store", "in_memory")
+                    .register(meterRegistry);
+        }
+
+        if (isCaffeinePresent() && rateLimiter instanceof CaffeineRateCache) {
+            CaffeineRateCache caffeineRateCache = (CaffeineRateCache) rateLimiter;
+            Gauge.builder(STORE_SIZE_METER, caffeineRateCache, CaffeineRateCache::size)
+                    .description("The number of the cached rates")
+                    .tag("store", "bounded_in_memory")
+                    .register(meterRegistry);
+            FunctionCounter.builder(STORE_EVICTIONS_METER, caffeineRateCache, CaffeineRateCache::getEvictionCount)
+                    .description("The number of the keys that evicted")
+                    .tag("store", "bounded_in_memory")
+                    .register(meterRegistry);
+        }
+
+        if (rateLimiter instanceof OffHeapRateCache) {
+            OffHeapRateCache offHeapRateCache = (OffHeapRateCache) rateLimiter;
+            Gauge.builder(STORE_SIZE_METER, offHeapRateCache, OffHeapRateCache::size)
+                    .description("The number of the cached rates")
+                    .tag("store", "off_heap")
+                    .register(meterRegistry);
+            FunctionCounter.builder(STORE_EVICTIONS_METER, offHeapRateCache, OffHeapRateCache::getEvictionCount)
+                    .description("The number of the keys that evicted")
+                    .tag("store", "off_heap")
+                    .register(meterRegistry);
+        }
+
+        if (rateLimiter instanceof ReplicatedRateCache) {
+            ReplicatedRateCache replicatedRateCache = (ReplicatedRateCache) rateLimiter;
+            Gauge.builder(STORE_SIZE_METER, replicatedRateCache, ReplicatedRateCache::size)
+                    .description("The number of the cached rates")
+                    .tag("store", "replicated_in_memory")
+                    .register(meterRegistry);
+            FunctionCounter.builder(STORE_EVICTIONS_METER, replicatedRateCache, ReplicatedRateCache::getEvictionCount)
+                    .description("The number of the expired rates that reclaimed")
+                    .tag("store", "replicated_in_memory")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Records the consumption duration and the decision of the given policy. The policies which are not known
+     * to this recorder are ignored.
+     */
+    @Override
+    public void record(Policy policy, Rate rate, long consumeNanos) {
+        PolicyMeters policyMeters = meters.get(policy);
+        if (policyMeters == null)
+            return;
+
+        policyMeters.consume.record(consumeNanos, TimeUnit.NANOSECONDS);
+        (rate.isExceed() ? policyMeters.rejected : policyMeters.allowed).increment();
+    }
+
+    /**
+     * The {@link CaffeineRateCache} is available only if Caffeine is present.
+     */
+    private static boolean isCaffeinePresent() {
+        return ClassUtils.isPresent("com.github.benmanes.caffeine.cache.Caffeine", MicrometerRateLimitRecorder.class.getClassLoader());
+    }
+
+    /**
+     * Encapsulates the meters of a policy.
+     */
+    private static final class PolicyMeters {
+
+        private final Timer consume;
+
+        private final Counter allowed;
+
+        private final Counter rejected;
+
+        private PolicyMeters(MeterRegistry meterRegistry, String policy) {
+            Tags tags = Tags.of("policy", policy);
+            this.consume = Timer.builder(CONSUME_METER)
+                    .description("The duration of the rate limiter consumptions")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.allowed = Counter.builder(REQUESTS_METER)
+                    .description("The number of the rate limited requests")
+                    .tags(tags.and("result", "allowed"))
+                    .register(meterRegistry);
+            this.rejected = Counter.builder(REQUESTS_METER)
+                    .description("The number of the rate limited requests")
+                    .tags(tags.and("result", "rejected"))
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.prabakarankannan.ratelimit.conf.metrics;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+/**
+ * In order to record the rate limit decisions of the {@link com.github.prabakarankannan.ratelimit.conf.filter.RateLimitFilter}.
+ * <p>
+ * It's called on every consumption, so the implementations should be cheap and never block.
+ *
+ * @author Prabakaran Kannan
+ */
+public interface RateLimitRecorder {
+
+    /**
+     * A recorder that records nothing.
+     */
+    RateLimitRecorder NOOP = (policy, rate, consumeNanos) -> { };
+
+    /**
+     * @param policy       The policy that the rate is consumed by.
+     * @param rate         The consumed rate, that is exceeded if the request is rejected.
+     * @param consumeNanos How long the consumption took, in nanoseconds.
+     */
+    void record(Policy policy, Rate rate, long consumeNanos);
+}
@@ -1,7 +1,10 @@
 package com.github.prabakarankannan.ratelimit.conf.properties;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
 import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.repositories.FallbackRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.replicated.ReplicatedRateCache;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
@@ -58,6 +61,33 @@ public class RateLimitProperties {
     @NotEmpty(message = "Rate limit key generators is empty")
     private final Set<@Valid KeyGenerator> keyGenerators;
 
+    /**
+     * Represents the redis based repositories options.
+     */
+    @Valid
+    @NestedConfigurationProperty
+    private final Redis redis;
+
+    /**
+     * Represents the bounded in memory repository options.
+     */
+    @Valid
+    @NestedConfigurationProperty
+    private final InMemory inMemory;
+
+    /**
+     * Represents the clock options of the repositories.
+     */
+    @Valid
+    @NestedConfigurationProperty
+    private final Clock clock;
+
+    /**
+     * Represents whether the servlet filter releases the container thread while the rates are consumed,
+     * by the servlet asynchronous processing.
+     */
+    private final boolean async;
+
     /**
      * Keeps a map of {@link #keyGenerators} by key generators names.
      */
@@ -91,11 +121,62 @@ public class RateLimitProperties {
             RateLimitRepositoryKey repository,
             Set<Policy> policies,
             Set<KeyGenerator> keyGenerators) {
+        this(enabled, filterOrder, repository, policies, keyGenerators, null);
+    }
+
+    public RateLimitProperties(
+            Boolean enabled,
+            int filterOrder,
+            RateLimitRepositoryKey repository,
+            Set<Policy> policies,
+            Set<KeyGenerator> keyGenerators,
+            Redis redis) {
+        this(enabled, filterOrder, repository, policies, keyGenerators, redis, null);
+    }
+
+    public RateLimitProperties(
+            Boolean enabled,
+            int filterOrder,
+            RateLimitRepositoryKey repository,
+            Set<Policy> policies,
+            Set<KeyGenerator> keyGenerators,
+            Redis redis,
+            Boolean async) {
+        this(enabled, filterOrder, repository, policies, keyGenerators, redis, async, null);
+    }
+
+    public RateLimitProperties(
+            Boolean enabled,
+            int filterOrder,
+            RateLimitRepositoryKey repository,
+            Set<Policy> policies,
+            Set<KeyGenerator> keyGenerators,
+            Redis redis,
+            Boolean async,
+            InMemory inMemory) {
+        this(enabled, filterOrder, repository, policies, keyGenerators, redis, async, inMemory, null);
+    }
+
+    @ConstructorBinding
+    public RateLimitProperties(
+            Boolean enabled,
+            int filterOrder,
+            RateLimitRepositoryKey repository,
+            Set<Policy> policies,
+            Set<KeyGenerator> keyGenerators,
+            Redis redis,
+            Boolean async,
+            InMemory inMemory,
+            Clock clock) {
         this.enabled = enabled;
+        this.async = (async != null) && async;
         this.repository = repository;
         this.policies = new ArrayList<>(policies);
         this.keyGenerators = keyGenerators;
         this.filterOrder = filterOrder;
+        this.redis = (redis != null) ? redis : new Redis();
+        this.inMemory = (inMemory != null) ? inMemory : new InMemory();
+        this.clock = (clock != null) ? clock : new Clock();
     }
 
     public boolean isEnabled() {
@@ -118,6 +199,22 @@ public class RateLimitProperties {
         return keyGenerators;
     }
 
+    public Redis getRedis() {
+        return redis;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public InMemory getInMemory() {
+        return inMemory;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
     /**
      * Encapsulates the key generator properties.
      */
@@ -142,6 +239,12 @@ public class RateLimitProperties {
         @NotNull(message = "Rate limit key generators, the generator is null")
         private Class<RateLimitKeyGenerator> generator;
 
+        /**
+         * Determines the generated keys should be the 128-bit SHA-256 hashes of their parts. If it's true, it's passed to the
+         * {@link #generator} constructor after the {@link #params}.
+         */
+        private boolean compact;
+
         public String getName() {
             return name;
         }
@@ -166,6 +269,14 @@ public class RateLimitProperties {
             this.generator = generator;
         }
 
+        public boolean isCompact() {
+            return compact;
+        }
+
+        public void setCompact(boolean compact) {
+            this.compact = compact;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -186,6 +297,11 @@ public class RateLimitProperties {
      */
     public static final class Policy {
 
+        /**
+         * Represents the policy name, that tags the policy metrics. It's optional.
+         */
+        private final String name;
+
         /**
          * Determines the limited duration.
          */
@@ -217,11 +333,47 @@ public class RateLimitProperties {
         @Valid
         private final Block block;
 
+        /**
+         * Determines the algorithm to limit the rate, the default is {@link RateLimitAlgorithm#FIXED_WINDOW}.
+         */
+        private final RateLimitAlgorithm algorithm;
+
+        /**
+         * The max number of API calls in a burst, used by the {@link RateLimitAlgorithm#TOKEN_BUCKET}.
+         * It's optional and the null value means the {@link #count}.
+         */
+        @Min(value = 1, message = "Rate limit policy`s capacity min value is {value}")
+        private final Integer capacity;
+
         public Policy(Duration duration,
                       Integer count,
                       String keyGenerator,
                       Set<Route> routes,
                       Block block) {
+            this(null, duration, count, keyGenerator, routes, block);
+        }
+
+        public Policy(String name,
+                      Duration duration,
+                      Integer count,
+                      String keyGenerator,
+                      Set<Route> routes,
+                      Block block) {
+            this(name, duration, count, keyGenerator, routes, block, null, null);
+        }
+
+        @ConstructorBinding
+        public Policy(String name,
+                      Duration duration,
+                      Integer count,
+                      String keyGenerator,
+                      Set<Route> routes,
+                      Block block,
+                      RateLimitAlgorithm algorithm,
+                      Integer capacity) {
+            this.algorithm = (algorithm != null) ? algorithm : RateLimitAlgorithm.FIXED_WINDOW;
+            this.capacity = capacity;
+            this.name = trimAllWhitespace(name);
             this.duration = duration;
             this.count = count;
             this.keyGenerator = trimAllWhitespace(keyGenerator);
@@ -229,6 +381,10 @@ public class RateLimitProperties {
             this.block = block;
         }
 
+        public String getName() {
+            return name;
+        }
+
         public Duration getDuration() {
             return duration;
         }
@@ -249,6 +405,14 @@ public class RateLimitProperties {
             return block;
         }
 
+        public RateLimitAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public Integer getCapacity() {
+            return capacity;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -256,12 +420,13 @@ public class RateLimitProperties {
             Policy policy = (Policy) o;
             return duration.equals(policy.duration) &&
                     count.equals(policy.count) &&
-                    keyGenerator.equals(policy.keyGenerator);
+                    keyGenerator.equals(policy.keyGenerator) &&
+                    algorithm == policy.algorithm;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(duration, count, keyGenerator);
+            return Objects.hash(duration, count, keyGenerator, algorithm);
         }
 
         /**
@@ -328,4 +493,548 @@ public class RateLimitProperties {
             }
         }
     }
+
+    /**
+     * Encapsulates the redis based repositories options.
+     */
+    public static final class Redis {
+
+        /**
+         * Represents the batching options of the redis script repository.
+         */
+        @Valid
+        private Batch batch = new Batch();
+
+        public Batch getBatch() {
+            return batch;
+        }
+
+        public void setBatch(Batch batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * Represents the permit leasing options of the redis script repository.
+         */
+        @Valid
+        private Lease lease = new Lease();
+
+        public Lease getLease() {
+            return lease;
+        }
+
+        public void setLease(Lease lease) {
+            this.lease = lease;
+        }
+
+        /**
+         * Represents the node local cache of the exceeded rates of the redis repositories.
+         */
+        @Valid
+        private ExceededCache exceededCache = new ExceededCache();
+
+        public ExceededCache getExceededCache() {
+            return exceededCache;
+        }
+
+        public void setExceededCache(ExceededCache exceededCache) {
+            this.exceededCache = exceededCache;
+        }
+
+        /**
+         * Represents the hash tag options of the redis script repository keys.
+         */
+        @Valid
+        private HashTag hashTag = new HashTag();
+
+        public HashTag getHashTag() {
+            return hashTag;
+        }
+
+        public void setHashTag(HashTag hashTag) {
+            this.hashTag = hashTag;
+        }
+
+        /**
+         * Represents the migration options of the redis counter repository.
+         */
+        @Valid
+        private Migration migration = new Migration();
+
+        public Migration getMigration() {
+            return migration;
+        }
+
+        public void setMigration(Migration migration) {
+            this.migration = migration;
+        }
+
+        /**
+         * Represents the fallback options of the redis repositories when redis is slow or down.
+         */
+        @Valid
+        private Fallback fallback = new Fallback();
+
+        public Fallback getFallback() {
+            return fallback;
+        }
+
+        public void setFallback(Fallback fallback) {
+            this.fallback = fallback;
+        }
+
+        /**
+         * The URIs of the standalone redis nodes, e.g. {@code redis://host:6379/0}, that the redis script repository
+         * spreads the keys over by consistent hashing. If it's empty, the application redis connection is used.
+         */
+        private List<String> shards = new ArrayList<>();
+
+        public List<String> getShards() {
+            return shards;
+        }
+
+        public void setShards(List<String> shards) {
+            this.shards = (shards != null) ? shards : new ArrayList<>();
+        }
+
+        /**
+         * Encapsulates the options to batch the consumptions of the concurrent requests into redis pipelines.
+         */
+        public static final class Batch {
+
+            /**
+             * Represents the batching to be enabled or not.
+             */
+            private boolean enabled;
+
+            /**
+             * Determines how long to wait for more consumptions before sending a batch.
+             */
+            @NotNull(message = "Rate limit redis batch window is null")
+            private Duration window = Duration.ofNanos(200_000);
+
+            /**
+             * Determines the max number of consumptions in a batch, a full batch is sent without waiting.
+             */
+            @Min(value = 1, message = "Rate limit redis batch max size min value is {value}")
+            private int maxSize = 128;
+
+            /**
+             * Determines how long a blocking consumption waits for its batch, before it fails.
+             */
+            @NotNull(message = "Rate limit redis batch timeout is null")
+            private Duration timeout = Duration.ofSeconds(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        /**
+         * Encapsulates the options to lease a chunk of the permits of the rates from redis,
+         * and serve them from the memory of the node.
+         */
+        public static final class Lease {
+
+            /**
+             * Represents the leasing to be enabled or not.
+             */
+            private boolean enabled;
+
+            /**
+             * Determines the ratio of the policy count to lease at once.
+             */
+            @DecimalMin(value = "0", inclusive = false, message = "Rate limit redis lease ratio should be positive")
+            @DecimalMax(value = "1", message = "Rate limit redis lease ratio max value is {value}")
+            private double ratio = 0.05;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getRatio() {
+                return ratio;
+            }
+
+            public void setRatio(double ratio) {
+                this.ratio = ratio;
+            }
+        }
+
+        /**
+         * Encapsulates the options to keep the exceeded rates in the memory of the node until their expiration,
+         * so the exceeded requesters do not cost a redis call.
+         */
+        public static final class ExceededCache {
+
+            /**
+             * Represents the cache to be enabled or not.
+             */
+            private boolean enabled;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+        }
+
+        /**
+         * Encapsulates the options to migrate the rate hashes of the redis repository to the counters of the redis
+         * counter repository, by the first consumption of each rate.
+         */
+        public static final class Migration {
+
+            /**
+             * Represents the migration to be enabled or not.
+             */
+            private boolean enabled;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+        }
+
+        /**
+         * Encapsulates the options to wrap the policy key of the redis keys in a hash tag, e.g. {@code rate-limit:{key}},
+         * so a redis cluster hashes only the policy key.
+         */
+        public static final class HashTag {
+
+            /**
+             * Represents the hash tags to be enabled or not.
+             */
+            private boolean enabled;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+        }
+
+        /**
+         * Encapsulates the options to decide the rates by a fallback, if redis does not answer within a latency budget
+         * or it fails, and to stop calling it for a while if it keeps failing.
+         */
+        public static final class Fallback {
+
+            /**
+             * Represents the fallback to be enabled or not.
+             */
+            private boolean enabled;
+
+            /**
+             * Determines how the rates are decided when redis is not available.
+             */
+            @NotNull(message = "Rate limit redis fallback mode is null")
+            private FallbackRateLimiter.Mode mode = FallbackRateLimiter.Mode.LOCAL;
+
+            /**
+             * Determines the latency budget of a redis call.
+             */
+            @NotNull(message = "Rate limit redis fallback timeout is null")
+            private Duration timeout = FallbackRateLimiter.DEFAULT_TIMEOUT;
+
+            /**
+             * Determines the ratio of the policy counts that the local fallback enforces, e.g. one over the number of the nodes.
+             */
+            @DecimalMin(value = "0", inclusive = false, message = "Rate limit redis fallback local ratio should be positive")
+            @DecimalMax(value = "1", message = "Rate limit redis fallback local ratio max value is {value}")
+            private double localRatio = 1;
+
+            /**
+             * Determines the ratio of the failed redis calls that opens the circuit breaker.
+             */
+            @DecimalMin(value = "0", inclusive = false, message = "Rate limit redis fallback failure rate threshold should be positive")
+            @DecimalMax(value = "1", message = "Rate limit redis fallback failure rate threshold max value is {value}")
+            private double failureRateThreshold = FallbackRateLimiter.DEFAULT_FAILURE_RATE_THRESHOLD;
+
+            /**
+             * Determines the min number of the redis calls to compute their failure rate.
+             */
+            @Min(value = 1, message = "Rate limit redis fallback minimum calls min value is {value}")
+            private int minimumCalls = FallbackRateLimiter.DEFAULT_MINIMUM_CALLS;
+
+            /**
+             * Determines the duration that redis is not called after the circuit breaker is opened.
+             */
+            @NotNull(message = "Rate limit redis fallback open duration is null")
+            private Duration openDuration = FallbackRateLimiter.DEFAULT_OPEN_DURATION;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public FallbackRateLimiter.Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(FallbackRateLimiter.Mode mode) {
+                this.mode = mode;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            public double getLocalRatio() {
+                return localRatio;
+            }
+
+            public void setLocalRatio(double localRatio) {
+                this.localRatio = localRatio;
+            }
+
+            public double getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(double failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+        }
+    }
+
+    /**
+     * Encapsulates the in memory, the bounded in memory, the off heap and the replicated in memory repository options.
+     */
+    public static final class InMemory {
+
+        /**
+         * Determines the max number of the cached keys of the bounded in memory and the off heap repositories.
+         */
+        @Min(value = 1, message = "Rate limit in memory maximum size min value is {value}")
+        private long maximumSize = 100_000;
+
+        /**
+         * Represents the replication options of the replicated in memory repository.
+         */
+        @Valid
+        private Replication replication = new Replication();
+
+        /**
+         * Represents the snapshot options of the in memory repository.
+         */
+        @Valid
+        private Snapshot snapshot = new Snapshot();
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Replication getReplication() {
+            return replication;
+        }
+
+        public void setReplication(Replication replication) {
+            this.replication = replication;
+        }
+
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public void setSnapshot(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Encapsulates the options to keep the states of the in memory repository over the restarts, they're
+         * written to a snapshot file on shutdown and read back on startup.
+         */
+        public static final class Snapshot {
+
+            /**
+             * Represents the snapshot to be enabled or not.
+             */
+            private boolean enabled;
+
+            /**
+             * Determines the path of the snapshot file.
+             */
+            @NotBlank(message = "Rate limit snapshot path is blank")
+            private String path = "rate-limit.snapshot";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+        }
+
+        /**
+         * Encapsulates the options to exchange the counters between the nodes of the replicated in memory repository.
+         */
+        public static final class Replication {
+
+            /**
+             * Determines the host that the counters of the peers are received on, it should be set to an address
+             * that the peers could reach, e.g. the address of the private network of the node.
+             */
+            @NotBlank(message = "Rate limit replication host is blank")
+            private String host = "127.0.0.1";
+
+            /**
+             * Determines the UDP port that the counters of the peers are received on.
+             */
+            @Min(value = 0, message = "Rate limit replication port min value is {value}")
+            @Max(value = 65535, message = "Rate limit replication port max value is {value}")
+            private int port = 7600;
+
+            /**
+             * The addresses of the other nodes, e.g. {@code host:7600}.
+             */
+            private List<String> peers = new ArrayList<>();
+
+            /**
+             * Determines the interval of sending the counters to the peers.
+             */
+            @NotNull(message = "Rate limit replication interval is null")
+            private Duration interval = ReplicatedRateCache.DEFAULT_INTERVAL;
+
+            public String getHost() {
+                return host;
+            }
+
+            public void setHost(String host) {
+                this.host = host;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public List<String> getPeers() {
+                return peers;
+            }
+
+            public void setPeers(List<String> peers) {
+                this.peers = peers;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+        }
+    }
+
+    /**
+     * Encapsulates the clock options of the repositories.
+     */
+    public static final class Clock {
+
+        /**
+         * Represents the repositories read the time of a clock that is updated by a background thread,
+         * instead of reading the system clock by each consumption.
+         */
+        private boolean coarse;
+
+        /**
+         * Determines the interval of updating the coarse clock.
+         */
+        private Duration resolution = Duration.ofMillis(1);
+
+        public boolean isCoarse() {
+            return coarse;
+        }
+
+        public void setCoarse(boolean coarse) {
+            this.coarse = coarse;
+        }
+
+        public Duration getResolution() {
+            return resolution;
+        }
+
+        public void setResolution(Duration resolution) {
+            this.resolution = resolution;
+        }
+    }
 }
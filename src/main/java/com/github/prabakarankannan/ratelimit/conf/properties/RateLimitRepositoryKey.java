@@ -12,8 +12,33 @@ public enum RateLimitRepositoryKey {
      */
     IN_MEMORY,
 
+    /**
+     * Uses a bounded memory cache as a data storage, the least frequently used keys are evicted when it's full.
+     */
+    BOUNDED_IN_MEMORY,
+
+    /**
+     * Uses a fixed-size hash table out of the java heap as a data storage, supports only the fixed window algorithm.
+     */
+    OFF_HEAP,
+
+    /**
+     * Uses the memory as a data storage, the counters are replicated between the nodes by UDP, supports only the fixed window algorithm.
+     */
+    REPLICATED_IN_MEMORY,
+
     /**
      * Uses the redis as a data storage.
      */
-    REDIS
+    REDIS,
+
+    /**
+     * Uses the redis as a data storage, the rates are consumed atomically by a server side Lua script.
+     */
+    REDIS_SCRIPT,
+
+    /**
+     * Uses the redis as a data storage, each rate is a plain counter key, supports only the fixed window algorithm.
+     */
+    REDIS_COUNTER
 }
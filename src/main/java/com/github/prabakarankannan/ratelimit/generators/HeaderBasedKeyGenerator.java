@@ -4,8 +4,8 @@ import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
 import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.Set;
-import java.util.StringJoiner;
 
 /**
  * An implementation of {@link RateLimitKeyGenerator} to generate a identity key from the requester
@@ -21,8 +21,30 @@ public class HeaderBasedKeyGenerator implements RateLimitKeyGenerator {
      */
     private final Set<String> params;
 
+    /**
+     * Represents the generated keys should be the 128-bit SHA-256 hashes of their parts, instead of the parts themselves.
+     */
+    private final boolean compact;
+
+    /**
+     * The request attribute that keeps the {@link KeyParts} of the request, so the policies that share this key generator
+     * do not look up the headers again.
+     */
+    private final String keyPartsAttribute;
+
+    private final KeyParts.PolicyParts policyParts = new KeyParts.PolicyParts();
+
     public HeaderBasedKeyGenerator(Set<String> params) {
-        this.params = params;
+        this(params, false);
+    }
+
+    /**
+     * @param compact Whether the generated keys should be the 22 characters base64 of the 128-bit SHA-256 hash of their parts.
+     */
+    public HeaderBasedKeyGenerator(Set<String> params, boolean compact) {
+        this.params = (params != null) ? params : Collections.emptySet();
+        this.compact = compact;
+        this.keyPartsAttribute = HeaderBasedKeyGenerator.class.getName() + ".KEY_PARTS@" + Integer.toHexString(System.identityHashCode(this));
     }
 
     /**
@@ -33,6 +55,9 @@ public class HeaderBasedKeyGenerator implements RateLimitKeyGenerator {
      * <p>
      * Gets Http header parameters by given {@link #params} from the {@code servletRequest}.
      * <p>If any value of {@link #params} does not exists in Http request, throw exception.
+     * <p>
+     * The request parts of the key are kept in a request attribute, and the policy part is computed once per policy,
+     * so the keys of the other policies of the same request are made by a single concatenation or hash.
      *
      * @param servletRequest Encapsulates the http servlet request.
      * @param policy         Encapsulates the rate limit policy properties.
@@ -41,20 +66,26 @@ public class HeaderBasedKeyGenerator implements RateLimitKeyGenerator {
      */
     @Override
     public String generateKey(HttpServletRequest servletRequest, Policy policy) {
-        StringJoiner key = new StringJoiner("_")
-                .add(servletRequest.getRequestURI())
-                .add(servletRequest.getMethod())
-                .add(policy.getDuration().toString())
-                .add(String.valueOf(policy.getCount()));
+        KeyParts keyParts = (KeyParts) servletRequest.getAttribute(keyPartsAttribute);
+        if (keyParts == null) {
+            keyParts = new KeyParts(servletRequest.getRequestURI(), servletRequest.getMethod(), headers(servletRequest), compact);
+            servletRequest.setAttribute(keyPartsAttribute, keyParts);
+        }
+
+        return keyParts.toKey(policyParts.get(policy));
+    }
 
+    private String[] headers(HttpServletRequest servletRequest) {
+        String[] headers = new String[params.size()];
+        int i = 0;
         for (String param : params) {
             String header = servletRequest.getHeader(param);
             if (header == null)
                 throw new HeaderNotPresentedException(param, "The header's param is not presented in the request header's parameters.");
 
-            key.add(header);
+            headers[i++] = header;
         }
 
-        return key.toString();
+        return headers;
     }
 }
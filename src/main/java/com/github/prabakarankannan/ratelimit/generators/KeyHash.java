@@ -0,0 +1,97 @@
+package com.github.prabakarankannan.ratelimit.generators;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * The SHA-256 digest of the key parts, used to make the compact keys of the key generators without concatenating
+ * the parts. The parts come from the requests, e.g. the header values, so the digest is a cryptographic one: a requester
+ * could not choose the parts of a key that shares the counter of another requester.
+ * <p>
+ * Each part is written with its length, so the parts that contain the separators of the plain keys do not collide.
+ *
+ * @author Prabakaran Kannan
+ */
+final class KeyHash {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * The digest of no parts, it's never updated and only cloned, so the provider is looked up once.
+     */
+    private static final MessageDigest EMPTY = sha256();
+
+    private final MessageDigest digest;
+
+    private KeyHash(MessageDigest digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * Returns a new hash of no parts.
+     */
+    static KeyHash empty() {
+        return new KeyHash(copy(EMPTY));
+    }
+
+    /**
+     * Returns the given part in the form that it's digested by {@link #add(String)}, so a constant part is encoded
+     * once and digested by {@link #toCompactString(byte[])}.
+     */
+    static byte[] encode(String part) {
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[bytes.length + 4];
+        encoded[0] = (byte) (bytes.length >>> 24);
+        encoded[1] = (byte) (bytes.length >>> 16);
+        encoded[2] = (byte) (bytes.length >>> 8);
+        encoded[3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, encoded, 4, bytes.length);
+        return encoded;
+    }
+
+    /**
+     * Digests the given part after the parts of this hash.
+     *
+     * @return This hash.
+     */
+    KeyHash add(String part) {
+        digest.update(encode(part));
+        return this;
+    }
+
+    /**
+     * Returns the 22 characters URL safe base64 of the first 128 bits of the digest of the parts of this hash followed
+     * by the given encoded part. This hash is not changed, so it's shared by the keys of the policies of a request.
+     *
+     * @param encodedPart A part encoded by {@link #encode(String)}.
+     */
+    String toCompactString(byte[] encodedPart) {
+        MessageDigest keyDigest = copy(digest);
+        keyDigest.update(encodedPart);
+
+        byte[] bytes = new byte[16];
+        System.arraycopy(keyDigest.digest(), 0, bytes, 0, bytes.length);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The SHA-256 digest is not supported by the platform.", e);
+        }
+    }
+
+    /**
+     * Copies the state of the given digest, the SHA-256 digests of the JDK providers are cloneable.
+     */
+    private static MessageDigest copy(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("The SHA-256 digest of the platform could not be copied.", e);
+        }
+    }
+}
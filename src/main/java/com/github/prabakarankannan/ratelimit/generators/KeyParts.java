@@ -0,0 +1,111 @@
+package com.github.prabakarankannan.ratelimit.generators;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The parts of the keys that a header based key generator makes for a request, that are the same for all of the policies:
+ * the request URI and method as the prefix, and the header values as the suffix. The key of each policy puts the policy
+ * part, its duration and count, in between them, or combines their hashes if the keys are compact.
+ *
+ * @author Prabakaran Kannan
+ */
+final class KeyParts {
+
+    private final String prefix;
+
+    private final String suffix;
+
+    /**
+     * The hash of the request parts, only if the keys should be compact.
+     */
+    private final KeyHash hash;
+
+    /**
+     * @param uri     The request URI.
+     * @param method  The request Http method.
+     * @param headers The values of the request headers by the key generator params order.
+     * @param compact Whether the keys should be the hashes of their parts.
+     */
+    KeyParts(String uri, String method, String[] headers, boolean compact) {
+        if (compact) {
+            KeyHash keyHash = KeyHash.empty().add(uri).add(method);
+            for (String header : headers) {
+                keyHash = keyHash.add(header);
+            }
+
+            this.prefix = null;
+            this.suffix = null;
+            this.hash = keyHash;
+        } else {
+            StringBuilder suffixBuilder = new StringBuilder();
+            for (String header : headers) {
+                suffixBuilder.append('_').append(header);
+            }
+
+            this.prefix = uri + '_' + method;
+            this.suffix = suffixBuilder.toString();
+            this.hash = null;
+        }
+    }
+
+    /**
+     * Returns the key of the given policy part, in the {@code <uri>_<method>_<duration>_<count>_<headers>} format,
+     * or the base64 of its 128-bit SHA-256 hash if the keys are compact.
+     */
+    String toKey(PolicyPart policyPart) {
+        if (hash != null)
+            return hash.toCompactString(policyPart.encoded);
+
+        return new StringBuilder(prefix.length() + policyPart.value.length() + suffix.length() + 1)
+                .append(prefix)
+                .append('_')
+                .append(policyPart.value)
+                .append(suffix)
+                .toString();
+    }
+
+    /**
+     * The constant part of the keys of a policy, the {@code <duration>_<count>} and its encoded form for the hashes.
+     */
+    static final class PolicyPart {
+
+        private final String value;
+
+        private final byte[] encoded;
+
+        private PolicyPart(Policy policy) {
+            this.value = policy.getDuration().toString() + '_' + policy.getCount();
+            this.encoded = KeyHash.encode(value);
+        }
+    }
+
+    /**
+     * Computes the part of each policy once. The policies are a few and never change, so the parts are kept
+     * by the policy identity in a map that is copied on each new policy, and the lookups need no lock.
+     */
+    static final class PolicyParts {
+
+        private volatile Map<Policy, PolicyPart> parts = new IdentityHashMap<>();
+
+        PolicyPart get(Policy policy) {
+            PolicyPart part = parts.get(policy);
+            if (part != null)
+                return part;
+
+            synchronized (this) {
+                part = parts.get(policy);
+                if (part == null) {
+                    Map<Policy, PolicyPart> copy = new IdentityHashMap<>(parts);
+                    part = new PolicyPart(policy);
+                    copy.put(policy, part);
+                    parts = copy;
+                }
+            }
+
+            return part;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.prabakarankannan.ratelimit.generators;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * An implementation of {@link ReactiveRateLimitKeyGenerator} to generate a identity key from the requester
+ * based on HTTP Request Header parameters, the same key as the {@link HeaderBasedKeyGenerator} generates
+ * for a servlet request.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ReactiveHeaderBasedKeyGenerator implements ReactiveRateLimitKeyGenerator {
+
+    /**
+     * Represents the defined params in the property file,
+     * that used as HTTP headers keys in {@link #generateKey(ServerHttpRequest, Policy)}.
+     */
+    private final Set<String> params;
+
+    /**
+     * Represents the generated keys should be the 128-bit SHA-256 hashes of their parts, instead of the parts themselves.
+     */
+    private final boolean compact;
+
+    private final KeyParts.PolicyParts policyParts = new KeyParts.PolicyParts();
+
+    public ReactiveHeaderBasedKeyGenerator(Set<String> params) {
+        this(params, false);
+    }
+
+    /**
+     * @param compact Whether the generated keys should be the 22 characters base64 of the 128-bit SHA-256 hash of their parts.
+     */
+    public ReactiveHeaderBasedKeyGenerator(Set<String> params, boolean compact) {
+        this.params = (params != null) ? params : Collections.emptySet();
+        this.compact = compact;
+    }
+
+    /**
+     * Makes a key by the request URI, the Http method, the policy duration and count,
+     * and the request headers of the given {@link #params}. The policy part of the key is computed once per policy.
+     *
+     * @param serverRequest Encapsulates the reactive http server request.
+     * @param policy        Encapsulates the rate limit policy properties.
+     * @return Generated code.
+     * @throws HeaderNotPresentedException If not present any item of the given {@link #params} from the Http request header.
+     */
+    @Override
+    public String generateKey(ServerHttpRequest serverRequest, Policy policy) {
+        String[] headers = new String[params.size()];
+        int i = 0;
+        for (String param : params) {
+            String header = serverRequest.getHeaders().getFirst(param);
+            if (header == null)
+                throw new HeaderNotPresentedException("The header's param is not presented in the request header's parameters.", param);
+
+            headers[i++] = header;
+        }
+
+        return new KeyParts(serverRequest.getPath().value(), serverRequest.getMethodValue(), headers, compact)
+                .toKey(policyParts.get(policy));
+    }
+}
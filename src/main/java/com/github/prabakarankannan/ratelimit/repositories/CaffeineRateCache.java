@@ -0,0 +1,239 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An implementation of {@link RateLimiter} to cache the rate limit data in a bounded memory cache of
+ * <a href="https://github.com/ben-manes/caffeine">Caffeine</a>.
+ * <p>
+ * Unlike the {@link InMemoryRateCache}, the number of the cached keys never exceeds the {@link #maximumSize}, so
+ * a requester that sprays random keys could not exhaust the memory. When the cache is full, the W-TinyLFU policy
+ * of Caffeine admits a new key only if it's used more frequently than the key it would evict, so the one-hit keys
+ * are evicted first and the heavy hitters, which are the ones being limited, stay cached.
+ * <p>
+ * Each key expires by the expiration of its own state, the same as the {@link InMemoryRateCache} reclaims them,
+ * and the states of all of the algorithms are consumed by an atomic per-key compute call. The states and the cache
+ * entries are expired by the same {@link RateLimitClock}.
+ *
+ * @author Prabakaran Kannan
+ */
+public class CaffeineRateCache implements RateLimiter {
+
+    /**
+     * The default max number of the cached keys.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final long maximumSize;
+
+    private final Cache<CacheKey, Object> cache;
+
+    /**
+     * The time source of the windows and the expirations.
+     */
+    private final RateLimitClock clock;
+
+    public CaffeineRateCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize The max number of the cached keys.
+     */
+    public CaffeineRateCache(long maximumSize) {
+        this(maximumSize, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param maximumSize The max number of the cached keys.
+     * @param clock       The time source of the windows and the expirations.
+     */
+    public CaffeineRateCache(long maximumSize, @Nonnull RateLimitClock clock) {
+        this(maximumSize, clock, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maximumSize The max number of the cached keys.
+     * @param clock       The time source of the windows and the expirations.
+     * @param executor    Runs the maintenance of the cache, e.g. the evictions.
+     */
+    CaffeineRateCache(long maximumSize, @Nonnull RateLimitClock clock, @Nonnull Executor executor) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("The maximum size should be positive.");
+
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new StateExpiry())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .scheduler(Scheduler.systemScheduler())
+                .executor(executor)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Atomically computes the next state of the given policy key by its algorithm. The fixed window rates
+     * are replaced by a new one, the same as the {@link InMemoryRateCache}.
+     *
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        long nowMillis = clock.millis();
+        ConcurrentMap<CacheKey, Object> states = cache.asMap();
+        CacheKey key = new CacheKey(ratePolicy.getAlgorithm(), ratePolicy.getKey());
+
+        switch (ratePolicy.getAlgorithm()) {
+            case TOKEN_BUCKET:
+                return ((TokenBucket) states.compute(key, (k, current) ->
+                        TokenBucket.consume((TokenBucket) current, ratePolicy, nowMillis))).toRate(ratePolicy);
+            case SLIDING_WINDOW:
+                return ((SlidingWindow) states.compute(key, (k, current) ->
+                        SlidingWindow.consume((SlidingWindow) current, ratePolicy, nowMillis))).toRate(ratePolicy);
+            case GCRA:
+                Rate[] rate = new Rate[1];
+                states.compute(key, (k, current) -> {
+                    GcraState state = (current != null) ? (GcraState) current : new GcraState(ratePolicy.getKey());
+                    rate[0] = state.consume(ratePolicy, nowMillis);
+                    return state;
+                });
+                return rate[0];
+            default:
+                return (Rate) states.compute(key, (k, current) -> next((Rate) current, ratePolicy, nowMillis));
+        }
+    }
+
+    /**
+     * Returns the approximate number of the cached keys.
+     *
+     * @return The estimated size of the cache.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the total number of the keys that are evicted, because they are expired or the cache is full.
+     *
+     * @return The number of evicted keys.
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Performs the pending maintenance of the cache, e.g. the evictions, which is done asynchronously otherwise.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private static Rate next(Rate rate, RatePolicy ratePolicy, long nowMillis) {
+        if (rate == null || rate.getExpiration().toEpochMilli() < nowMillis) {
+            Instant expiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getDuration().toMillis());
+            return new Rate(ratePolicy.getKey(), expiration, ratePolicy.getCount() - 1);
+        }
+
+        if (rate.isExceed()) {
+            return rate;
+        }
+
+        int remaining = rate.getRemaining() - 1;
+        if (remaining < 0 && ratePolicy.getBlockDuration() != null) {
+            Instant blockedExpiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getBlockDuration().toMillis());
+            return new Rate(rate.getKey(), blockedExpiration, remaining);
+        }
+
+        return new Rate(rate.getKey(), rate.getExpiration(), remaining);
+    }
+
+    /**
+     * Expires each key by the expiration of its state, which is the time that it would be the same as no state.
+     */
+    private static final class StateExpiry implements Expiry<CacheKey, Object> {
+
+        @Override
+        public long expireAfterCreate(@Nonnull CacheKey key, @Nonnull Object state, long currentTime) {
+            return nanosUntilExpiration(state, currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull CacheKey key, @Nonnull Object state, long currentTime, long currentDuration) {
+            return nanosUntilExpiration(state, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull CacheKey key, @Nonnull Object state, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        /**
+         * @param currentTime The time of the cache ticker, that is the clock time in nanoseconds.
+         */
+        private static long nanosUntilExpiration(Object state, long currentTime) {
+            long expirationMillis;
+            if (state instanceof Rate) {
+                expirationMillis = ((Rate) state).getExpiration().toEpochMilli();
+            } else if (state instanceof GcraState) {
+                expirationMillis = ((GcraState) state).getExpirationMillis();
+            } else {
+                expirationMillis = ((RateState) state).getExpirationMillis();
+            }
+
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expirationMillis + 1) - currentTime);
+        }
+    }
+
+    /**
+     * The key of a cached state, the policies of different algorithms never share a state.
+     */
+    private static final class CacheKey {
+
+        private final RateLimitAlgorithm algorithm;
+
+        private final String key;
+
+        private CacheKey(RateLimitAlgorithm algorithm, String key) {
+            this.algorithm = algorithm;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CacheKey))
+                return false;
+
+            CacheKey other = (CacheKey) o;
+            return algorithm == other.algorithm && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(algorithm, key);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RateLimiter} decorator that keeps the exceeded rates of another {@link RateLimiter} in the memory of the node
+ * until their expiration, so the requesters which are over their limit or blocked do not cost a call to the delegate,
+ * e.g. a redis round trip, until their rates expire.
+ * <p>
+ * An exceeded rate of the delegate stays exceeded until its expiration, since the other nodes could only consume more,
+ * so the cached rates are the same answers that the delegate would give. The cached rates are reclaimed in the background
+ * by a {@link TimingWheel}, the same as the {@link InMemoryRateCache} expired rates.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ExceededRateCache implements RateLimiter, AutoCloseable {
+
+    private static final int WHEEL_SIZE = 64;
+
+    /**
+     * Used to consume the rates which are not exceeded.
+     */
+    private final RateLimiter delegate;
+
+    /**
+     * The exceeded rates by their keys, per algorithm, since the policies of different algorithms never share a rate.
+     */
+    private final Map<RateLimitAlgorithm, ConcurrentHashMap<String, Rate>> exceeded = new EnumMap<>(RateLimitAlgorithm.class);
+
+    /**
+     * Keeps every cached rate by its expiration.
+     */
+    private final TimingWheel<ExceededRate> expirationWheel;
+
+    /**
+     * Periodically advances the {@link #expirationWheel}.
+     */
+    private final ScheduledExecutorService expirationExecutor;
+
+    /**
+     * The number of the consumptions that are answered by the cached rates.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The time source of the expirations, it should be the same as the clock of the delegate.
+     */
+    private final RateLimitClock clock;
+
+    public ExceededRateCache(@Nonnull RateLimiter delegate) {
+        this(delegate, InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL);
+    }
+
+    /**
+     * @param expirationInterval The interval of reclaiming the expired rates.
+     */
+    public ExceededRateCache(@Nonnull RateLimiter delegate, @Nonnull Duration expirationInterval) {
+        this(delegate, expirationInterval, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param expirationInterval The interval of reclaiming the expired rates.
+     * @param clock              The time source of the expirations.
+     */
+    public ExceededRateCache(@Nonnull RateLimiter delegate, @Nonnull Duration expirationInterval, @Nonnull RateLimitClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            exceeded.put(algorithm, new ConcurrentHashMap<>());
+        }
+
+        long intervalMillis = Math.max(1, expirationInterval.toMillis());
+        this.expirationWheel = new TimingWheel<>(intervalMillis, WHEEL_SIZE, clock.millis());
+        this.expirationExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-exceeded-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expirationExecutor.scheduleWithFixedDelay(this::evictExpired, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the cached rate of the given policy key if it's not expired yet, else consumes it by the delegate
+     * and caches the rate if it's exceeded.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        Rate cached = getExceeded(ratePolicy);
+        if (cached != null)
+            return cached;
+
+        return cache(ratePolicy, delegate.consume(ratePolicy));
+    }
+
+    /**
+     * Returns the cached rate of the given policy key if it's not expired yet, else consumes it by the delegate
+     * asynchronously and caches the rate if it's exceeded.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when it's consumed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        Rate cached = getExceeded(ratePolicy);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        return delegate.consumeAsync(ratePolicy).thenApply(rate -> cache(ratePolicy, rate));
+    }
+
+    /**
+     * Reclaims the cached rates which expired since the last call.
+     *
+     * @return The number of reclaimed rates.
+     */
+    public synchronized int evictExpired() {
+        return expirationWheel.advance(clock.millis(), this::evict);
+    }
+
+    /**
+     * Returns the number of the consumptions that are answered by the cached rates, without calling the delegate.
+     *
+     * @return The cache hit count.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of the cached exceeded rates.
+     *
+     * @return The number of the cached rates.
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Rate> rates : exceeded.values()) {
+            size += rates.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the decorated {@link RateLimiter}.
+     *
+     * @return The delegate.
+     */
+    public RateLimiter getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Stops the background expiration, and closes the delegate if it's closeable.
+     */
+    @Override
+    public void close() {
+        expirationExecutor.shutdownNow();
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not close the rate limiter.", e);
+            }
+        }
+    }
+
+    private Rate getExceeded(RatePolicy ratePolicy) {
+        ConcurrentHashMap<String, Rate> rates = exceeded.get(ratePolicy.getAlgorithm());
+        Rate cached = rates.get(ratePolicy.getKey());
+        if (cached == null)
+            return null;
+
+        if (cached.isExpired(clock.millis())) {
+            rates.remove(ratePolicy.getKey(), cached);
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return cached;
+    }
+
+    private Rate cache(RatePolicy ratePolicy, Rate rate) {
+        if (rate.isExceed() && rate.getExpiration() != null && !rate.isExpired(clock.millis())) {
+            exceeded.get(ratePolicy.getAlgorithm()).put(ratePolicy.getKey(), rate);
+            expirationWheel.schedule(new ExceededRate(ratePolicy.getAlgorithm(), ratePolicy.getKey(), rate),
+                    rate.getExpiration().toEpochMilli());
+        }
+
+        return rate;
+    }
+
+    /**
+     * Removes the scheduled rate if it's still the cached one, a newer rate of the same key is scheduled by itself.
+     */
+    private boolean evict(ExceededRate scheduled) {
+        return exceeded.get(scheduled.algorithm).remove(scheduled.key, scheduled.rate);
+    }
+
+    /**
+     * A cached rate with the algorithm and the key of its policy, scheduled to be reclaimed on its expiration.
+     */
+    private static final class ExceededRate {
+
+        private final RateLimitAlgorithm algorithm;
+
+        private final String key;
+
+        private final Rate rate;
+
+        private ExceededRate(RateLimitAlgorithm algorithm, String key, Rate rate) {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.rate = rate;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An implementation of {@link RateLimiter} that consumes the rates of a blocking {@link RateLimiter}, e.g. the
+ * {@link com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache}, asynchronously on a bounded pool
+ * of threads, so the {@link #consumeAsync(RatePolicy)} releases the calling thread while the delegate waits for I/O.
+ * <p>
+ * The pool has a fixed number of threads and a bounded queue. When both are full, a consumption runs on the calling
+ * thread, so a slow delegate pushes back on the callers instead of queueing without bound.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ExecutorRateLimiter implements RateLimiter, AutoCloseable {
+
+    /**
+     * The default number of the threads that consume the rates.
+     */
+    public static final int DEFAULT_THREADS = 64;
+
+    /**
+     * The default max number of the consumptions that wait for a thread.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final RateLimiter delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    public ExecutorRateLimiter(@Nonnull RateLimiter delegate) {
+        this(delegate, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads       The number of the threads that consume the rates.
+     * @param queueCapacity The max number of the consumptions that wait for a thread.
+     */
+    public ExecutorRateLimiter(@Nonnull RateLimiter delegate, int threads, int queueCapacity) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of the threads should be positive.");
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("The queue capacity should be positive.");
+
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rate-limit-async");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Consumes the rate by the delegate on the calling thread.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        return delegate.consume(ratePolicy);
+    }
+
+    /**
+     * Consumes the rate by the delegate on a thread of the pool, or on the calling thread if the pool is saturated.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when it's consumed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        return CompletableFuture.supplyAsync(() -> delegate.consume(ratePolicy), executor);
+    }
+
+    /**
+     * Returns the decorated {@link RateLimiter}.
+     *
+     * @return The delegate.
+     */
+    public RateLimiter getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Stops the threads of the pool, and closes the delegate if it's closeable.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not close the rate limiter.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RateLimiter} decorator that bounds the latency of another {@link RateLimiter}, e.g. a redis based one,
+ * and decides by a fallback when it's too slow or failing, so an outage of the rate limiter does not fail the requests.
+ * <p>
+ * Each consumption of the delegate is given a latency budget. If the delegate does not answer in time, or it fails,
+ * the rate is decided by the {@link Mode}: a local {@link InMemoryRateCache} that enforces the policies scaled down by
+ * the {@link #localRatio}, or allowing the request. The delegate is called on a bounded pool of threads, so the blocking
+ * ones, e.g. the {@link com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache}, are bounded too.
+ * <p>
+ * A circuit breaker stops calling the delegate if at least half, by default, of the calls of a window failed or timed
+ * out. While it's open, all of the rates are decided by the fallback without waiting. When the open duration is over,
+ * a single probe call is let through to the delegate, and the breaker is closed if the probe succeeds, else it's opened again.
+ *
+ * @author Prabakaran Kannan
+ */
+public class FallbackRateLimiter implements RateLimiter, AutoCloseable {
+
+    /**
+     * The default latency budget of a consumption of the delegate.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(50);
+
+    /**
+     * The default ratio of the failed calls that opens the circuit breaker.
+     */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /**
+     * The default min number of the calls of a window to compute their failure rate.
+     */
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+    /**
+     * The default duration that the circuit breaker stays open.
+     */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(10);
+
+    /**
+     * The max number of the concurrent calls of the delegate, the calls over it are decided by the fallback.
+     */
+    static final int MAX_CONCURRENT_CALLS = 256;
+
+    private static final Log log = LogFactory.getLog(FallbackRateLimiter.class);
+
+    /**
+     * Determines how the rates are decided when the delegate is not available.
+     */
+    public enum Mode {
+
+        /**
+         * The rates are consumed by a local in memory rate limiter, by the scaled down policies.
+         */
+        LOCAL,
+
+        /**
+         * The requests are allowed.
+         */
+        FAIL_OPEN
+    }
+
+    /**
+     * The states of the circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * The delegate is called.
+         */
+        CLOSED,
+
+        /**
+         * The delegate is not called, the rates are decided by the fallback.
+         */
+        OPEN,
+
+        /**
+         * A single probe call of the delegate is in flight, the others are decided by the fallback.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Used to consume the rates while it's available.
+     */
+    private final RateLimiter delegate;
+
+    private final long timeoutNanos;
+
+    private final Mode mode;
+
+    /**
+     * The ratio of the policy counts that the local rate limiter enforces, e.g. one over the number of the nodes.
+     */
+    private final double localRatio;
+
+    /**
+     * Used to consume the rates when the mode is {@link Mode#LOCAL}, it's {@code null} otherwise.
+     */
+    private final InMemoryRateCache localRateLimiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * The time source of the circuit breaker and the fail open rates.
+     */
+    private final RateLimitClock clock;
+
+    /**
+     * Calls the delegate, so a blocking delegate does not block the calling thread over the budget.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Decides the consumptions that are not answered by the delegate in time.
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * The number of the consumptions that are decided by the fallback.
+     */
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    /**
+     * @param timeout    The latency budget of a consumption of the delegate.
+     * @param mode       How the rates are decided when the delegate is not available.
+     * @param localRatio The ratio of the policy counts that the local rate limiter enforces.
+     */
+    public FallbackRateLimiter(@Nonnull RateLimiter delegate, @Nonnull Duration timeout, @Nonnull Mode mode, double localRatio) {
+        this(delegate, timeout, mode, localRatio, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_MINIMUM_CALLS, DEFAULT_OPEN_DURATION,
+                RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param timeout              The latency budget of a consumption of the delegate.
+     * @param mode                 How the rates are decided when the delegate is not available.
+     * @param localRatio           The ratio of the policy counts that the local rate limiter enforces.
+     * @param failureRateThreshold The ratio of the failed calls of a window that opens the circuit breaker.
+     * @param minimumCalls         The min number of the calls of a window to compute their failure rate.
+     * @param openDuration         The duration that the circuit breaker stays open, that is the length of the windows too.
+     * @param clock                The time source of the circuit breaker and the local rate limiter.
+     */
+    public FallbackRateLimiter(@Nonnull RateLimiter delegate,
+                               @Nonnull Duration timeout,
+                               @Nonnull Mode mode,
+                               double localRatio,
+                               double failureRateThreshold,
+                               int minimumCalls,
+                               @Nonnull Duration openDuration,
+                               @Nonnull RateLimitClock clock) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("The timeout should be positive.");
+        if (!(localRatio > 0 && localRatio <= 1))
+            throw new IllegalArgumentException("The local ratio should be in (0, 1].");
+        if (!(failureRateThreshold > 0 && failureRateThreshold <= 1))
+            throw new IllegalArgumentException("The failure rate threshold should be in (0, 1].");
+
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        this.mode = mode;
+        this.localRatio = localRatio;
+        this.clock = clock;
+        this.localRateLimiter = (mode == Mode.LOCAL)
+                ? new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, true, clock)
+                : null;
+        this.circuitBreaker = new CircuitBreaker(failureRateThreshold, Math.max(1, minimumCalls), Math.max(1, openDuration.toMillis()));
+
+        this.executor = new ThreadPoolExecutor(0, MAX_CONCURRENT_CALLS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-fallback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-fallback-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Consumes the rate by the delegate within the budget, else by the fallback.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        return consumeAsync(ratePolicy).toCompletableFuture().join();
+    }
+
+    /**
+     * Consumes the rate by the delegate asynchronously, the returned stage is completed by the fallback rate if the
+     * delegate does not answer within the budget, or it fails, or the circuit breaker is open. It never completes
+     * exceptionally by a failure of the delegate.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when it's consumed or the budget is over.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        if (!circuitBreaker.tryAcquire(clock.millis()))
+            return CompletableFuture.completedFuture(fallback(ratePolicy));
+
+        CompletableFuture<Rate> result = new CompletableFuture<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        try {
+            executor.execute(() -> {
+                try {
+                    delegate.consumeAsync(ratePolicy).whenComplete((rate, e) -> decide(result, decided, ratePolicy, rate, e));
+                } catch (RuntimeException e) {
+                    decide(result, decided, ratePolicy, null, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            decide(result, decided, ratePolicy, null, e);
+            return result;
+        }
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> decide(result, decided, ratePolicy, null, null), timeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((rate, e) -> timeout.cancel(false));
+        return result;
+    }
+
+    /**
+     * Returns the number of the consumptions that are decided by the fallback.
+     *
+     * @return The fallback count.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /**
+     * Returns the current state of the circuit breaker.
+     *
+     * @return The circuit breaker state.
+     */
+    public State getState() {
+        return circuitBreaker.state;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the decorated {@link RateLimiter}.
+     *
+     * @return The delegate.
+     */
+    public RateLimiter getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Stops the threads of the delegate calls, and closes the local rate limiter and the delegate if it's closeable.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+        if (localRateLimiter != null)
+            localRateLimiter.close();
+
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not close the rate limiter.", e);
+            }
+        }
+    }
+
+    /**
+     * Completes the given {@code result} by the rate of the delegate, or by the fallback if the delegate failed
+     * or the budget is over, that is the {@code rate} and the {@code error} are both {@code null}. Only the first
+     * outcome of a consumption is recorded by the circuit breaker.
+     */
+    private void decide(CompletableFuture<Rate> result, AtomicBoolean decided, RatePolicy ratePolicy, Rate rate, Throwable error) {
+        if (!decided.compareAndSet(false, true))
+            return;
+
+        if (rate != null && error == null) {
+            circuitBreaker.onSuccess(clock.millis());
+            result.complete(rate);
+            return;
+        }
+
+        if (error != null) {
+            log.debug("Could not consume the rate of " + ratePolicy.getKey() + ", it's decided by the fallback.", error);
+        }
+
+        if (circuitBreaker.onFailure(clock.millis())) {
+            log.warn("The rate limiter is not available, the rates are decided by the " + mode + " fallback for "
+                    + circuitBreaker.openMillis + "ms.");
+        }
+
+        try {
+            result.complete(fallback(ratePolicy));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private Rate fallback(RatePolicy ratePolicy) {
+        fallbackCount.incrementAndGet();
+        if (mode == Mode.FAIL_OPEN) {
+            Instant expiration = Instant.ofEpochMilli(clock.millis() + ratePolicy.getDuration().toMillis());
+            return new Rate(ratePolicy.getKey(), expiration, ratePolicy.getCount());
+        }
+
+        return localRateLimiter.consume(new RatePolicy(
+                ratePolicy.getKey(),
+                ratePolicy.getDuration(),
+                scale(ratePolicy.getCount()),
+                ratePolicy.getBlockDuration(),
+                ratePolicy.getAlgorithm(),
+                scale(ratePolicy.getCapacity())));
+    }
+
+    /**
+     * Scales the given count down by the {@link #localRatio}, at least one call is allowed.
+     */
+    private int scale(int count) {
+        return (int) Math.max(1, Math.ceil(count * localRatio));
+    }
+
+    /**
+     * Counts the failures of the calls in fixed windows of the open duration, and opens when their rate reaches the threshold.
+     */
+    private static final class CircuitBreaker {
+
+        private final double failureRateThreshold;
+
+        private final int minimumCalls;
+
+        private final long openMillis;
+
+        private volatile State state = State.CLOSED;
+
+        /**
+         * The start of the current window if it's closed, or the time it's opened.
+         */
+        private long sinceMillis;
+
+        private int calls;
+
+        private int failures;
+
+        private CircuitBreaker(double failureRateThreshold, int minimumCalls, long openMillis) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.minimumCalls = minimumCalls;
+            this.openMillis = openMillis;
+        }
+
+        /**
+         * Returns whether the delegate should be called, a call is let through as the probe when the open duration is over.
+         */
+        boolean tryAcquire(long nowMillis) {
+            if (state == State.CLOSED)
+                return true;
+
+            synchronized (this) {
+                if (state == State.CLOSED)
+                    return true;
+
+                if (state == State.OPEN && nowMillis - sinceMillis >= openMillis) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+
+                return false;
+            }
+        }
+
+        synchronized void onSuccess(long nowMillis) {
+            if (state == State.HALF_OPEN) {
+                reset(State.CLOSED, nowMillis);
+            } else if (state == State.CLOSED) {
+                count(nowMillis);
+            }
+        }
+
+        /**
+         * Records a failed call.
+         *
+         * @return Whether the breaker is opened by the failure.
+         */
+        synchronized boolean onFailure(long nowMillis) {
+            if (state == State.HALF_OPEN) {
+                reset(State.OPEN, nowMillis);
+                return false;
+            }
+
+            if (state == State.OPEN)
+                return false;
+
+            count(nowMillis);
+            failures++;
+            if (calls >= minimumCalls && failures >= calls * failureRateThreshold) {
+                reset(State.OPEN, nowMillis);
+                return true;
+            }
+
+            return false;
+        }
+
+        private void count(long nowMillis) {
+            if (nowMillis - sinceMillis >= openMillis) {
+                reset(State.CLOSED, nowMillis);
+            }
+            calls++;
+        }
+
+        private void reset(State state, long nowMillis) {
+            this.state = state;
+            this.sinceMillis = nowMillis;
+            this.calls = 0;
+            this.failures = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+/**
+ * Hashes the rate keys into well distributed 64-bit fingerprints.
+ * <p>
+ * The unkeyed {@link #of(String)} is the same on every node, so it places the keys on the shards. Its collisions could
+ * be found on purpose, so the fingerprints that stand for the keys themselves are computed by the keyed
+ * {@link #of(String, long, long)} with a secret random key instead.
+ *
+ * @author Prabakaran Kannan
+ */
+final class Fingerprints {
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the given key by the FNV-1a hash and the murmur3 finalizer,
+     * it's never zero.
+     */
+    static long of(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return (hash == 0) ? 1 : hash;
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the given key by the SipHash-2-4 of its UTF-16LE chars and the given
+     * 128-bit secret, it's never zero. Without the secret, finding two keys of the same fingerprint is as hard as
+     * guessing it.
+     */
+    static long of(String key, long secret0, long secret1) {
+        long v0 = secret0 ^ 0x736f6d6570736575L;
+        long v1 = secret1 ^ 0x646f72616e646f6dL;
+        long v2 = secret0 ^ 0x6c7967656e657261L;
+        long v3 = secret1 ^ 0x7465646279746573L;
+
+        int length = key.length();
+        int end = length & ~3;
+        long last = (long) (length * 2) << 56;
+        for (int i = end; i < length; i++) {
+            last |= (long) key.charAt(i) << ((i - end) * 16);
+        }
+
+        // Compresses every 4 chars as a word, and the remaining chars with the byte length as the last word.
+        for (int i = 0; i <= end; i += 4) {
+            long word = (i == end) ? last : key.charAt(i) | (long) key.charAt(i + 1) << 16
+                    | (long) key.charAt(i + 2) << 32 | (long) key.charAt(i + 3) << 48;
+            v3 ^= word;
+            for (int round = 0; round < 2; round++) {
+                v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            }
+            v0 ^= word;
+        }
+
+        v2 ^= 0xff;
+        for (int round = 0; round < 4; round++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+
+        long hash = v0 ^ v1 ^ v2 ^ v3;
+        return (hash == 0) ? 1 : hash;
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The mutable state of a {@link RateLimitAlgorithm#GCRA} rate limit, that is only the theoretical arrival time
+ * of the next call in epoch microseconds, updated by a compare-and-set loop.
+ * <p>
+ * Each call moves the theoretical arrival time forward by the emission interval, the duration divided by the count
+ * of the policy. A call is allowed while the theoretical arrival time after it is at most the capacity of the policy
+ * emission intervals ahead of now, so the time that a rejected call would be allowed is known exactly.
+ * <p>
+ * A theoretical arrival time in the past is the same as no state, so the state can be reclaimed by marking it
+ * {@link #EVICTED} first, then the consumers which still hold it take a new state from the map.
+ *
+ * @author Prabakaran Kannan
+ */
+final class GcraState extends AtomicLong {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The theoretical arrival time of a reclaimed state, that should not be consumed anymore.
+     */
+    static final long EVICTED = Long.MIN_VALUE;
+
+    private final String key;
+
+    GcraState(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Consumes a call if it conforms to the policy, else rejects it and blocks the key by the block duration
+     * of the policy, unless it's blocked already.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @param nowMillis  The current epoch millisecond.
+     * @return Encapsulated rate details, or {@code null} if the state is reclaimed.
+     */
+    Rate consume(RatePolicy ratePolicy, long nowMillis) {
+        long now = nowMillis * 1000;
+        long interval = emissionInterval(ratePolicy);
+        long tolerance = interval * ratePolicy.getCapacity();
+
+        while (true) {
+            long tat = get();
+            if (tat == EVICTED)
+                return null;
+
+            if (tat - now > tolerance)
+                return rejected(tat, interval, tolerance);
+
+            long next = Math.max(tat, now) + interval;
+            if (next - now <= tolerance) {
+                if (compareAndSet(tat, next))
+                    return new Rate(key, Instant.ofEpochMilli(toMillis(next)), (int) ((tolerance - next + now) / interval));
+            } else if (ratePolicy.getBlockDuration() == null) {
+                return rejected(tat, interval, tolerance);
+            } else {
+                // The first call after the block conforms, so the block does not outlive the block duration.
+                long blocked = now + ratePolicy.getBlockDuration().toMillis() * 1000 + tolerance - interval;
+                if (compareAndSet(tat, blocked))
+                    return rejected(blocked, interval, tolerance);
+            }
+        }
+    }
+
+    /**
+     * Marks the state as {@link #EVICTED} if its theoretical arrival time is passed.
+     *
+     * @return {@code true} if the state is marked.
+     */
+    boolean evict(long nowMillis) {
+        long tat = get();
+        return tat != EVICTED && tat <= nowMillis * 1000 && compareAndSet(tat, EVICTED);
+    }
+
+    /**
+     * Returns the epoch millisecond that the theoretical arrival time would be passed.
+     */
+    long getExpirationMillis() {
+        return toMillis(get());
+    }
+
+    /**
+     * Returns the emission interval of the policy in microseconds, that is the duration divided by the count.
+     */
+    static long emissionInterval(RatePolicy ratePolicy) {
+        return Math.max(1, ratePolicy.getDuration().toMillis() * 1000 / ratePolicy.getCount());
+    }
+
+    private Rate rejected(long tat, long interval, long tolerance) {
+        return new Rate(key, Instant.ofEpochMilli(toMillis(tat + interval - tolerance)), -1);
+    }
+
+    private static long toMillis(long micros) {
+        return Math.floorDiv(micros + 999, 1000);
+    }
+}
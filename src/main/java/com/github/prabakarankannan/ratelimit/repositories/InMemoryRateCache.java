@@ -2,65 +2,431 @@ package com.github.prabakarankannan.ratelimit.repositories;
 
 import javax.annotation.Nonnull;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
 import com.github.prabakarankannan.ratelimit.RateLimiter;
 import com.github.prabakarankannan.ratelimit.RatePolicy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An implementation of {@link RateLimiter} to cache the rate limit data in memory.
+ * <p>
+ * The cached {@link Rate}s are never mutated, every consumption replaces the cached item with a new one
+ * by an atomic per-key {@link ConcurrentHashMap#compute} call, so the requests for different keys
+ * do not contend with each other.
+ * <p>
+ * The {@link RateLimitAlgorithm#TOKEN_BUCKET} and the {@link RateLimitAlgorithm#SLIDING_WINDOW} policies are kept
+ * as {@link TokenBucket}s and {@link SlidingWindow}s in separate maps, which are updated lazily on consuming.
+ * The {@link RateLimitAlgorithm#GCRA} policies are kept as a single {@link GcraState} long per key, which is updated
+ * in place by a compare-and-set, so consuming them does not allocate a new state.
+ * <p>
+ * The expired rates, the full buckets and the empty windows are reclaimed in the background by a {@link TimingWheel}, so the keys
+ * that never come back do not stay in the memory.
+ * <p>
+ * The windows and the block durations are computed in milliseconds by a {@link RateLimitClock}, so the policies of
+ * sub-second durations, e.g. 50 calls per 100 milliseconds, are supported.
+ * <p>
+ * The live states could be written to a {@link RateSnapshot} and read back by another instance, e.g. on a graceful
+ * shutdown and the startup of a new version, so the requesters do not get a fresh quota by every restart.
  *
  * @author Prabakaran Kannan
  */
-public class InMemoryRateCache implements RateLimiter {
+public class InMemoryRateCache implements RateLimiter, AutoCloseable {
+
+    /**
+     * The default interval of reclaiming the expired rates.
+     */
+    public static final Duration DEFAULT_EXPIRATION_INTERVAL = Duration.ofMillis(100);
+
+    private static final int WHEEL_SIZE = 64;
+
+    private static final Log log = LogFactory.getLog(InMemoryRateCache.class);
 
     private final ConcurrentHashMap<String, Rate> cache = new ConcurrentHashMap<>();
 
     /**
-     * Gets the rate limit by the given {@code key} from the {@link #cache} hash map,
-     * then if result is {@code null}, put the new rate to {@link #cache}, else if rate expired
-     * then remove the item from the {@link #cache}. If the rate remaining value be grater than 0,
-     * decrease rate`s remaining and update item.
+     * The token buckets by their keys.
+     */
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * The sliding windows by their keys.
+     */
+    private final ConcurrentHashMap<String, SlidingWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * The theoretical arrival times of the GCRA policies by their keys.
+     */
+    private final ConcurrentHashMap<String, GcraState> arrivals = new ConcurrentHashMap<>();
+
+    /**
+     * Keeps every cached rate by its expiration and every other state by the time it would be the same as no state.
+     */
+    private final TimingWheel<Object> expirationWheel;
+
+    /**
+     * Periodically advances the {@link #expirationWheel}, it's {@code null} when the background expiration is off.
+     */
+    private final ScheduledExecutorService expirationExecutor;
+
+    /**
+     * The number of the expired rates that reclaimed.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The time source of the windows and the expirations.
+     */
+    private final RateLimitClock clock;
+
+    /**
+     * The snapshot that is read on creating and written on closing, it's {@code null} if the states are not kept.
+     */
+    private final Path snapshotPath;
+
+    public InMemoryRateCache() {
+        this(DEFAULT_EXPIRATION_INTERVAL, true);
+    }
+
+    /**
+     * @param expirationInterval   The interval of reclaiming the expired rates.
+     * @param backgroundExpiration Whether to reclaim the expired rates in a background thread,
+     *                             or only when {@link #evictExpired()} is called.
+     */
+    public InMemoryRateCache(@Nonnull Duration expirationInterval, boolean backgroundExpiration) {
+        this(expirationInterval, backgroundExpiration, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param expirationInterval   The interval of reclaiming the expired rates.
+     * @param backgroundExpiration Whether to reclaim the expired rates in a background thread,
+     *                             or only when {@link #evictExpired()} is called.
+     * @param clock                The time source of the windows and the expirations.
+     */
+    public InMemoryRateCache(@Nonnull Duration expirationInterval, boolean backgroundExpiration, @Nonnull RateLimitClock clock) {
+        this(expirationInterval, backgroundExpiration, clock, null);
+    }
+
+    /**
+     * @param expirationInterval   The interval of reclaiming the expired rates.
+     * @param backgroundExpiration Whether to reclaim the expired rates in a background thread,
+     *                             or only when {@link #evictExpired()} is called.
+     * @param clock                The time source of the windows and the expirations.
+     * @param snapshotPath         The snapshot that the states are read from if it exists, and written to by {@link #close()}.
+     *                             A snapshot that could not be read is ignored, so the cache starts empty.
+     */
+    public InMemoryRateCache(@Nonnull Duration expirationInterval, boolean backgroundExpiration, @Nonnull RateLimitClock clock,
+                             Path snapshotPath) {
+        long intervalMillis = Math.max(1, expirationInterval.toMillis());
+        this.clock = clock;
+        this.expirationWheel = new TimingWheel<>(intervalMillis, WHEEL_SIZE, clock.millis());
+
+        if (backgroundExpiration) {
+            this.expirationExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rate-limit-expiration");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.expirationExecutor.scheduleWithFixedDelay(this::evictExpired, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.expirationExecutor = null;
+        }
+
+        this.snapshotPath = snapshotPath;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                long startNanos = System.nanoTime();
+                long restored = readSnapshot(snapshotPath);
+                log.info("Restored " + restored + " rate limit states from " + snapshotPath + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + "ms.");
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not restore the rate limit states from " + snapshotPath + ", starting empty.", e);
+            }
+        }
+    }
+
+    /**
+     * Atomically computes the next rate limit of the given {@code key} in the {@link #cache} hash map.
+     * If there is no item or the rate expired, put the new rate to {@link #cache}, else if the rate
+     * is not exceeded yet, replaces the item with a rate that its remaining value decreased.
      *
      * @return Encapsulated rate details.
      */
     @Override
-    public synchronized Rate consume(@Nonnull RatePolicy ratePolicy) {
-        Optional<Rate> rateOptional = Optional.ofNullable(cache.get(ratePolicy.getKey()));
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        switch (ratePolicy.getAlgorithm()) {
+            case TOKEN_BUCKET:
+                return consume(buckets, TokenBucket::consume, ratePolicy);
+            case SLIDING_WINDOW:
+                return consume(windows, SlidingWindow::consume, ratePolicy);
+            case GCRA:
+                return consumeGcra(ratePolicy);
+            default:
+                long nowMillis = clock.millis();
+                return cache.compute(ratePolicy.getKey(), (key, rate) -> next(rate, ratePolicy, nowMillis));
+        }
+    }
+
+    /**
+     * Reclaims the cached rates which expired since the last call.
+     *
+     * @return The number of reclaimed rates.
+     */
+    public synchronized int evictExpired() {
+        int evicted = expirationWheel.advance(clock.millis(), this::evict);
+        evictionCount.addAndGet(evicted);
+
+        return evicted;
+    }
 
-        if (!rateOptional.isPresent()) {
-            return createRateForFirstTime(ratePolicy);
+    /**
+     * Returns the total number of the expired rates that reclaimed so far.
+     *
+     * @return The number of reclaimed rates.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of cached rates, token buckets, sliding windows and GCRA states.
+     *
+     * @return The size of the {@link #cache}, the {@link #buckets}, the {@link #windows} and the {@link #arrivals}.
+     */
+    public int size() {
+        return cache.size() + buckets.size() + windows.size() + arrivals.size();
+    }
+
+    /**
+     * Writes the live states to the given snapshot, replacing the one that exists.
+     *
+     * @param path The snapshot file.
+     * @return The number of the written states.
+     * @throws IOException If the snapshot could not be written, the existing snapshot is kept then.
+     */
+    public long writeSnapshot(@Nonnull Path path) throws IOException {
+        return RateSnapshot.write(path, cache.values(), buckets.values(), windows.values(), arrivals.values(), clock.millis());
+    }
+
+    /**
+     * Restores the states of the given snapshot which are not expired yet. The keys that are consumed already keep
+     * their current states.
+     *
+     * @param path The snapshot file.
+     * @return The number of the restored states.
+     * @throws IOException If the file is not a snapshot or it's truncated, the states read until then are kept.
+     */
+    public long readSnapshot(@Nonnull Path path) throws IOException {
+        return RateSnapshot.read(path, clock.millis(), this::restore);
+    }
+
+    /**
+     * Stops the background expiration, and writes the snapshot if it's set.
+     */
+    @Override
+    public void close() {
+        if (expirationExecutor != null)
+            expirationExecutor.shutdownNow();
+
+        if (snapshotPath != null) {
+            try {
+                long written = writeSnapshot(snapshotPath);
+                log.info("Wrote " + written + " rate limit states to " + snapshotPath + ".");
+            } catch (IOException e) {
+                log.warn("Could not write the rate limit states to " + snapshotPath + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Puts the given restored state unless its key has a state, and schedules it to be reclaimed.
+     */
+    private boolean restore(Object state) {
+        if (state instanceof TokenBucket)
+            return restore(buckets, (TokenBucket) state);
+
+        if (state instanceof SlidingWindow)
+            return restore(windows, (SlidingWindow) state);
+
+        if (state instanceof GcraState) {
+            GcraState gcraState = (GcraState) state;
+            if (arrivals.putIfAbsent(gcraState.getKey(), gcraState) != null)
+                return false;
+
+            expirationWheel.schedule(gcraState, gcraState.getExpirationMillis());
+            return true;
         }
 
-        Rate rate = rateOptional.get();
-        if (rate.isExpired()) {
-            cache.remove(ratePolicy.getKey());
-            return createRateForFirstTime(ratePolicy);
+        Rate rate = (Rate) state;
+        if (cache.putIfAbsent(rate.getKey(), rate) != null)
+            return false;
+
+        schedule(rate);
+        return true;
+    }
+
+    private <S extends RateState> boolean restore(ConcurrentHashMap<String, S> states, S state) {
+        if (states.putIfAbsent(state.getKey(), state) != null)
+            return false;
+
+        expirationWheel.schedule(state, state.getExpirationMillis());
+        return true;
+    }
+
+    private Rate next(Rate rate, RatePolicy ratePolicy, long nowMillis) {
+        if (rate == null || rate.isExpired(nowMillis)) {
+            return schedule(createRateForFirstTime(ratePolicy, nowMillis));
+        }
+
+        if (rate.isExceed()) {
+            return rate;
+        }
+
+        int remaining = rate.getRemaining() - 1;
+        if (remaining < 0 && ratePolicy.getBlockDuration() != null) {
+            final Instant blockedExpiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getBlockDuration().toMillis());
+            return schedule(new Rate(rate.getKey(), blockedExpiration, remaining));
         }
 
-        if (!rate.isExceed()) {
-            rate.decrease();
+        return new Rate(rate.getKey(), rate.getExpiration(), remaining);
+    }
+
+    /**
+     * Atomically computes the next state of the given policy key in the given {@code states} map by the given
+     * {@code transition}, the new states are scheduled to be reclaimed when they would be the same as no state.
+     */
+    private <S extends RateState> Rate consume(ConcurrentHashMap<String, S> states, RateState.Transition<S> transition,
+                                               RatePolicy ratePolicy) {
+        long nowMillis = clock.millis();
+        S state = states.compute(ratePolicy.getKey(), (key, current) -> {
+            S next = transition.consume(current, ratePolicy, nowMillis);
+            if (current == null)
+                expirationWheel.schedule(next, next.getExpirationMillis());
+
+            return next;
+        });
 
-            if (rate.isExceed() && ratePolicy.getBlockDuration() != null) {
-                final Instant blockedExpiration = Instant.now().plusSeconds(ratePolicy.getBlockDuration().getSeconds());
-                rate.setExpiration(blockedExpiration);
+        return state.toRate(ratePolicy);
+    }
+
+    /**
+     * Consumes the GCRA state of the given policy key, if the state is reclaimed meanwhile, removes it
+     * and consumes a new one.
+     */
+    private Rate consumeGcra(RatePolicy ratePolicy) {
+        long nowMillis = clock.millis();
+        while (true) {
+            GcraState state = arrivals.get(ratePolicy.getKey());
+            if (state == null) {
+                GcraState created = new GcraState(ratePolicy.getKey());
+                state = arrivals.putIfAbsent(ratePolicy.getKey(), created);
+                if (state == null) {
+                    state = created;
+                    expirationWheel.schedule(state, nowMillis + ratePolicy.getDuration().toMillis());
+                }
             }
 
-            cache.put(ratePolicy.getKey(), rate);
+            Rate rate = state.consume(ratePolicy, nowMillis);
+            if (rate != null)
+                return rate;
+
+            arrivals.remove(state.getKey(), state);
         }
+    }
 
+    private Rate createRateForFirstTime(RatePolicy ratePolicy, long nowMillis) {
+        Instant expiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getDuration().toMillis());
+        return new Rate(ratePolicy.getKey(), expiration, ratePolicy.getCount() - 1);
+    }
+
+    private Rate schedule(Rate rate) {
+        expirationWheel.schedule(rate, rate.getExpiration().toEpochMilli());
         return rate;
     }
 
-    private Rate createRateForFirstTime(RatePolicy ratePolicy) {
-        Instant expiration = Instant.now().plusSeconds(ratePolicy.getDuration().getSeconds());
-        Rate rate = new Rate(ratePolicy.getKey(), expiration, ratePolicy.getCount());
-        rate.decrease();
+    private boolean evict(Object scheduled) {
+        if (scheduled instanceof TokenBucket)
+            return evict(buckets, (TokenBucket) scheduled);
 
-        cache.put(ratePolicy.getKey(), rate);
-        return rate;
+        if (scheduled instanceof SlidingWindow)
+            return evict(windows, (SlidingWindow) scheduled);
+
+        if (scheduled instanceof GcraState)
+            return evict((GcraState) scheduled);
+
+        return evict((Rate) scheduled);
+    }
+
+    /**
+     * Removes the cached rate of the given scheduled {@code rate} key if it's expired. Consuming a rate
+     * replaces it with a new one which has the same expiration, so the cached one should be checked
+     * and if it's not expired yet while it has the same expiration, it should be checked again later.
+     */
+    private boolean evict(Rate rate) {
+        Rate cached = cache.get(rate.getKey());
+        if (cached == null)
+            return false;
+
+        if (cached.isExpired(clock.millis()))
+            return cache.remove(cached.getKey(), cached);
+
+        if (cached.getExpiration().equals(rate.getExpiration()))
+            expirationWheel.schedule(cached, cached.getExpiration().toEpochMilli() + 1);
+
+        return false;
+    }
+
+    /**
+     * Removes the state of the given scheduled {@code state} key if it's expired, else schedules the current
+     * state to be checked again when it would be expired. Only the new states are scheduled on consuming, so there
+     * is at most one scheduled item per key. If the expired state is replaced by a consumption before it's removed,
+     * the replacement is scheduled instead, since it's not scheduled by the consumption.
+     */
+    private <S extends RateState> boolean evict(ConcurrentHashMap<String, S> states, S state) {
+        S cached = states.get(state.getKey());
+        if (cached == null)
+            return false;
+
+        if (cached.getExpirationMillis() <= clock.millis()) {
+            if (states.remove(cached.getKey(), cached))
+                return true;
+
+            cached = states.get(state.getKey());
+            if (cached == null)
+                return false;
+        }
+
+        expirationWheel.schedule(cached, cached.getExpirationMillis());
+        return false;
+    }
+
+    /**
+     * Removes the given GCRA {@code state} if its theoretical arrival time is passed, else schedules it to be checked
+     * again at that time. The state is marked as evicted before removing, so a concurrent consumption of it would not
+     * be lost.
+     */
+    private boolean evict(GcraState state) {
+        long nowMillis = clock.millis();
+        if (state.evict(nowMillis))
+            return arrivals.remove(state.getKey(), state);
+
+        if (state.get() != GcraState.EVICTED)
+            expirationWheel.schedule(state, state.getExpirationMillis());
+
+        return false;
     }
 }
@@ -0,0 +1,284 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * An implementation of {@link RateLimiter} to cache the {@link RateLimitAlgorithm#FIXED_WINDOW} rates in an open
+ * addressing hash table of fixed-size records, kept in direct {@link ByteBuffer}s out of the java heap.
+ * <p>
+ * Each record holds the 64-bit fingerprint of the rate key, the expiration epoch millisecond and the remaining value
+ * of the rate, so the heap usage stays flat regardless of the number of the keys, and the garbage collector never
+ * scans them. The table is split into segments, each one guarded by its own lock, and a key is looked up by a linear
+ * probe of at most {@link #MAX_PROBES} records in its segment. The expired records are reused by the new keys, and when
+ * the probe finds neither the key nor a free record, the record that expires first is replaced.
+ * <p>
+ * The keys are not stored, only their fingerprints, so two keys that share a fingerprint would share a rate too.
+ * The keys are built from the request values, e.g. the headers, so the fingerprints are keyed by a random secret of the
+ * instance, and a requester could not choose a key that shares the fingerprint of another one. It supports only the {@link RateLimitAlgorithm#FIXED_WINDOW}, the other
+ * algorithms are supported by the {@link InMemoryRateCache} and the {@link CaffeineRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+public class OffHeapRateCache implements RateLimiter {
+
+    /**
+     * The default max number of the cached keys.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    /**
+     * The max number of the records that a key is looked up in.
+     */
+    static final int MAX_PROBES = 16;
+
+    /**
+     * The size of a record: the key fingerprint, the expiration millis and the remaining value.
+     */
+    static final int RECORD_SIZE = 20;
+
+    private static final int FINGERPRINT_OFFSET = 0;
+
+    private static final int EXPIRATION_OFFSET = 8;
+
+    private static final int REMAINING_OFFSET = 16;
+
+    private static final int SEGMENT_COUNT = 64;
+
+    /**
+     * The max number of the records of a segment, so its buffer never exceeds the 2GB limit of a {@link ByteBuffer}.
+     */
+    private static final int MAX_SEGMENT_RECORDS = 1 << 26;
+
+    /**
+     * Marks a record that is never used, no key has this fingerprint.
+     */
+    private static final long EMPTY = 0;
+
+    private final long maximumSize;
+
+    private final Segment[] segments;
+
+    /**
+     * The random secret of the key fingerprints, the table is not shared, so it's never the same on two instances.
+     */
+    private final long secret0;
+
+    private final long secret1;
+
+    /**
+     * The time source of the windows and the expirations.
+     */
+    private final RateLimitClock clock;
+
+    public OffHeapRateCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize The max number of the cached keys, the table keeps a quarter more records
+     *                    to keep the probes short.
+     */
+    public OffHeapRateCache(long maximumSize) {
+        this(maximumSize, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param maximumSize The max number of the cached keys, the table keeps a quarter more records
+     *                    to keep the probes short.
+     * @param clock       The time source of the windows and the expirations.
+     */
+    public OffHeapRateCache(long maximumSize, @Nonnull RateLimitClock clock) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("The maximum size should be positive.");
+
+        long records = Math.max(MAX_PROBES, (maximumSize + maximumSize / 4 + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        if (records > MAX_SEGMENT_RECORDS)
+            throw new IllegalArgumentException("The maximum size should not be more than "
+                    + (long) MAX_SEGMENT_RECORDS * SEGMENT_COUNT * 4 / 5 + ".");
+
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        Random random = new SecureRandom();
+        this.secret0 = random.nextLong();
+        this.secret1 = random.nextLong();
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment((int) records);
+        }
+    }
+
+    /**
+     * Consumes the rate of the given policy key in its record, a new window is started if the record is expired
+     * or there is no record of the key.
+     *
+     * @return Encapsulated rate details.
+     * @throws IllegalArgumentException If the policy algorithm is not the {@link RateLimitAlgorithm#FIXED_WINDOW}.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        if (ratePolicy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+            throw new IllegalArgumentException("The off heap rate cache does not support the " + ratePolicy.getAlgorithm() + " algorithm.");
+
+        long fingerprint = Fingerprints.of(ratePolicy.getKey(), secret0, secret1);
+        Segment segment = segments[(int) (fingerprint >>> 58)];
+        long nowMillis = clock.millis();
+
+        synchronized (segment) {
+            return segment.consume(fingerprint, ratePolicy, nowMillis);
+        }
+    }
+
+    /**
+     * Returns the number of the used records, including the expired ones which are not reused yet.
+     *
+     * @return The number of the cached keys.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the total number of the records that are replaced by another key before their expiration,
+     * because their probes were full.
+     *
+     * @return The number of evicted keys.
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+
+        return evictions;
+    }
+
+    /**
+     * Returns the number of the off heap bytes that the table takes.
+     *
+     * @return The capacity of all of the segment buffers.
+     */
+    public long getCapacityBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.buffer.capacity();
+        }
+
+        return bytes;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * A part of the table in its own direct buffer, all of its methods should be called by holding its lock.
+     */
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+
+        private final int records;
+
+        private long size;
+
+        private long evictions;
+
+        private Segment(int records) {
+            this.records = records;
+            this.buffer = ByteBuffer.allocateDirect(records * RECORD_SIZE);
+        }
+
+        private Rate consume(long fingerprint, RatePolicy ratePolicy, long nowMillis) {
+            int index = find(fingerprint, nowMillis);
+            int offset = index * RECORD_SIZE;
+
+            if (buffer.getLong(offset + FINGERPRINT_OFFSET) != fingerprint
+                    || buffer.getLong(offset + EXPIRATION_OFFSET) < nowMillis) {
+                long expiration = nowMillis + ratePolicy.getDuration().toMillis();
+                return write(offset, fingerprint, ratePolicy, expiration, ratePolicy.getCount() - 1, nowMillis);
+            }
+
+            long expiration = buffer.getLong(offset + EXPIRATION_OFFSET);
+            int remaining = buffer.getInt(offset + REMAINING_OFFSET);
+            if (remaining < 0)
+                return new Rate(ratePolicy.getKey(), Instant.ofEpochMilli(expiration), remaining);
+
+            remaining--;
+            if (remaining < 0 && ratePolicy.getBlockDuration() != null) {
+                expiration = nowMillis + ratePolicy.getBlockDuration().toMillis();
+            }
+
+            return write(offset, fingerprint, ratePolicy, expiration, remaining, nowMillis);
+        }
+
+        /**
+         * Probes the records of the given fingerprint, starting from its home record.
+         *
+         * @return The index of the record of the fingerprint if it exists, else the index of the first free record,
+         * else the index of the record that expires first.
+         */
+        private int find(long fingerprint, long nowMillis) {
+            int home = (int) ((fingerprint & 0x7fffffffffffffffL) % records);
+            int free = -1;
+            int earliest = home;
+            long earliestExpiration = Long.MAX_VALUE;
+
+            int probes = Math.min(MAX_PROBES, records);
+            for (int i = 0; i < probes; i++) {
+                int index = (home + i) % records;
+                int offset = index * RECORD_SIZE;
+                long current = buffer.getLong(offset + FINGERPRINT_OFFSET);
+                if (current == fingerprint)
+                    return index;
+
+                if (current == EMPTY) {
+                    return (free != -1) ? free : index;
+                }
+
+                long expiration = buffer.getLong(offset + EXPIRATION_OFFSET);
+                if (free == -1 && expiration < nowMillis) {
+                    free = index;
+                } else if (expiration < earliestExpiration) {
+                    earliest = index;
+                    earliestExpiration = expiration;
+                }
+            }
+
+            return (free != -1) ? free : earliest;
+        }
+
+        private Rate write(int offset, long fingerprint, RatePolicy ratePolicy, long expiration, int remaining, long nowMillis) {
+            long current = buffer.getLong(offset + FINGERPRINT_OFFSET);
+            if (current == EMPTY) {
+                size++;
+            } else if (current != fingerprint && buffer.getLong(offset + EXPIRATION_OFFSET) >= nowMillis) {
+                evictions++;
+            }
+
+            buffer.putLong(offset + FINGERPRINT_OFFSET, fingerprint);
+            buffer.putLong(offset + EXPIRATION_OFFSET, expiration);
+            buffer.putInt(offset + REMAINING_OFFSET, remaining);
+
+            return new Rate(ratePolicy.getKey(), Instant.ofEpochMilli(expiration), remaining);
+        }
+    }
+}
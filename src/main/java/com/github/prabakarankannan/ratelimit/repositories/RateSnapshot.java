@@ -0,0 +1,262 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Writes and reads the live states of an {@link InMemoryRateCache} as a compact binary snapshot, so a restarted node
+ * continues the windows, the buckets and the blocks of the previous one instead of starting empty.
+ * <p>
+ * A snapshot is a header of the magic number, the version and the number of the records, followed by the records,
+ * each one is the state type, the UTF-8 key length and bytes, and the fixed fields of the state in epoch milliseconds,
+ * e.g. 23 bytes plus the key for a fixed window rate. It's written sequentially to a temporary file that replaces
+ * the snapshot when it's complete, so a crash while writing never leaves a partial snapshot. It's read by mapping
+ * the file into the memory, so millions of records are decoded without copying the file through the heap.
+ * <p>
+ * The states that are expired by the time of writing or reading are skipped.
+ *
+ * @author Prabakaran Kannan
+ */
+final class RateSnapshot {
+
+    /**
+     * Marks the files of this format.
+     */
+    static final int MAGIC = 0x524C5331;
+
+    static final int VERSION = 1;
+
+    /**
+     * The magic number, the version and the number of the records.
+     */
+    static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final byte RATE = 0;
+
+    private static final byte TOKEN_BUCKET = 1;
+
+    private static final byte SLIDING_WINDOW = 2;
+
+    private static final byte GCRA = 3;
+
+    private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+    /**
+     * The type, the key length and the fields of the largest state, that is the sliding window.
+     */
+    private static final int MAX_FIELDS_SIZE = Byte.BYTES + Short.BYTES + 5 * Long.BYTES + 3 * Integer.BYTES;
+
+    private static final int MAX_RECORD_SIZE = MAX_FIELDS_SIZE + MAX_KEY_LENGTH;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The max size of a mapped region while reading, the larger snapshots are mapped region by region.
+     */
+    private static final long MAX_MAPPED_SIZE = 1L << 30;
+
+    private RateSnapshot() {
+    }
+
+    /**
+     * Writes the live states to the given path, replacing the snapshot that exists. The states of the keys that
+     * would not fit a record are skipped.
+     *
+     * @return The number of the written states.
+     * @throws IOException If the snapshot could not be written, the existing snapshot is kept then.
+     */
+    static long write(Path path, Collection<Rate> rates, Collection<TokenBucket> buckets, Collection<SlidingWindow> windows,
+                      Collection<GcraState> arrivals, long nowMillis) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            for (Rate rate : rates) {
+                if (!rate.isExpired(nowMillis) && writer.start(RATE, rate.getKey())) {
+                    writer.buffer.putLong(rate.getExpiration().toEpochMilli()).putInt(rate.getRemaining());
+                    count++;
+                }
+            }
+            for (TokenBucket bucket : buckets) {
+                if (bucket.getExpirationMillis() > nowMillis && writer.start(TOKEN_BUCKET, bucket.getKey())) {
+                    writer.buffer.putLong(bucket.getTokens())
+                            .putLong(bucket.getUpdatedMillis())
+                            .putLong(bucket.getExpirationMillis())
+                            .put((byte) (bucket.isExceeded() ? 1 : 0));
+                    count++;
+                }
+            }
+            for (SlidingWindow window : windows) {
+                if (window.getExpirationMillis() > nowMillis && writer.start(SLIDING_WINDOW, window.getKey())) {
+                    writer.buffer.putLong(window.getWindowStartMillis())
+                            .putInt(window.getPreviousCount())
+                            .putInt(window.getCurrentCount())
+                            .putLong(window.getBlockedUntilMillis())
+                            .putInt(window.getRemaining())
+                            .putLong(window.getRateExpirationMillis())
+                            .putLong(window.getExpirationMillis());
+                    count++;
+                }
+            }
+            for (GcraState state : arrivals) {
+                long tat = state.get();
+                if (tat != GcraState.EVICTED && tat > nowMillis * 1000 && writer.start(GCRA, state.getKey())) {
+                    writer.buffer.putLong(tat);
+                    count++;
+                }
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(count);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the snapshot of the given path, and passes each state that is not expired to the given {@code restorer}.
+     *
+     * @param restorer Restores a {@link Rate}, {@link TokenBucket}, {@link SlidingWindow} or {@link GcraState},
+     *                 and returns whether it's restored.
+     * @return The number of the restored states.
+     * @throws IOException If the file is not a snapshot of this format or it's truncated.
+     */
+    static long read(Path path, long nowMillis, Predicate<Object> restorer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE)
+                throw new IOException("The " + path + " is not a rate limit snapshot.");
+
+            long position = 0;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size, MAX_MAPPED_SIZE));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IOException("The " + path + " is not a rate limit snapshot of version " + VERSION + ".");
+
+            long records = buffer.getLong();
+            long restored = 0;
+            byte[] key = new byte[64];
+            try {
+                for (long i = 0; i < records; i++) {
+                    if (buffer.remaining() < MAX_RECORD_SIZE && position + buffer.limit() < size) {
+                        position += buffer.position();
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAX_MAPPED_SIZE));
+                    }
+
+                    byte type = buffer.get();
+                    int keyLength = buffer.getShort() & 0xFFFF;
+                    if (keyLength > key.length) {
+                        key = new byte[Math.max(keyLength, key.length * 2)];
+                    }
+                    buffer.get(key, 0, keyLength);
+
+                    Object state = decode(type, new String(key, 0, keyLength, StandardCharsets.UTF_8), buffer, nowMillis);
+                    if (state != null && restorer.test(state)) {
+                        restored++;
+                    }
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("The rate limit snapshot " + path + " is truncated.", e);
+            }
+
+            return restored;
+        }
+    }
+
+    /**
+     * Decodes the fields of a state, or returns {@code null} if the state is expired.
+     */
+    private static Object decode(byte type, String key, ByteBuffer buffer, long nowMillis) throws IOException {
+        switch (type) {
+            case RATE:
+                long expirationMillis = buffer.getLong();
+                int remaining = buffer.getInt();
+                return (nowMillis > expirationMillis) ? null : new Rate(key, Instant.ofEpochMilli(expirationMillis), remaining);
+            case TOKEN_BUCKET:
+                long tokens = buffer.getLong();
+                long updatedMillis = buffer.getLong();
+                long fullMillis = buffer.getLong();
+                boolean exceeded = buffer.get() != 0;
+                return (fullMillis <= nowMillis) ? null : new TokenBucket(key, tokens, updatedMillis, fullMillis, exceeded);
+            case SLIDING_WINDOW:
+                SlidingWindow window = new SlidingWindow(key, buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                        buffer.getInt(), buffer.getLong(), buffer.getLong());
+                return (window.getExpirationMillis() <= nowMillis) ? null : window;
+            case GCRA:
+                long tat = buffer.getLong();
+                if (tat <= nowMillis * 1000)
+                    return null;
+
+                GcraState state = new GcraState(key);
+                state.set(tat);
+                return state;
+            default:
+                throw new IOException("Unknown rate limit snapshot record type " + type + ".");
+        }
+    }
+
+    /**
+     * Buffers the records in a direct buffer, and writes it to the channel when it's full.
+     */
+    private static final class Writer {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+            this.buffer.position(HEADER_SIZE);
+        }
+
+        /**
+         * Starts a record of the given type and key, the fields are put by the caller.
+         *
+         * @return {@code false} if the key is too long to be written.
+         */
+        boolean start(byte type, String key) throws IOException {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_KEY_LENGTH)
+                return false;
+
+            if (buffer.remaining() < MAX_FIELDS_SIZE + bytes.length) {
+                flush();
+            }
+
+            buffer.put(type).putShort((short) bytes.length).put(bytes);
+            return true;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
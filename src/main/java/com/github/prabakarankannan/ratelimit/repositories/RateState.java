@@ -0,0 +1,41 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+/**
+ * The immutable state of a rate limit key in the {@link InMemoryRateCache}, other than the fixed window {@link Rate}.
+ *
+ * @author Prabakaran Kannan
+ */
+interface RateState {
+
+    String getKey();
+
+    /**
+     * Returns the epoch millisecond after that the state is the same as no state, so it can be reclaimed.
+     */
+    long getExpirationMillis();
+
+    /**
+     * Converts the state to the {@link Rate} of its last consumption.
+     */
+    Rate toRate(RatePolicy ratePolicy);
+
+    /**
+     * Computes the next state of a rate limit key by consuming it.
+     *
+     * @param <S> The type of the state.
+     */
+    @FunctionalInterface
+    interface Transition<S extends RateState> {
+
+        /**
+         * @param current    The current state, the null value means no state.
+         * @param ratePolicy Encapsulates the rate limit policy details.
+         * @param nowMillis  The current epoch millisecond.
+         * @return The next state.
+         */
+        S consume(S current, RatePolicy ratePolicy, long nowMillis);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimiter;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An implementation of {@link ReactiveRateLimiter} that consumes the rates by a {@link RateLimiter} on the given
+ * {@link Scheduler}, so a blocking limiter, e.g. the {@link com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache},
+ * does not block the event loop threads.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ReactiveRateLimiterAdapter implements ReactiveRateLimiter {
+
+    /**
+     * The adapted rate limiter.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Runs the consumptions of the {@link #rateLimiter}.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * Adapts the given {@code rateLimiter} on the calling thread if it's an {@link InMemoryRateCache},
+     * which never blocks, else on the {@link Schedulers#boundedElastic()} scheduler.
+     *
+     * @param rateLimiter The adapted rate limiter.
+     */
+    public ReactiveRateLimiterAdapter(RateLimiter rateLimiter) {
+        this(rateLimiter, (rateLimiter instanceof InMemoryRateCache) ? Schedulers.immediate() : Schedulers.boundedElastic());
+    }
+
+    /**
+     * @param rateLimiter The adapted rate limiter.
+     * @param scheduler   Runs the consumptions of the {@code rateLimiter}.
+     */
+    public ReactiveRateLimiterAdapter(RateLimiter rateLimiter, Scheduler scheduler) {
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Rate> consume(@Nonnull RatePolicy ratePolicy) {
+        return Mono.fromCallable(() -> rateLimiter.consume(ratePolicy)).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link RateLimiter} that spreads the rate keys over several other {@link RateLimiter}s, e.g. a
+ * {@link com.github.prabakarankannan.ratelimit.repositories.redis.RedisScriptRateCache} per standalone redis node,
+ * by a consistent hash ring, so the load and the keys scale horizontally by the number of the shards.
+ * <p>
+ * Each shard owns {@link #VIRTUAL_NODES} points of the ring by its name, and a rate key is consumed by the shard that owns
+ * the first point after the key hash. All of the algorithms of a key are consumed by the same shard, and adding or removing
+ * a shard moves only the keys of its own points, the others keep their rates.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ShardedRateLimiter implements RateLimiter, AutoCloseable {
+
+    /**
+     * The number of the ring points of each shard.
+     */
+    static final int VIRTUAL_NODES = 160;
+
+    /**
+     * The shards by their names, in the given order.
+     */
+    private final Map<String, RateLimiter> shards;
+
+    /**
+     * The sorted points of the ring.
+     */
+    private final long[] points;
+
+    /**
+     * The shard that owns each point of the {@link #points}.
+     */
+    private final RateLimiter[] owners;
+
+    /**
+     * @param shards The shards by their names, the names should be stable, e.g. the redis URIs, since they place
+     *               the shards on the ring.
+     */
+    public ShardedRateLimiter(@Nonnull Map<String, ? extends RateLimiter> shards) {
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("At least one shard is required.");
+
+        this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+
+        List<Point> ring = new ArrayList<>(shards.size() * VIRTUAL_NODES);
+        for (Map.Entry<String, ? extends RateLimiter> shard : shards.entrySet()) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.add(new Point(Fingerprints.of(shard.getKey() + '#' + i), shard.getValue()));
+            }
+        }
+        ring.sort((a, b) -> Long.compare(a.hash, b.hash));
+
+        this.points = new long[ring.size()];
+        this.owners = new RateLimiter[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            points[i] = ring.get(i).hash;
+            owners[i] = ring.get(i).shard;
+        }
+    }
+
+    /**
+     * Consumes the rate by the shard of the policy key.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        return shard(ratePolicy.getKey()).consume(ratePolicy);
+    }
+
+    /**
+     * Consumes the rate by the shard of the policy key asynchronously.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when it's consumed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        return shard(ratePolicy.getKey()).consumeAsync(ratePolicy);
+    }
+
+    /**
+     * Returns the shard that the given rate key is consumed by.
+     *
+     * @param key The rate key.
+     * @return The shard of the key.
+     */
+    public RateLimiter shard(String key) {
+        int index = Arrays.binarySearch(points, Fingerprints.of(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return owners[(index == points.length) ? 0 : index];
+    }
+
+    public Map<String, RateLimiter> getShards() {
+        return shards;
+    }
+
+    /**
+     * Closes the shards that are closeable, a shard that could not be closed does not stop closing the others.
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+        for (RateLimiter shard : shards.values()) {
+            if (!(shard instanceof AutoCloseable))
+                continue;
+
+            try {
+                ((AutoCloseable) shard).close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("Could not close the rate limiter.", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * A point of the ring and its owner shard.
+     */
+    private static final class Point {
+
+        private final long hash;
+
+        private final RateLimiter shard;
+
+        private Point(long hash, RateLimiter shard) {
+            this.hash = hash;
+            this.shard = shard;
+        }
+    }
+}
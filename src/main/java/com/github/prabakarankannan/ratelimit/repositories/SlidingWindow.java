@@ -0,0 +1,190 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Instant;
+
+/**
+ * The immutable state of a {@link RateLimitAlgorithm#SLIDING_WINDOW} rate limit, that keeps only the counts of
+ * the current and the previous windows of the policy duration.
+ * <p>
+ * The count of a sliding window that ends now is estimated by the count of the current window plus the count of
+ * the previous window weighted by its part which is still in the sliding window, so the memory per key is fixed,
+ * unlike a log of the request times. The windows are aligned to the epoch by the policy duration.
+ *
+ * @author Prabakaran Kannan
+ */
+final class SlidingWindow implements RateState {
+
+    private final String key;
+
+    /**
+     * The epoch millisecond that the current window started.
+     */
+    private final long windowStartMillis;
+
+    /**
+     * The number of the allowed calls in the previous window.
+     */
+    private final int previousCount;
+
+    /**
+     * The number of the allowed calls in the current window.
+     */
+    private final int currentCount;
+
+    /**
+     * The epoch millisecond that the block ends, zero means not blocked.
+     */
+    private final long blockedUntilMillis;
+
+    /**
+     * The remaining calls after the last consumption, or -1 if it's rejected.
+     */
+    private final int remaining;
+
+    /**
+     * The end of the current window if the last consumption is allowed, else the time that a call would be allowed.
+     */
+    private final long rateExpirationMillis;
+
+    /**
+     * The epoch millisecond that both windows would be empty.
+     */
+    private final long expirationMillis;
+
+    private SlidingWindow(String key, long windowStartMillis, long durationMillis, int previousCount, int currentCount,
+                          long blockedUntilMillis, int remaining, long rateExpirationMillis) {
+        this(key, windowStartMillis, previousCount, currentCount, blockedUntilMillis, remaining, rateExpirationMillis,
+                Math.max(windowStartMillis + 2 * durationMillis, blockedUntilMillis));
+    }
+
+    /**
+     * Restores a window by its fields, e.g. from a {@link RateSnapshot}.
+     */
+    SlidingWindow(String key, long windowStartMillis, int previousCount, int currentCount, long blockedUntilMillis,
+                  int remaining, long rateExpirationMillis, long expirationMillis) {
+        this.key = key;
+        this.windowStartMillis = windowStartMillis;
+        this.previousCount = previousCount;
+        this.currentCount = currentCount;
+        this.blockedUntilMillis = blockedUntilMillis;
+        this.remaining = remaining;
+        this.rateExpirationMillis = rateExpirationMillis;
+        this.expirationMillis = expirationMillis;
+    }
+
+    /**
+     * Counts a call in the current window if the estimated count of the sliding window is less than the policy count,
+     * else rejects it and blocks the key by the block duration of the policy, unless it's blocked already.
+     *
+     * @param window     The current state, the null value means no calls.
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @param nowMillis  The current epoch millisecond.
+     * @return The next state of the window.
+     */
+    static SlidingWindow consume(SlidingWindow window, RatePolicy ratePolicy, long nowMillis) {
+        long duration = Math.max(1, ratePolicy.getDuration().toMillis());
+        long windowStart = nowMillis - Math.floorMod(nowMillis, duration);
+
+        int previous = 0;
+        int current = 0;
+        long blockedUntil = 0;
+        if (window != null) {
+            blockedUntil = window.blockedUntilMillis;
+            if (window.windowStartMillis >= windowStart) {
+                windowStart = window.windowStartMillis;
+                previous = window.previousCount;
+                current = window.currentCount;
+            } else if (window.windowStartMillis == windowStart - duration) {
+                previous = window.currentCount;
+            }
+        }
+
+        if (blockedUntil > nowMillis)
+            return new SlidingWindow(ratePolicy.getKey(), windowStart, duration, previous, current, blockedUntil, -1, blockedUntil);
+
+        long elapsed = Math.min(nowMillis - windowStart, duration);
+        long limit = ratePolicy.getCount() * duration;
+        long weightedPrevious = previous * (duration - elapsed);
+        if (weightedPrevious + (current + 1) * duration <= limit) {
+            current++;
+            int remaining = (int) ((limit - weightedPrevious - current * duration) / duration);
+            return new SlidingWindow(ratePolicy.getKey(), windowStart, duration, previous, current, blockedUntil,
+                    remaining, windowStart + duration);
+        }
+
+        if (ratePolicy.getBlockDuration() != null) {
+            blockedUntil = nowMillis + ratePolicy.getBlockDuration().toMillis();
+            return new SlidingWindow(ratePolicy.getKey(), windowStart, duration, previous, current, blockedUntil, -1, blockedUntil);
+        }
+
+        long retry = retryMillis(windowStart, duration, ratePolicy.getCount(), previous, current);
+        return new SlidingWindow(ratePolicy.getKey(), windowStart, duration, previous, current, blockedUntil, -1, retry);
+    }
+
+    /**
+     * Returns the first epoch millisecond that the weighted previous count has dropped enough to allow a call,
+     * in the current window or else in the next one.
+     */
+    private static long retryMillis(long windowStart, long duration, int count, int previous, int current) {
+        long budget = (long) (count - current - 1) * duration;
+        if (budget >= 0 && previous > 0)
+            return windowStart + duration - budget / previous;
+
+        if (current == 0)
+            return windowStart + duration;
+
+        long nextBudget = (long) (count - 1) * duration;
+        return windowStart + duration + Math.max(0, duration - nextBudget / current);
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    long getWindowStartMillis() {
+        return windowStartMillis;
+    }
+
+    int getPreviousCount() {
+        return previousCount;
+    }
+
+    int getCurrentCount() {
+        return currentCount;
+    }
+
+    long getBlockedUntilMillis() {
+        return blockedUntilMillis;
+    }
+
+    int getRemaining() {
+        return remaining;
+    }
+
+    long getRateExpirationMillis() {
+        return rateExpirationMillis;
+    }
+
+    /**
+     * Returns the epoch millisecond that both of the windows would be empty and the key would not be blocked.
+     */
+    @Override
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    /**
+     * Converts the window to a {@link Rate}, its remaining value is the estimated remaining calls of the sliding window,
+     * or -1 if the last consumption is rejected. Its expiration is the time that a call would be allowed if the last
+     * consumption is rejected, else the end of the current window.
+     */
+    @Override
+    public Rate toRate(RatePolicy ratePolicy) {
+        return new Rate(key, Instant.ofEpochMilli(rateExpirationMillis), remaining);
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * A hierarchical timing wheel to find the items whose deadline has passed, without scanning all of the items.
+ * <p>
+ * Each level of the wheel is a ring of {@link #wheelSize} buckets, the buckets of the first level cover
+ * {@link #tickMillis} and the buckets of each next level cover the whole previous level. An item is put in
+ * the lowest level that its deadline fits in, and is moved down a level whenever the wheel reaches its bucket,
+ * so scheduling and expiring an item costs amortized O(1).
+ * <p>
+ * The {@link #schedule(Object, long)} method is lock-free and can be called by any thread, but the
+ * {@link #advance(long, Predicate)} method should be called by one thread at a time.
+ *
+ * @param <T> The type of the scheduled items.
+ * @author Prabakaran Kannan
+ */
+public class TimingWheel<T> {
+
+    /**
+     * The time span of each bucket of the first level in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * The number of buckets of each level.
+     */
+    private final int wheelSize;
+
+    /**
+     * Keeps the scheduled items until the next {@link #advance(long, Predicate)} call puts them in the buckets.
+     */
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The levels of the wheel, the higher levels are created when a deadline does not fit in the existing levels.
+     */
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1)
+            throw new IllegalArgumentException("The tick should be positive and the wheel size should be greater than 1.");
+
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels.add(new Level<>(tickMillis, wheelSize, startMillis));
+    }
+
+    /**
+     * Schedules the given {@code item} to be expired once the wheel passed the given {@code deadlineMillis}.
+     *
+     * @param item           The item to expire.
+     * @param deadlineMillis The epoch millisecond after that the item should be expired.
+     */
+    public void schedule(@Nonnull T item, long deadlineMillis) {
+        pending.offer(new Entry<>(item, deadlineMillis));
+    }
+
+    /**
+     * Moves the wheel forward until the given {@code nowMillis} and passes the items whose deadline is passed
+     * to the {@code expirer}.
+     *
+     * @param nowMillis The current epoch millisecond.
+     * @param expirer   Expires the given item and returns {@code true} if anything is reclaimed.
+     * @return The number of items that the {@code expirer} reclaimed.
+     */
+    public int advance(long nowMillis, @Nonnull Predicate<T> expirer) {
+        Entry<T> entry;
+        while ((entry = pending.poll()) != null) {
+            add(entry);
+        }
+
+        int expired = 0;
+        Level<T> first = levels.get(0);
+        while (first.currentMillis + tickMillis <= nowMillis) {
+            ArrayDeque<Entry<T>> bucket = first.bucket(first.currentMillis);
+            while ((entry = bucket.poll()) != null) {
+                if (expirer.test(entry.item))
+                    expired++;
+            }
+
+            first.currentMillis += tickMillis;
+            cascade(first.currentMillis);
+        }
+
+        return expired;
+    }
+
+    /**
+     * Moves the items of the higher levels buckets that the wheel just reached, down to the lower levels.
+     */
+    private void cascade(long currentMillis) {
+        int reached = 0;
+        while (reached + 1 < levels.size() && currentMillis % levels.get(reached + 1).tickMillis == 0) {
+            reached++;
+            levels.get(reached).currentMillis = currentMillis;
+        }
+
+        for (int i = reached; i > 0; i--) {
+            ArrayDeque<Entry<T>> bucket = levels.get(i).bucket(currentMillis);
+            Entry<T> entry;
+            while ((entry = bucket.poll()) != null) {
+                add(entry);
+            }
+        }
+    }
+
+    private void add(Entry<T> entry) {
+        Level<T> first = levels.get(0);
+        if (entry.deadlineMillis < first.currentMillis + tickMillis) {
+            first.bucket(first.currentMillis).add(entry);
+            return;
+        }
+
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> previous = levels.get(i - 1);
+                levels.add(new Level<>(previous.intervalMillis, wheelSize, first.currentMillis));
+            }
+
+            Level<T> level = levels.get(i);
+            if (entry.deadlineMillis < level.currentMillis + level.intervalMillis) {
+                level.bucket(entry.deadlineMillis).add(entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Represents a ring of buckets that each bucket covers the {@link #tickMillis} time span.
+     */
+    private static final class Level<T> {
+
+        private final long tickMillis;
+
+        private final long intervalMillis;
+
+        private final ArrayDeque<Entry<T>>[] buckets;
+
+        /**
+         * The start time of the current bucket, that is always aligned to the {@link #tickMillis}.
+         */
+        private long currentMillis;
+
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.currentMillis = startMillis - (startMillis % tickMillis);
+            @SuppressWarnings("unchecked")
+            ArrayDeque<Entry<T>>[] buckets = (ArrayDeque<Entry<T>>[]) new ArrayDeque<?>[wheelSize];
+            this.buckets = buckets;
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayDeque<>();
+            }
+        }
+
+        private ArrayDeque<Entry<T>> bucket(long millis) {
+            return buckets[(int) ((millis / tickMillis) % buckets.length)];
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T item;
+
+        private final long deadlineMillis;
+
+        private Entry(T item, long deadlineMillis) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
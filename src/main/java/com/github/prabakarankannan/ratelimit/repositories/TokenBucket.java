@@ -0,0 +1,151 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Instant;
+
+/**
+ * The immutable state of a {@link RateLimitAlgorithm#TOKEN_BUCKET} rate limit, that is refilled lazily on
+ * consuming by the time passed since its last update, without any timer.
+ * <p>
+ * The tokens are scaled by the policy duration in milliseconds, so a token costs {@code duration} units and
+ * refilling the policy count per duration adds exactly {@code count} units per millisecond, without rounding.
+ *
+ * @author Prabakaran Kannan
+ */
+final class TokenBucket implements RateState {
+
+    private final String key;
+
+    /**
+     * The scaled tokens in the bucket.
+     */
+    private final long tokens;
+
+    /**
+     * The epoch millisecond that the tokens are refilled up to. It's in the future while the bucket is blocked.
+     */
+    private final long updatedMillis;
+
+    /**
+     * The epoch millisecond that the bucket would be full again, a full bucket is the same as no bucket.
+     */
+    private final long fullMillis;
+
+    /**
+     * Whether the last consumption is rejected.
+     */
+    private final boolean exceeded;
+
+    private TokenBucket(RatePolicy ratePolicy, long tokens, long updatedMillis, boolean exceeded) {
+        this(ratePolicy.getKey(), tokens, updatedMillis,
+                updatedMillis + ceilDiv(capacity(ratePolicy) - tokens, ratePolicy.getCount()), exceeded);
+    }
+
+    /**
+     * Restores a bucket by its fields, e.g. from a {@link RateSnapshot}.
+     */
+    TokenBucket(String key, long tokens, long updatedMillis, long fullMillis, boolean exceeded) {
+        this.key = key;
+        this.tokens = tokens;
+        this.updatedMillis = updatedMillis;
+        this.fullMillis = fullMillis;
+        this.exceeded = exceeded;
+    }
+
+    /**
+     * Refills the given bucket up to the given time and takes a token from it. If there is no token,
+     * the bucket is blocked by the block duration of the policy, unless it's blocked already.
+     *
+     * @param bucket     The current bucket, the null value means a full bucket.
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @param nowMillis  The current epoch millisecond.
+     * @return The next state of the bucket.
+     */
+    static TokenBucket consume(TokenBucket bucket, RatePolicy ratePolicy, long nowMillis) {
+        long unit = unit(ratePolicy);
+        long capacity = capacity(ratePolicy);
+
+        long tokens = capacity;
+        long updatedMillis = nowMillis;
+        if (bucket != null) {
+            tokens = Math.min(bucket.tokens, capacity);
+            updatedMillis = bucket.updatedMillis;
+            if (nowMillis > updatedMillis) {
+                long elapsed = nowMillis - updatedMillis;
+                tokens = (elapsed >= ceilDiv(capacity - tokens, ratePolicy.getCount()))
+                        ? capacity : tokens + elapsed * ratePolicy.getCount();
+                updatedMillis = nowMillis;
+            }
+        }
+
+        if (updatedMillis > nowMillis)
+            return new TokenBucket(ratePolicy, tokens, updatedMillis, true);
+
+        if (tokens >= unit)
+            return new TokenBucket(ratePolicy, tokens - unit, updatedMillis, false);
+
+        // A token is released by the end of the block, so the first call after the block is not a new violation.
+        if (ratePolicy.getBlockDuration() != null)
+            return new TokenBucket(ratePolicy, unit, nowMillis + ratePolicy.getBlockDuration().toMillis(), true);
+
+        return new TokenBucket(ratePolicy, tokens, updatedMillis, true);
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    long getTokens() {
+        return tokens;
+    }
+
+    long getUpdatedMillis() {
+        return updatedMillis;
+    }
+
+    boolean isExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Returns the epoch millisecond that the bucket would be full again.
+     */
+    @Override
+    public long getExpirationMillis() {
+        return fullMillis;
+    }
+
+    /**
+     * Converts the bucket to a {@link Rate}, its remaining value is the number of the whole tokens, or -1 if the
+     * last consumption is rejected. Its expiration is the time that a token would be available if the last consumption
+     * is rejected, else the time that the bucket would be full again.
+     */
+    @Override
+    public Rate toRate(RatePolicy ratePolicy) {
+        if (exceeded) {
+            long retryMillis = updatedMillis + ceilDiv(unit(ratePolicy) - tokens, ratePolicy.getCount());
+            return new Rate(key, Instant.ofEpochMilli(retryMillis), -1);
+        }
+
+        return new Rate(key, Instant.ofEpochMilli(fullMillis), (int) (tokens / unit(ratePolicy)));
+    }
+
+    /**
+     * Returns the scaled units of a token, that is the policy duration in milliseconds.
+     */
+    private static long unit(RatePolicy ratePolicy) {
+        return Math.max(1, ratePolicy.getDuration().toMillis());
+    }
+
+    private static long capacity(RatePolicy ratePolicy) {
+        return ratePolicy.getCapacity() * unit(ratePolicy);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend <= 0) ? 0 : (dividend + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,331 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An implementation of {@link RateLimiter} that gathers the consumptions of the concurrent requests and sends them
+ * to redis as a single pipeline of the {@link RedisScriptRateCache} script calls.
+ * <p>
+ * A single background thread takes the first waiting consumption, waits at most the {@link #windowNanos} for
+ * more consumptions or until {@link #maxSize} of them are waiting, sends them all in one pipeline and hands each
+ * requester its {@link Rate}. While a pipeline is in flight, the new consumptions are gathered for the next one,
+ * so the number of the round trips to redis does not grow with the number of concurrent requests.
+ *
+ * @author Prabakaran Kannan
+ */
+public class BatchingRedisScriptRateCache extends RedisScriptRateCache implements AutoCloseable {
+
+    /**
+     * The default max time that {@link #consume(RatePolicy)} waits for the batch of its consumption.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String NO_SCRIPT_ERROR = "NOSCRIPT";
+
+    /**
+     * Used to execute the pipelines on redis.
+     */
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * How long to wait for more consumptions before sending a batch, in nanoseconds.
+     */
+    private final long windowNanos;
+
+    /**
+     * The max number of consumptions in a batch.
+     */
+    private final int maxSize;
+
+    /**
+     * How long {@link #consume(RatePolicy)} waits for the batch of its consumption, in nanoseconds.
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The consumptions that are waiting to be sent.
+     */
+    private final BlockingQueue<PendingConsumption> queue = new LinkedBlockingQueue<>();
+
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    public BatchingRedisScriptRateCache(StringRedisTemplate redisTemplate, @Nonnull Duration window, int maxSize) {
+        this(redisTemplate, window, maxSize, false);
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     */
+    public BatchingRedisScriptRateCache(StringRedisTemplate redisTemplate, @Nonnull Duration window, int maxSize, boolean hashTag) {
+        this(redisTemplate, window, maxSize, hashTag, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     * @param clock   The time source of the windows.
+     */
+    public BatchingRedisScriptRateCache(StringRedisTemplate redisTemplate, @Nonnull Duration window, int maxSize, boolean hashTag,
+                                        @Nonnull RateLimitClock clock) {
+        this(redisTemplate, window, maxSize, hashTag, clock, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     * @param clock   The time source of the windows.
+     * @param timeout The max time that {@link #consume(RatePolicy)} waits for the batch of its consumption.
+     */
+    public BatchingRedisScriptRateCache(StringRedisTemplate redisTemplate, @Nonnull Duration window, int maxSize, boolean hashTag,
+                                        @Nonnull RateLimitClock clock, @Nonnull Duration timeout) {
+        super(redisTemplate, hashTag, clock);
+        if (maxSize < 1)
+            throw new IllegalArgumentException("The batch max size should be positive.");
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("The batch timeout should be positive.");
+
+        this.redisTemplate = redisTemplate;
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+        this.timeoutNanos = timeout.toNanos();
+        this.worker = new Thread(this::run, "rate-limit-redis-batch");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues the consumption of the given policy and waits until its batch is executed, at most the {@link #timeoutNanos}.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     * @throws QueryTimeoutException If the batch is not executed in time.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        try {
+            return enqueue(ratePolicy).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("The batch of the rate limit consumption is not executed in "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch of the rate limit consumption.", e);
+        }
+    }
+
+    /**
+     * Queues the consumption of the given policy without waiting for its batch, the returned stage is completed
+     * by the background thread, so its dependent actions should not block.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when its batch is executed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        return enqueue(ratePolicy);
+    }
+
+    /**
+     * Returns {@code false}, since the asynchronous consumptions are completed by the background thread of the batches.
+     */
+    @Override
+    public boolean isBlocking() {
+        return false;
+    }
+
+    /**
+     * Stops the background thread and fails the consumptions that are not sent yet.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+
+        PendingConsumption consumption;
+        while ((consumption = queue.poll()) != null) {
+            consumption.future.completeExceptionally(new IllegalStateException("The batching rate limiter is closed."));
+        }
+    }
+
+    /**
+     * Queues the consumption of the given policy, unless the limiter is closed or its background thread is stopped,
+     * so no consumption waits for a batch that would never be sent.
+     */
+    private CompletableFuture<Rate> enqueue(RatePolicy ratePolicy) {
+        if (closed)
+            throw new IllegalStateException("The batching rate limiter is closed.");
+        if (!worker.isAlive())
+            throw new IllegalStateException("The batch thread of the rate limiter is stopped.");
+
+        PendingConsumption consumption = new PendingConsumption(ratePolicy, key(ratePolicy), getClock().millis());
+        queue.offer(consumption);
+        if ((closed || !worker.isAlive()) && queue.remove(consumption))
+            throw new IllegalStateException("The batching rate limiter is closed.");
+
+        return consumption.future;
+    }
+
+    /**
+     * Sends the batches until the limiter is closed. A batch that fails by any throwable, even an {@link Error}, fails
+     * its consumptions and the next batches are still sent. If the thread stops anyway, the waiting consumptions fail.
+     */
+    private void run() {
+        try {
+            sendBatches();
+        } finally {
+            PendingConsumption consumption;
+            while ((consumption = queue.poll()) != null) {
+                consumption.future.completeExceptionally(new IllegalStateException("The batch thread of the rate limiter is stopped."));
+            }
+        }
+    }
+
+    private void sendBatches() {
+        List<PendingConsumption> batch = new ArrayList<>(maxSize);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxSize - batch.size());
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingConsumption next = (remaining > 0) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null)
+                        break;
+
+                    batch.add(next);
+                    queue.drainTo(batch, maxSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                if (!batch.isEmpty())
+                    execute(batch, true);
+            } catch (Throwable e) {
+                batch.forEach(consumption -> consumption.future.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Sends the given batch in one pipeline and completes each consumption by its result. If redis lost the scripts,
+     * loads them again and retries the consumptions that failed because of that once.
+     */
+    private void execute(List<PendingConsumption> batch, boolean retryOnNoScript) {
+        List<Object> results;
+        RedisPipelineException pipelineException = null;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (PendingConsumption consumption : batch) {
+                    connection.evalSha(script(consumption.ratePolicy).getSha1(), ReturnType.MULTI, 1, consumption.keysAndArgs());
+                }
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            pipelineException = e;
+            results = e.getPipelineResult();
+        } catch (RuntimeException e) {
+            batch.forEach(consumption -> consumption.future.completeExceptionally(e));
+            return;
+        }
+
+        List<PendingConsumption> noScript = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingConsumption consumption = batch.get(i);
+            Object result = (i < results.size()) ? results.get(i) : pipelineException;
+
+            if (result instanceof List) {
+                consumption.future.complete(toRate(consumption.ratePolicy, (List<?>) result));
+            } else if (retryOnNoScript && isNoScriptError(result)) {
+                noScript.add(consumption);
+            } else {
+                consumption.future.completeExceptionally((result instanceof Throwable) ? (Throwable) result
+                        : new IllegalStateException("Unexpected rate limit script result: " + result));
+            }
+        }
+
+        if (!noScript.isEmpty()) {
+            afterPropertiesSet();
+            execute(noScript, false);
+        }
+    }
+
+    private static boolean isNoScriptError(Object result) {
+        for (Throwable cause = (result instanceof Throwable) ? (Throwable) result : null; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(NO_SCRIPT_ERROR))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Encapsulates a consumption that is waiting for its batch.
+     */
+    private static final class PendingConsumption {
+
+        private final RatePolicy ratePolicy;
+
+        /**
+         * The redis key of the rate.
+         */
+        private final String key;
+
+        /**
+         * The time of the request, that is used as the current time of the script.
+         */
+        private final long nowMillis;
+
+        private final CompletableFuture<Rate> future = new CompletableFuture<>();
+
+        private PendingConsumption(RatePolicy ratePolicy, String key, long nowMillis) {
+            this.ratePolicy = ratePolicy;
+            this.key = key;
+            this.nowMillis = nowMillis;
+        }
+
+        private byte[][] keysAndArgs() {
+            String[] args = scriptArgs(ratePolicy, nowMillis);
+            byte[][] keysAndArgs = new byte[args.length + 1][];
+            keysAndArgs[0] = key.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < args.length; i++) {
+                keysAndArgs[i + 1] = args[i].getBytes(StandardCharsets.UTF_8);
+            }
+
+            return keysAndArgs;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of {@link RateLimiter} that leases a chunk of the permits of a {@link RateLimitAlgorithm#FIXED_WINDOW}
+ * rate from redis, and serves them from the memory of the node until they are used up or the window is over.
+ * <p>
+ * Each lease takes the {@link #leaseRatio} of the policy count, e.g. 5%, from the same redis hash that the
+ * {@link RedisScriptRateCache} fixed window script consumes, so the nodes that lease and the ones that do not
+ * share the same count. A hot key costs a round trip per lease instead of one per call, in exchange for a little
+ * imprecision: the permits that a node leased but does not use are not available to the other nodes in that window,
+ * and the remaining value of the rates is an estimate. A rejected lease is cached until its window is over, so the
+ * rejected requesters do not cost any round trip either.
+ * <p>
+ * The policies that their lease would be less than two permits, or that use the other algorithms, are consumed
+ * by the {@link RedisScriptRateCache} as usual. The unused permits of the current windows are returned to redis
+ * on {@link #close()}.
+ *
+ * @author Prabakaran Kannan
+ */
+public class LeasingRedisScriptRateCache extends RedisScriptRateCache implements AutoCloseable {
+
+    /**
+     * The default ratio of the policy count to lease at once.
+     */
+    public static final double DEFAULT_LEASE_RATIO = 0.05;
+
+    private static final Log log = LogFactory.getLog(LeasingRedisScriptRateCache.class);
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("lease.lua", RedisScriptRateCache.class), List.class);
+
+    static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("release.lua", RedisScriptRateCache.class), Long.class);
+
+    /**
+     * How often the leases of the windows that are over are reclaimed, in milliseconds.
+     */
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Used to execute the lease scripts on redis.
+     */
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * The ratio of the policy count to lease at once.
+     */
+    private final double leaseRatio;
+
+    /**
+     * The current lease of each rate key.
+     */
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Used to renew the lease of a key by one thread at a time, while the others wait for it.
+     */
+    private final Object[] locks = new Object[64];
+
+    /**
+     * The epoch millisecond that the leases of the windows that are over would be reclaimed again.
+     */
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    public LeasingRedisScriptRateCache(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, DEFAULT_LEASE_RATIO);
+    }
+
+    /**
+     * @param leaseRatio The ratio of the policy count to lease at once, e.g. {@code 0.05} for 5% of it.
+     */
+    public LeasingRedisScriptRateCache(StringRedisTemplate redisTemplate, double leaseRatio) {
+        this(redisTemplate, leaseRatio, false);
+    }
+
+    /**
+     * @param leaseRatio The ratio of the policy count to lease at once.
+     * @param hashTag    Whether the rate keys should be hash-tagged by the policy key.
+     */
+    public LeasingRedisScriptRateCache(StringRedisTemplate redisTemplate, double leaseRatio, boolean hashTag) {
+        this(redisTemplate, leaseRatio, hashTag, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param leaseRatio The ratio of the policy count to lease at once.
+     * @param hashTag    Whether the rate keys should be hash-tagged by the policy key.
+     * @param clock      The time source of the windows and the lease expirations.
+     */
+    public LeasingRedisScriptRateCache(StringRedisTemplate redisTemplate, double leaseRatio, boolean hashTag, @Nonnull RateLimitClock clock) {
+        super(redisTemplate, hashTag, clock);
+        if (!(leaseRatio > 0 && leaseRatio <= 1))
+            throw new IllegalArgumentException("The lease ratio should be in (0, 1].");
+
+        this.redisTemplate = redisTemplate;
+        this.leaseRatio = leaseRatio;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Takes a permit from the current lease of the rate key, if the lease is used up or its window is over,
+     * leases the next permits from redis.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        int leaseSize = leaseSize(ratePolicy);
+        if (leaseSize < 2)
+            return super.consume(ratePolicy);
+
+        String key = key(ratePolicy);
+        long now = getClock().millis();
+        Rate rate = take(leases.get(key), ratePolicy, now);
+        if (rate != null)
+            return rate;
+
+        sweep(now);
+        synchronized (locks[(key.hashCode() & 0x7fffffff) % locks.length]) {
+            now = getClock().millis();
+            rate = take(leases.get(key), ratePolicy, now);
+            if (rate != null)
+                return rate;
+
+            Lease lease = lease(key, ratePolicy, leaseSize, now);
+            leases.put(key, lease);
+            rate = take(lease, ratePolicy, now);
+        }
+
+        return (rate != null) ? rate : super.consume(ratePolicy);
+    }
+
+    /**
+     * Consumes the leased policies on the calling thread, since they are served from the memory mostly,
+     * and the other ones by the {@link RedisScriptRateCache}. A new lease is taken from redis on the calling thread,
+     * so it's {@link #isBlocking() blocking}.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when it's consumed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        if (leaseSize(ratePolicy) < 2)
+            return super.consumeAsync(ratePolicy);
+
+        CompletableFuture<Rate> rate = new CompletableFuture<>();
+        try {
+            rate.complete(consume(ratePolicy));
+        } catch (RuntimeException e) {
+            rate.completeExceptionally(e);
+        }
+
+        return rate;
+    }
+
+    /**
+     * Returns {@code true}, since the {@link #consumeAsync(RatePolicy)} takes the new leases from redis on the calling
+     * thread, whether the connection is reactive or not.
+     */
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+
+    /**
+     * Returns the unused permits of the leases to redis, if their windows are not over yet.
+     */
+    @Override
+    public void close() {
+        long now = getClock().millis();
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            int unused = lease.permits.getAndSet(0);
+            if (unused <= 0 || lease.rejected || now > lease.expiration)
+                continue;
+
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(entry.getKey()),
+                        String.valueOf(lease.expiration), String.valueOf(unused));
+            } catch (DataAccessException e) {
+                log.warn("Could not return the unused rate limit permits of " + entry.getKey() + " to redis.", e);
+            }
+        }
+        leases.clear();
+    }
+
+    /**
+     * Returns the number of the rate keys that their leases are kept in the memory.
+     *
+     * @return The number of the leases.
+     */
+    public int size() {
+        return leases.size();
+    }
+
+    /**
+     * Returns the number of the permits to lease at once for the given policy, zero if it could not be leased.
+     */
+    int leaseSize(RatePolicy ratePolicy) {
+        if (ratePolicy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+            return 0;
+
+        return (int) (ratePolicy.getCount() * leaseRatio);
+    }
+
+    private Lease lease(String key, RatePolicy ratePolicy, int leaseSize, long now) {
+        String[] args = Arrays.copyOf(scriptArgs(ratePolicy, now), 5);
+        args[4] = String.valueOf(leaseSize);
+
+        List<?> result = redisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(key), (Object[]) args);
+        return new Lease(
+                ((Number) result.get(0)).intValue(),
+                ((Number) result.get(1)).intValue(),
+                ((Number) result.get(2)).longValue());
+    }
+
+    /**
+     * Takes a permit from the given lease.
+     *
+     * @return The rate of the taken permit, or the rejected rate if the lease is rejected,
+     * or {@code null} if the lease should be renewed.
+     */
+    private static Rate take(Lease lease, RatePolicy ratePolicy, long now) {
+        if (lease == null || now > lease.expiration)
+            return null;
+
+        if (lease.rejected)
+            return new Rate(ratePolicy.getKey(), Instant.ofEpochMilli(lease.expiration), -1);
+
+        int permits;
+        do {
+            permits = lease.permits.get();
+            if (permits <= 0)
+                return null;
+        } while (!lease.permits.compareAndSet(permits, permits - 1));
+
+        return new Rate(ratePolicy.getKey(), Instant.ofEpochMilli(lease.expiration), permits - 1 + lease.remaining);
+    }
+
+    /**
+     * Removes the leases that their windows are over, at most once per {@link #SWEEP_INTERVAL_MILLIS}, so the keys
+     * that never come back do not stay in the memory.
+     */
+    private void sweep(long now) {
+        long next = nextSweepMillis.get();
+        if (now < next || !nextSweepMillis.compareAndSet(next, now + SWEEP_INTERVAL_MILLIS))
+            return;
+
+        leases.values().removeIf(lease -> now > lease.expiration);
+    }
+
+    /**
+     * The permits of a rate key that are leased from redis for a window.
+     */
+    private static final class Lease {
+
+        /**
+         * The leased permits that are not taken yet.
+         */
+        private final AtomicInteger permits;
+
+        /**
+         * The remaining value of the rate in redis, right after the lease.
+         */
+        private final int remaining;
+
+        /**
+         * Represents the rate is exceeded in redis, so the lease is rejected until its expiration.
+         */
+        private final boolean rejected;
+
+        /**
+         * The expiration epoch millisecond of the rate window.
+         */
+        private final long expiration;
+
+        private Lease(int permits, int remaining, long expiration) {
+            this.permits = new AtomicInteger(permits);
+            this.remaining = Math.max(0, remaining);
+            this.rejected = permits == 0 && remaining < 0;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.prabakarankannan.ratelimit.repositories.redis;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.TimeToLive;
 
@@ -31,9 +32,17 @@ public class RateHash {
     @TimeToLive
     private Long ttl;
 
+    @PersistenceConstructor
     public RateHash(@Nonnull String key, @Nonnull Instant expiration, @Nonnull Integer remaining) {
+        this(key, expiration, remaining, System.currentTimeMillis());
+    }
+
+    /**
+     * @param nowMillis The current time in milliseconds since the epoch, that the time to live is computed from.
+     */
+    public RateHash(@Nonnull String key, @Nonnull Instant expiration, @Nonnull Integer remaining, long nowMillis) {
         this.key = key;
-        setExpiration(expiration);
+        setExpiration(expiration, nowMillis);
         this.remaining = remaining;
     }
 
@@ -54,8 +63,19 @@ public class RateHash {
     }
 
     public void setExpiration(Instant expiration) {
+        setExpiration(expiration, System.currentTimeMillis());
+    }
+
+    /**
+     * Sets the expiration and the time to live by it. The redis repositories expire the hashes in whole seconds, so the
+     * time to live is rounded up to at least a second, and the sub-second part is kept only by the {@link #expiration}.
+     *
+     * @param expiration The expiration time of the rate limit.
+     * @param nowMillis  The current time in milliseconds since the epoch.
+     */
+    public void setExpiration(Instant expiration, long nowMillis) {
         this.expiration = expiration;
-        this.setTtl(expiration.getEpochSecond() - Instant.now().getEpochSecond());
+        this.setTtl(Math.max(1, (expiration.toEpochMilli() - nowMillis + 999) / 1000));
     }
 
     public void setTtl(Long ttl) {
@@ -0,0 +1,85 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An implementation of {@link ReactiveRateLimiter} to cache the rate limit data in redis by the server side Lua scripts
+ * of the {@link RedisScriptRateCache}, on a reactive redis connection.
+ * <p>
+ * The scripts are sent by a non-blocking {@code EVALSHA} call, so consuming a rate never blocks the event loop
+ * threads and the concurrent consumptions share the same connection.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ReactiveRedisScriptRateCache implements ReactiveRateLimiter {
+
+    /**
+     * Used to execute the script on redis.
+     */
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    /**
+     * Represents the rate keys are hash-tagged by the policy key, the same as the {@link RedisScriptRateCache} keys.
+     */
+    private final boolean hashTag;
+
+    /**
+     * The time source of the windows that the scripts are called by.
+     */
+    private final RateLimitClock clock;
+
+    @Autowired
+    public ReactiveRedisScriptRateCache(ReactiveStringRedisTemplate redisTemplate) {
+        this(redisTemplate, false);
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     */
+    public ReactiveRedisScriptRateCache(ReactiveStringRedisTemplate redisTemplate, boolean hashTag) {
+        this(redisTemplate, hashTag, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     * @param clock   The time source of the windows.
+     */
+    public ReactiveRedisScriptRateCache(ReactiveStringRedisTemplate redisTemplate, boolean hashTag, @Nonnull RateLimitClock clock) {
+        this.redisTemplate = redisTemplate;
+        this.hashTag = hashTag;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the script of the policy algorithm on redis, the same script as the {@link RedisScriptRateCache} runs.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, emitted when the script is executed.
+     */
+    @Override
+    public Mono<Rate> consume(@Nonnull RatePolicy ratePolicy) {
+        return Mono.defer(() -> {
+            List<String> args = Arrays.asList(RedisScriptRateCache.scriptArgs(ratePolicy, clock.millis()));
+
+            return redisTemplate.execute(
+                    RedisScriptRateCache.script(ratePolicy),
+                    Collections.singletonList(RedisScriptRateCache.key(ratePolicy, hashTag)),
+                    args)
+                    .next()
+                    .map(result -> RedisScriptRateCache.toRate(ratePolicy, result));
+        });
+    }
+}
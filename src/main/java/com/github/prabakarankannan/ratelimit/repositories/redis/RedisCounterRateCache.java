@@ -0,0 +1,118 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An implementation of {@link RateLimiter} to cache the {@link RateLimitAlgorithm#FIXED_WINDOW} rates in redis
+ * by a plain integer counter key per rate key, e.g. {@code rate-limit:counter:<key>}.
+ * <p>
+ * Unlike the {@link RedisRateCache}, which saves a {@link RateHash} of several fields, a secondary {@code rates} index
+ * set and a phantom key by each write, a call is counted by a single {@code INCR} in a server side Lua script,
+ * and the end of the window or the block is set by {@code PEXPIREAT}, so redis reclaims the counters by itself
+ * and nothing else is kept.
+ * <p>
+ * If the migration is enabled, a rate that has no counter yet is seeded by its {@link RateHash}, which is deleted
+ * with its phantom key and its index set member, so the rates of the {@link RedisRateCache} are moved to the counters
+ * lazily, without losing their current windows.
+ *
+ * @author Prabakaran Kannan
+ */
+public class RedisCounterRateCache implements RateLimiter {
+
+    /**
+     * The prefix of the counter keys in redis.
+     */
+    public static final String COUNTER_KEY_PREFIX = RedisScriptRateCache.KEY_PREFIX + "counter:";
+
+    /**
+     * The keyspace of the {@link RateHash}es, that is the name of their index set too.
+     */
+    static final String RATE_HASH_KEYSPACE = "rates";
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> COUNTER_SCRIPT =
+            RedisScript.of(new ClassPathResource("counter.lua", RedisScriptRateCache.class), List.class);
+
+    /**
+     * Used to execute the script on redis.
+     */
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Represents the {@link RateHash}es should be migrated to the counters.
+     */
+    private final boolean migrate;
+
+    /**
+     * The time source of the windows that the script is called by.
+     */
+    private final RateLimitClock clock;
+
+    public RedisCounterRateCache(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, false);
+    }
+
+    /**
+     * @param migrate Whether the rates of the {@link RedisRateCache} should be migrated to the counters
+     *                by their first consumption.
+     */
+    public RedisCounterRateCache(StringRedisTemplate redisTemplate, boolean migrate) {
+        this(redisTemplate, migrate, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param migrate Whether the rates of the {@link RedisRateCache} should be migrated to the counters
+     *                by their first consumption.
+     * @param clock   The time source of the windows.
+     */
+    public RedisCounterRateCache(StringRedisTemplate redisTemplate, boolean migrate, @Nonnull RateLimitClock clock) {
+        this.redisTemplate = redisTemplate;
+        this.migrate = migrate;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts the call by the counter of the rate key, a new window is started if the counter does not exist.
+     * The counter of an exceeded rate is not increased anymore, and it's expired by the block duration if it's set.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     * @throws IllegalArgumentException If the policy algorithm is not the {@link RateLimitAlgorithm#FIXED_WINDOW}.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        if (ratePolicy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+            throw new IllegalArgumentException("The redis counter rate cache does not support the " + ratePolicy.getAlgorithm() + " algorithm.");
+
+        String counterKey = COUNTER_KEY_PREFIX + ratePolicy.getKey();
+        String[] args = RedisScriptRateCache.scriptArgs(ratePolicy, clock.millis());
+
+        List<?> result;
+        if (migrate) {
+            String rateHashKey = RATE_HASH_KEYSPACE + ':' + ratePolicy.getKey();
+            String[] migrationArgs = Arrays.copyOf(args, args.length + 1);
+            migrationArgs[args.length] = ratePolicy.getKey();
+
+            result = redisTemplate.execute(COUNTER_SCRIPT,
+                    Arrays.asList(counterKey, rateHashKey, rateHashKey + ":phantom", RATE_HASH_KEYSPACE),
+                    (Object[]) migrationArgs);
+        } else {
+            result = redisTemplate.execute(COUNTER_SCRIPT, Collections.singletonList(counterKey), (Object[]) args);
+        }
+
+        return RedisScriptRateCache.toRate(ratePolicy, result);
+    }
+}
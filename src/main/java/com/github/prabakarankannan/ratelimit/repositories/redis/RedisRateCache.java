@@ -1,54 +1,85 @@
 package com.github.prabakarankannan.ratelimit.repositories.redis;
 
-import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
 import com.github.prabakarankannan.ratelimit.RateLimiter;
 import com.github.prabakarankannan.ratelimit.RatePolicy;
 
 import javax.annotation.Nonnull;
-import java.lang.ref.WeakReference;
 import java.time.Instant;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentMap;
-
-import static org.springframework.util.ConcurrentReferenceHashMap.ReferenceType.WEAK;
 
 /**
  * An implementation of {@link RateLimiter} to cache the rate limit data in redis.
+ * <p>
+ * It supports only the {@link RateLimitAlgorithm#FIXED_WINDOW}, the other algorithms are supported
+ * by the {@link RedisScriptRateCache}.
+ * <p>
+ * The windows and the block durations are computed in milliseconds by a {@link RateLimitClock}. Redis expires the
+ * {@link RateHash}es in whole seconds, so a hash that outlives its window is replaced by a new window on reading.
  *
  * @author Prabakaran Kannan
  */
 public class RedisRateCache implements RateLimiter {
 
-    private final ConcurrentMap<WeakReference<String>, WeakReference<String>> lockMap = new ConcurrentReferenceHashMap<>(10, WEAK);
+    /**
+     * The number of the {@link #locks}, a power of two.
+     */
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * Serializes the consumptions of the same key, each key is guarded by the lock of its hash stripe.
+     */
+    private final Object[] locks = new Object[LOCK_STRIPES];
 
     /**
      * Used to persist and retrieve from to redis.
      */
     private final RedisRepository redisRepository;
 
+    /**
+     * The time source of the windows and the expirations.
+     */
+    private final RateLimitClock clock;
+
+    @Autowired
     public RedisRateCache(RedisRepository redisRepository) {
+        this(redisRepository, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param clock The time source of the windows and the expirations.
+     */
+    public RedisRateCache(RedisRepository redisRepository, @Nonnull RateLimitClock clock) {
         this.redisRepository = redisRepository;
+        this.clock = clock;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
     }
 
     /**
-     * Finds the rate record from Redis by the given {@code key}, if does not exists then creates a new record
+     * Finds the rate record from Redis by the given {@code key}, if does not exists or expired then creates a new record
      * else checks the rate remaining value is greater than 0, decrease rate`s remaining and update item.
      *
      * @param ratePolicy Encapsulates the rate limit policy details.
      * @return Encapsulated rate details.
+     * @throws IllegalArgumentException If the policy algorithm is not the {@link RateLimitAlgorithm#FIXED_WINDOW}.
      */
     @Override
     public Rate consume(@Nonnull RatePolicy ratePolicy) {
-        WeakReference<String> weakValue = new WeakReference<>(ratePolicy.getKey());
-        lockMap.put(weakValue, weakValue);
+        if (ratePolicy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+            throw new IllegalArgumentException("The redis rate cache does not support the " + ratePolicy.getAlgorithm() + " algorithm.");
 
-        synchronized (lockMap.get(weakValue)) {
+        synchronized (lock(ratePolicy.getKey())) {
+            long nowMillis = clock.millis();
             Optional<RateHash> optionalRate = redisRepository.findById(ratePolicy.getKey());
 
             if (!optionalRate.isPresent()) {
-                return createRateForFirstTime(ratePolicy);
+                return createRateForFirstTime(ratePolicy, nowMillis);
             }
 
             RateHash rateHash = optionalRate.get();
@@ -58,13 +89,17 @@ public class RedisRateCache implements RateLimiter {
                     rateHash.getRemaining()
             );
 
+            if (rate.isExpired(nowMillis)) {
+                return createRateForFirstTime(ratePolicy, nowMillis);
+            }
+
             if (!rate.isExceed()) {
                 rate.decrease();
                 rateHash.setRemaining(rate.getRemaining());
 
                 if (rate.isExceed() && ratePolicy.getBlockDuration() != null) {
-                    final Instant blockedExpiration = Instant.now().plusSeconds(ratePolicy.getBlockDuration().getSeconds());
-                    rateHash.setExpiration(blockedExpiration);
+                    final Instant blockedExpiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getBlockDuration().toMillis());
+                    rateHash.setExpiration(blockedExpiration, nowMillis);
                 }
 
                 redisRepository.save(rateHash);
@@ -74,9 +109,14 @@ public class RedisRateCache implements RateLimiter {
         }
     }
 
-    private Rate createRateForFirstTime(RatePolicy ratePolicy) {
-        Instant expiration = Instant.now().plusSeconds(ratePolicy.getDuration().getSeconds());
-        RateHash rateHash = new RateHash(ratePolicy.getKey(), expiration, ratePolicy.getCount() - 1);
+    private Object lock(String key) {
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private Rate createRateForFirstTime(RatePolicy ratePolicy, long nowMillis) {
+        Instant expiration = Instant.ofEpochMilli(nowMillis + ratePolicy.getDuration().toMillis());
+        RateHash rateHash = new RateHash(ratePolicy.getKey(), expiration, ratePolicy.getCount() - 1, nowMillis);
         redisRepository.save(rateHash);
 
         return new Rate(ratePolicy.getKey(), expiration, rateHash.getRemaining());
@@ -0,0 +1,273 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An implementation of {@link RateLimiter} to cache the rate limit data in redis by a server side Lua script.
+ * <p>
+ * Unlike {@link RedisRateCache}, the whole read, decrease, expiration and blocking logic runs atomically
+ * in redis by a single {@code EVALSHA} call, so consuming a rate costs one network round trip and the
+ * counts are correct even when many application nodes share the same redis.
+ * <p>
+ * Each {@link RateLimitAlgorithm} has its own script and its own key prefix, so the policies of different
+ * algorithms never share a key.
+ * <p>
+ * If the connection factory is reactive, e.g. Lettuce, the {@link #consumeAsync(RatePolicy)} sends the script
+ * on the reactive connection, so the calling thread does not wait for the round trip.
+ *
+ * @author Prabakaran Kannan
+ */
+public class RedisScriptRateCache implements RateLimiter, InitializingBean {
+
+    /**
+     * The prefix of the rate keys in redis.
+     */
+    public static final String KEY_PREFIX = "rate-limit:";
+
+    /**
+     * The prefix of the token bucket keys in redis.
+     */
+    public static final String TOKEN_BUCKET_KEY_PREFIX = KEY_PREFIX + "token-bucket:";
+
+    /**
+     * The prefix of the sliding window keys in redis.
+     */
+    public static final String SLIDING_WINDOW_KEY_PREFIX = KEY_PREFIX + "sliding-window:";
+
+    /**
+     * The prefix of the GCRA theoretical arrival time keys in redis.
+     */
+    public static final String GCRA_KEY_PREFIX = KEY_PREFIX + "gcra:";
+
+    private static final Log log = LogFactory.getLog(RedisScriptRateCache.class);
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> FIXED_WINDOW_SCRIPT =
+            RedisScript.of(new ClassPathResource("fixed_window.lua", RedisScriptRateCache.class), List.class);
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("token_bucket.lua", RedisScriptRateCache.class), List.class);
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> SLIDING_WINDOW_SCRIPT =
+            RedisScript.of(new ClassPathResource("sliding_window.lua", RedisScriptRateCache.class), List.class);
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> GCRA_SCRIPT =
+            RedisScript.of(new ClassPathResource("gcra.lua", RedisScriptRateCache.class), List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final List<RedisScript<List>> SCRIPTS =
+            Arrays.asList(FIXED_WINDOW_SCRIPT, TOKEN_BUCKET_SCRIPT, SLIDING_WINDOW_SCRIPT, GCRA_SCRIPT);
+
+    /**
+     * Used to execute the script on redis.
+     */
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Used to consume the rates asynchronously, it's {@code null} if the connection factory is not reactive.
+     */
+    private final ReactiveRedisScriptRateCache reactiveRateCache;
+
+    /**
+     * Represents the rate keys are hash-tagged by the policy key, see {@link #key(RatePolicy, boolean)}.
+     */
+    private final boolean hashTag;
+
+    /**
+     * The time source of the windows that the scripts are called by.
+     */
+    private final RateLimitClock clock;
+
+    @Autowired
+    public RedisScriptRateCache(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, false);
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key, so all of the keys of a requester
+     *                are kept in the same slot of a redis cluster.
+     */
+    public RedisScriptRateCache(StringRedisTemplate redisTemplate, boolean hashTag) {
+        this(redisTemplate, hashTag, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param hashTag Whether the rate keys should be hash-tagged by the policy key.
+     * @param clock   The time source of the windows, the nodes that share a redis should have the same time.
+     */
+    public RedisScriptRateCache(StringRedisTemplate redisTemplate, boolean hashTag, @Nonnull RateLimitClock clock) {
+        this.redisTemplate = redisTemplate;
+        this.hashTag = hashTag;
+        this.clock = clock;
+
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        this.reactiveRateCache = (connectionFactory instanceof ReactiveRedisConnectionFactory)
+                ? new ReactiveRedisScriptRateCache(new ReactiveStringRedisTemplate((ReactiveRedisConnectionFactory) connectionFactory), hashTag, clock)
+                : null;
+    }
+
+    /**
+     * Loads the scripts into the redis script cache, so the first consumption does not need to send the script body.
+     * If redis is not reachable yet, the scripts would be loaded by the first consumptions.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : SCRIPTS) {
+                    connection.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not load the rate limit scripts into redis, they would be loaded by the first consumptions.", e);
+        }
+    }
+
+    /**
+     * Runs the script of the policy algorithm on redis. The fixed window script creates a new rate if it does not exist
+     * or expired, else if the rate remaining value is not exceeded, decreases the remaining value and blocks it if needed.
+     * The token bucket script refills the bucket by the time passed since its update and takes a token from it.
+     * The sliding window script counts the call if the estimated count of the sliding window is not exceeded.
+     * The GCRA script moves the theoretical arrival time forward by a single {@code SET ... PX} if the call conforms.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        List<?> result = redisTemplate.execute(
+                script(ratePolicy),
+                Collections.singletonList(key(ratePolicy)),
+                (Object[]) scriptArgs(ratePolicy, clock.millis()));
+
+        return toRate(ratePolicy, result);
+    }
+
+    /**
+     * Runs the script of the policy algorithm on the reactive connection, if the connection factory is reactive,
+     * else on the calling thread.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details, completed when the script is executed.
+     */
+    @Override
+    public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+        if (reactiveRateCache == null)
+            return RateLimiter.super.consumeAsync(ratePolicy);
+
+        return reactiveRateCache.consume(ratePolicy).toFuture();
+    }
+
+    /**
+     * Returns whether the {@link #consumeAsync(RatePolicy)} blocks the calling thread, that is the connection factory
+     * is not reactive.
+     *
+     * @return {@code true} if the asynchronous consumptions run on the calling thread.
+     */
+    public boolean isBlocking() {
+        return reactiveRateCache == null;
+    }
+
+    /**
+     * Returns the script of the given policy algorithm.
+     */
+    @SuppressWarnings("rawtypes")
+    static RedisScript<List> script(RatePolicy ratePolicy) {
+        switch (ratePolicy.getAlgorithm()) {
+            case TOKEN_BUCKET:
+                return TOKEN_BUCKET_SCRIPT;
+            case SLIDING_WINDOW:
+                return SLIDING_WINDOW_SCRIPT;
+            case GCRA:
+                return GCRA_SCRIPT;
+            default:
+                return FIXED_WINDOW_SCRIPT;
+        }
+    }
+
+    /**
+     * Returns the redis key of the given policy by the hash tag option of this cache.
+     */
+    String key(RatePolicy ratePolicy) {
+        return key(ratePolicy, hashTag);
+    }
+
+    /**
+     * Returns the time source of the windows of this cache.
+     */
+    RateLimitClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns the redis key of the given policy. If it's hash-tagged, the policy key is wrapped in braces,
+     * e.g. {@code rate-limit:{key}}, so redis cluster hashes only the policy key, and the keys of all of the algorithms
+     * of a requester are kept in the same slot.
+     */
+    static String key(RatePolicy ratePolicy, boolean hashTag) {
+        String key = hashTag ? '{' + ratePolicy.getKey() + '}' : ratePolicy.getKey();
+        switch (ratePolicy.getAlgorithm()) {
+            case TOKEN_BUCKET:
+                return TOKEN_BUCKET_KEY_PREFIX + key;
+            case SLIDING_WINDOW:
+                return SLIDING_WINDOW_KEY_PREFIX + key;
+            case GCRA:
+                return GCRA_KEY_PREFIX + key;
+            default:
+                return KEY_PREFIX + key;
+        }
+    }
+
+    /**
+     * Returns the arguments of the script for the given policy, the same arguments are passed to all of the scripts.
+     */
+    static String[] scriptArgs(RatePolicy ratePolicy, long nowMillis) {
+        return new String[]{
+                String.valueOf(nowMillis),
+                String.valueOf(Math.max(1, ratePolicy.getDuration().toMillis())),
+                String.valueOf(ratePolicy.getCount()),
+                String.valueOf(ratePolicy.getBlockDuration() != null ? ratePolicy.getBlockDuration().toMillis() : 0),
+                String.valueOf(ratePolicy.getCapacity())
+        };
+    }
+
+    /**
+     * Converts the script result, the remaining value and the expiration, to a {@link Rate}.
+     */
+    static Rate toRate(RatePolicy ratePolicy, List<?> result) {
+        return new Rate(
+                ratePolicy.getKey(),
+                Instant.ofEpochMilli(((Number) result.get(1)).longValue()),
+                ((Number) result.get(0)).intValue());
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.prabakarankannan.ratelimit.repositories.replicated;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes and decodes the datagrams of the counter deltas that the {@link ReplicatedRateCache} nodes exchange.
+ * <p>
+ * A datagram is a header of the magic number, the sender node id and the number of the deltas, followed by the deltas,
+ * each one is the UTF-8 key length and bytes, the window start, the window duration and the sender count of the window,
+ * so a datagram is at most {@link #MAX_DATAGRAM_SIZE} bytes and it fits the usual MTU without fragmentation.
+ *
+ * @author Prabakaran Kannan
+ */
+final class CounterDeltas {
+
+    /**
+     * The max size of a datagram.
+     */
+    static final int MAX_DATAGRAM_SIZE = 1400;
+
+    /**
+     * Marks the datagrams of this format, the other datagrams are ignored.
+     */
+    static final int MAGIC = 0x524C5231;
+
+    /**
+     * The magic number, the node id and the number of the deltas.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Short.BYTES;
+
+    /**
+     * The key length, the window start, the window duration and the count.
+     */
+    private static final int DELTA_FIXED_SIZE = Short.BYTES + 3 * Long.BYTES;
+
+    private CounterDeltas() {
+    }
+
+    /**
+     * Encodes the given deltas of a node into as few datagrams as possible. The deltas that their keys would not fit
+     * a datagram are skipped.
+     *
+     * @return The datagrams, ready to be sent.
+     */
+    static List<ByteBuffer> encode(long nodeId, List<Delta> deltas) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        ByteBuffer datagram = null;
+        short size = 0;
+        for (Delta delta : deltas) {
+            byte[] key = delta.key.getBytes(StandardCharsets.UTF_8);
+            int deltaSize = DELTA_FIXED_SIZE + key.length;
+            if (HEADER_SIZE + deltaSize > MAX_DATAGRAM_SIZE)
+                continue;
+
+            if (datagram == null || datagram.remaining() < deltaSize || size == Short.MAX_VALUE) {
+                if (datagram != null)
+                    datagrams.add(finish(datagram, size));
+
+                datagram = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+                datagram.putInt(MAGIC).putLong(nodeId).putShort((short) 0);
+                size = 0;
+            }
+
+            datagram.putShort((short) key.length).put(key)
+                    .putLong(delta.windowStart)
+                    .putLong(delta.durationMillis)
+                    .putLong(delta.count);
+            size++;
+        }
+
+        if (datagram != null)
+            datagrams.add(finish(datagram, size));
+
+        return datagrams;
+    }
+
+    /**
+     * Decodes the given datagram.
+     *
+     * @return The sender node id and its deltas, or {@code null} if it's not a datagram of this format or it's truncated.
+     */
+    static Datagram decode(ByteBuffer datagram) {
+        try {
+            if (datagram.getInt() != MAGIC)
+                return null;
+
+            long nodeId = datagram.getLong();
+            int size = datagram.getShort();
+            List<Delta> deltas = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                byte[] key = new byte[datagram.getShort() & 0xFFFF];
+                datagram.get(key);
+                deltas.add(new Delta(new String(key, StandardCharsets.UTF_8), datagram.getLong(), datagram.getLong(), datagram.getLong()));
+            }
+
+            return new Datagram(nodeId, deltas);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer finish(ByteBuffer datagram, short size) {
+        datagram.putShort(Integer.BYTES + Long.BYTES, size);
+        datagram.flip();
+        return datagram;
+    }
+
+    /**
+     * The count of a key in a window by a node. It's the whole count of the node, not its increase since the last
+     * delta, so applying it again or out of order is harmless.
+     */
+    static final class Delta {
+
+        final String key;
+
+        final long windowStart;
+
+        final long durationMillis;
+
+        final long count;
+
+        Delta(String key, long windowStart, long durationMillis, long count) {
+            this.key = key;
+            this.windowStart = windowStart;
+            this.durationMillis = durationMillis;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The deltas of a datagram by its sender node.
+     */
+    static final class Datagram {
+
+        final long nodeId;
+
+        final List<Delta> deltas;
+
+        Datagram(long nodeId, List<Delta> deltas) {
+            this.nodeId = nodeId;
+            this.deltas = deltas;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.github.prabakarankannan.ratelimit.repositories.replicated;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of {@link RateLimiter} to cache the rate limit data in memory, replicated between the nodes of
+ * an application without a shared storage. Unlike the {@link InMemoryRateCache}, which enforces a policy per node,
+ * a policy is enforced approximately over all of the nodes.
+ * <p>
+ * Each key has a grow-only counter per node in the current window, the same as a G-Counter CRDT: a node increases only
+ * its own counter, and the count of the key is the sum of the counters of all of the nodes. Every {@link #getInterval()
+ * interval}, each node sends the counters that it increased since the last time to its peers by UDP datagrams, and
+ * a node merges a received counter by keeping the max of it and the one it has. Since the counters never decrease in
+ * a window, the datagrams could be lost, duplicated or reordered, and the next one of the key heals them. The datagrams
+ * that are not sent from the address of a peer are dropped. It's a best-effort filter, not an authentication: the source
+ * address of a UDP datagram could be spoofed, so the replication port should be reachable only from a trusted network.
+ * <p>
+ * The rates are consumed by the local counters only, so consuming a rate never waits for the network. The nodes could
+ * allow up to the calls of an interval on each node over the policy count, before they know the counts of each other.
+ * <p>
+ * The windows are aligned to the multiples of the policy duration since the epoch, so all of the nodes agree on the
+ * window of a call, as long as their clocks are close. It supports only the {@link RateLimitAlgorithm#FIXED_WINDOW}
+ * algorithm, and the blocks are not replicated, each node blocks a key when it sees it exceeded.
+ *
+ * @author Prabakaran Kannan
+ */
+public class ReplicatedRateCache implements RateLimiter, AutoCloseable {
+
+    /**
+     * The default interval of sending the counters to the peers.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * The interval of removing the expired counters.
+     */
+    static final long SWEEP_INTERVAL_MILLIS = 1_000;
+
+    private static final Log log = LogFactory.getLog(ReplicatedRateCache.class);
+
+    /**
+     * The id of this node in the counters of the other nodes, random per instance.
+     */
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * The keys that their local counters are increased since they're sent to the peers.
+     */
+    private final Set<String> changedKeys = ConcurrentHashMap.newKeySet();
+
+    private final DatagramChannel channel;
+
+    private final Duration interval;
+
+    /**
+     * The time source of the windows, it should be close to the clocks of the peers.
+     */
+    private final RateLimitClock clock;
+
+    /**
+     * Sends the changed counters and removes the expired ones.
+     */
+    private final ScheduledExecutorService replicator;
+
+    /**
+     * Receives the counters of the peers.
+     */
+    private final Thread receiver;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private volatile List<InetSocketAddress> peers;
+
+    private long nextSweepMillis;
+
+    /**
+     * @param bindAddress The address that the counters of the peers are received on.
+     * @param peers       The addresses of the other nodes.
+     */
+    public ReplicatedRateCache(@Nonnull InetSocketAddress bindAddress, @Nonnull Collection<InetSocketAddress> peers) {
+        this(bindAddress, peers, DEFAULT_INTERVAL, RateLimitClock.monotonic());
+    }
+
+    /**
+     * @param bindAddress The address that the counters of the peers are received on, the port could be {@code 0}.
+     * @param peers       The addresses of the other nodes, the address of this node is ignored if it's included.
+     * @param interval    The interval of sending the counters to the peers.
+     * @param clock       The time source of the windows, it should be close to the clocks of the peers.
+     */
+    public ReplicatedRateCache(@Nonnull InetSocketAddress bindAddress,
+                               @Nonnull Collection<InetSocketAddress> peers,
+                               @Nonnull Duration interval,
+                               @Nonnull RateLimitClock clock) {
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("The interval should be positive.");
+
+        this.interval = interval;
+        this.clock = clock;
+        this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+        this.nextSweepMillis = clock.millis() + SWEEP_INTERVAL_MILLIS;
+
+        try {
+            this.channel = DatagramChannel.open().bind(bindAddress);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not bind the rate limit replication to " + bindAddress + ".", e);
+        }
+
+        this.receiver = new Thread(this::receive, "rate-limit-replication-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+
+        long intervalMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(interval.toNanos()));
+        this.replicator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.replicator.scheduleAtFixedRate(this::replicate, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Consumes the rate by the local and the received counters of the current window of the policy key. The local
+     * counter is increased only if the sum of the counters does not exceed the policy count, and the key is blocked
+     * by this node if it's exceeded and the policy has a block duration.
+     *
+     * @param ratePolicy Encapsulates the rate limit policy details.
+     * @return Encapsulated rate details.
+     * @throws IllegalArgumentException If the policy algorithm is not the {@link RateLimitAlgorithm#FIXED_WINDOW}.
+     */
+    @Override
+    public Rate consume(@Nonnull RatePolicy ratePolicy) {
+        if (ratePolicy.getAlgorithm() != RateLimitAlgorithm.FIXED_WINDOW)
+            throw new IllegalArgumentException("The replicated rate cache does not support the " + ratePolicy.getAlgorithm() + " algorithm.");
+
+        long nowMillis = clock.millis();
+        long durationMillis = Math.max(1, ratePolicy.getDuration().toMillis());
+        long windowStart = nowMillis - Math.floorMod(nowMillis, durationMillis);
+
+        Rate[] rate = new Rate[1];
+        counters.compute(ratePolicy.getKey(), (key, counter) -> {
+            Counter current = (counter != null) ? counter : new Counter();
+            rate[0] = current.consume(key, ratePolicy, windowStart, durationMillis, nowMillis);
+            return current;
+        });
+
+        if (rate[0].getRemaining() >= 0) {
+            changedKeys.add(ratePolicy.getKey());
+        }
+
+        return rate[0];
+    }
+
+    /**
+     * Replaces the addresses of the other nodes, e.g. when they're discovered after this node is started. The counters
+     * are received only from these addresses, which are the addresses that the peers are bound to. The source addresses
+     * of the datagrams are not authenticated, so this only drops the stray datagrams.
+     *
+     * @param peers The addresses of the other nodes.
+     */
+    public void setPeers(@Nonnull Collection<InetSocketAddress> peers) {
+        this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+    }
+
+    public List<InetSocketAddress> getPeers() {
+        return peers;
+    }
+
+    /**
+     * Returns the address that the counters of the peers are received on, e.g. to find the port if it's bound to {@code 0}.
+     *
+     * @return The bound address.
+     */
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not get the rate limit replication address.", e);
+        }
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the number of the keys that have a counter.
+     *
+     * @return The number of the cached keys.
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * Returns the count of the given key in its current window, by this node and by the peers as far as it's received.
+     */
+    long count(String key) {
+        Counter counter = counters.get(key);
+        return (counter != null) ? counter.total() : 0;
+    }
+
+    /**
+     * Returns the total number of the expired counters that are removed.
+     *
+     * @return The number of the removed counters.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Sends the changed counters to the peers for the last time, and stops the replication.
+     */
+    @Override
+    public void close() {
+        replicator.shutdownNow();
+        try {
+            replicator.awaitTermination(1, TimeUnit.SECONDS);
+            replicate();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Could not close the rate limit replication channel.", e);
+            }
+        }
+    }
+
+    /**
+     * Sends the counters of the changed keys to the peers, and removes the expired counters every {@link #SWEEP_INTERVAL_MILLIS}.
+     */
+    private void replicate() {
+        try {
+            send(changedDeltas());
+
+            long nowMillis = clock.millis();
+            if (nowMillis >= nextSweepMillis) {
+                nextSweepMillis = nowMillis + SWEEP_INTERVAL_MILLIS;
+                sweep(nowMillis);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not replicate the rate limit counters.", e);
+        }
+    }
+
+    private List<CounterDeltas.Delta> changedDeltas() {
+        List<CounterDeltas.Delta> deltas = new ArrayList<>();
+        for (Iterator<String> keys = changedKeys.iterator(); keys.hasNext(); ) {
+            String key = keys.next();
+            keys.remove();
+
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                deltas.add(counter.delta(key));
+            }
+        }
+        return deltas;
+    }
+
+    private void send(List<CounterDeltas.Delta> deltas) {
+        if (deltas.isEmpty() || !channel.isOpen())
+            return;
+
+        List<InetSocketAddress> targets = peers;
+        for (ByteBuffer datagram : CounterDeltas.encode(nodeId, deltas)) {
+            for (InetSocketAddress target : targets) {
+                try {
+                    channel.send(datagram.duplicate(), target);
+                } catch (IOException e) {
+                    log.debug("Could not send the rate limit counters to " + target + ".", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the datagrams of the peers until the channel is closed.
+     */
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(CounterDeltas.MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress sender = channel.receive(buffer);
+                if (!peers.contains(sender)) {
+                    log.debug("Dropped the rate limit counters of " + sender + ", which is not a peer.");
+                    continue;
+                }
+                buffer.flip();
+
+                CounterDeltas.Datagram datagram = CounterDeltas.decode(buffer);
+                if (datagram != null && datagram.nodeId != nodeId) {
+                    merge(datagram, clock.millis());
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not receive the rate limit counters.", e);
+            }
+        }
+    }
+
+    /**
+     * Merges the counters of a peer, the counters of the windows that are already over are ignored.
+     */
+    private void merge(CounterDeltas.Datagram datagram, long nowMillis) {
+        for (CounterDeltas.Delta delta : datagram.deltas) {
+            if (delta.windowStart + delta.durationMillis <= nowMillis)
+                continue;
+
+            counters.compute(delta.key, (key, counter) -> {
+                Counter current = (counter != null) ? counter : new Counter();
+                current.merge(datagram.nodeId, delta);
+                return current;
+            });
+        }
+    }
+
+    private void sweep(long nowMillis) {
+        for (String key : counters.keySet()) {
+            counters.computeIfPresent(key, (k, counter) -> {
+                if (!counter.isExpired(nowMillis))
+                    return counter;
+
+                evictionCount.incrementAndGet();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The counters of a key in its current window, by this node and by each peer. It's guarded by the map entry,
+     * and by its own monitor for the reads of the replicator.
+     */
+    private static final class Counter {
+
+        private long windowStart;
+
+        private long durationMillis;
+
+        private long localCount;
+
+        /**
+         * The counters of the peers by their node ids, it's created by the first received counter.
+         */
+        private Map<Long, Long> peerCounts;
+
+        private long peerTotal;
+
+        private long blockedUntil;
+
+        synchronized Rate consume(String key, RatePolicy ratePolicy, long windowStart, long durationMillis, long nowMillis) {
+            if (blockedUntil > nowMillis)
+                return new Rate(key, Instant.ofEpochMilli(blockedUntil), -1);
+
+            if (windowStart > this.windowStart) {
+                reset(windowStart, durationMillis);
+            }
+
+            long remaining = ratePolicy.getCount() - (localCount + peerTotal) - 1;
+            if (remaining >= 0) {
+                localCount++;
+                return new Rate(key, Instant.ofEpochMilli(this.windowStart + this.durationMillis), (int) remaining);
+            }
+
+            if (ratePolicy.getBlockDuration() != null) {
+                blockedUntil = nowMillis + ratePolicy.getBlockDuration().toMillis();
+                return new Rate(key, Instant.ofEpochMilli(blockedUntil), -1);
+            }
+
+            return new Rate(key, Instant.ofEpochMilli(this.windowStart + this.durationMillis), -1);
+        }
+
+        synchronized void merge(long nodeId, CounterDeltas.Delta delta) {
+            if (delta.windowStart < windowStart)
+                return;
+
+            if (delta.windowStart > windowStart) {
+                reset(delta.windowStart, delta.durationMillis);
+            }
+
+            if (peerCounts == null) {
+                peerCounts = new HashMap<>(4);
+            }
+
+            long current = peerCounts.getOrDefault(nodeId, 0L);
+            if (delta.count > current) {
+                peerCounts.put(nodeId, delta.count);
+                peerTotal += delta.count - current;
+            }
+        }
+
+        synchronized CounterDeltas.Delta delta(String key) {
+            return new CounterDeltas.Delta(key, windowStart, durationMillis, localCount);
+        }
+
+        synchronized long total() {
+            return localCount + peerTotal;
+        }
+
+        synchronized boolean isExpired(long nowMillis) {
+            return nowMillis >= windowStart + durationMillis && nowMillis >= blockedUntil;
+        }
+
+        private void reset(long windowStart, long durationMillis) {
+            this.windowStart = windowStart;
+            this.durationMillis = durationMillis;
+            this.localCount = 0;
+            this.peerTotal = 0;
+            if (peerCounts != null) {
+                peerCounts.clear();
+            }
+        }
+    }
+}
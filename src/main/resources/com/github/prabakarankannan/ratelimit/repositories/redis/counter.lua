@@ -0,0 +1,41 @@
+-- Consumes a fixed window rate limit atomically by a plain integer counter key.
+--
+-- KEYS[1] The counter key, the number of calls of the current window, expires at the end of the window or the block.
+-- KEYS[2] The rate hash key of the redis repository to migrate if the counter does not exist, optional.
+-- KEYS[3] The phantom key of the rate hash, optional.
+-- KEYS[4] The index set of the rate hashes, optional.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The window duration in milliseconds.
+-- ARGV[3] The max number of calls in a window.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+-- ARGV[5] Not used, the same arguments are passed to all of the scripts.
+-- ARGV[6] The id of the rate hash in the index set, optional.
+--
+-- Returns the remaining value and the expiration epoch millisecond of the rate.
+
+local now = tonumber(ARGV[1])
+local count = tonumber(ARGV[3])
+
+if KEYS[2] and redis.call('EXISTS', KEYS[1]) == 0 then
+    local remaining = tonumber(redis.call('HGET', KEYS[2], 'remaining'))
+    local ttl = redis.call('PTTL', KEYS[2])
+    if remaining ~= nil and ttl > 0 then
+        redis.call('SET', KEYS[1], count - math.max(remaining, -1), 'PX', ttl)
+    end
+    redis.call('DEL', KEYS[2], KEYS[3])
+    redis.call('SREM', KEYS[4], ARGV[6])
+end
+
+local used = tonumber(redis.call('GET', KEYS[1]))
+if used ~= nil and used > count then
+    return { -1, now + redis.call('PTTL', KEYS[1]) }
+end
+
+used = redis.call('INCR', KEYS[1])
+if used == 1 then
+    redis.call('PEXPIREAT', KEYS[1], now + tonumber(ARGV[2]))
+elseif used > count and tonumber(ARGV[4]) > 0 then
+    redis.call('PEXPIREAT', KEYS[1], now + tonumber(ARGV[4]))
+end
+
+return { count - used, now + redis.call('PTTL', KEYS[1]) }
@@ -0,0 +1,33 @@
+-- Consumes a fixed window rate limit atomically.
+--
+-- KEYS[1] The rate key, a hash of the remaining and the expiration fields.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The window duration in milliseconds.
+-- ARGV[3] The max number of calls in a window.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+--
+-- Returns the remaining value and the expiration epoch millisecond of the rate.
+
+local now = tonumber(ARGV[1])
+local rate = redis.call('HMGET', KEYS[1], 'remaining', 'expiration')
+local remaining = tonumber(rate[1])
+local expiration = tonumber(rate[2])
+
+if remaining == nil or expiration == nil or now > expiration then
+    remaining = tonumber(ARGV[3]) - 1
+    expiration = now + tonumber(ARGV[2])
+    redis.call('HMSET', KEYS[1], 'remaining', remaining, 'expiration', expiration)
+    redis.call('PEXPIREAT', KEYS[1], expiration + 1)
+elseif remaining >= 0 then
+    remaining = remaining - 1
+    local blockDuration = tonumber(ARGV[4])
+    if remaining < 0 and blockDuration > 0 then
+        expiration = now + blockDuration
+        redis.call('HMSET', KEYS[1], 'remaining', remaining, 'expiration', expiration)
+        redis.call('PEXPIREAT', KEYS[1], expiration + 1)
+    else
+        redis.call('HSET', KEYS[1], 'remaining', remaining)
+    end
+end
+
+return { remaining, expiration }
@@ -0,0 +1,43 @@
+-- Consumes a generic cell rate algorithm rate limit atomically, the only state is the theoretical arrival time
+-- of the next call in epoch microseconds.
+--
+-- KEYS[1] The theoretical arrival time key.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The duration in milliseconds.
+-- ARGV[3] The number of calls per duration.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+-- ARGV[5] The max number of calls in a burst.
+--
+-- Returns the remaining calls, or -1 if the call is rejected, and the epoch millisecond that a call would be
+-- allowed if it's rejected, else the epoch millisecond that the theoretical arrival time would be passed.
+
+local now = tonumber(ARGV[1]) * 1000
+local interval = math.max(1, math.floor(tonumber(ARGV[2]) * 1000 / tonumber(ARGV[3])))
+local blockDuration = tonumber(ARGV[4]) * 1000
+local tolerance = interval * tonumber(ARGV[5])
+
+local function toMillis(micros)
+    return math.floor((micros + 999) / 1000)
+end
+
+local function set(tat)
+    redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', toMillis(tat - now) + 1)
+end
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+
+if tat - now <= tolerance then
+    local next = math.max(tat, now) + interval
+    if next - now <= tolerance then
+        set(next)
+        return { math.floor((tolerance - next + now) / interval), toMillis(next) }
+    end
+
+    if blockDuration > 0 then
+        -- The first call after the block conforms, so the block does not outlive the block duration.
+        tat = now + blockDuration + tolerance - interval
+        set(tat)
+    end
+end
+
+return { -1, toMillis(tat + interval - tolerance) }
@@ -0,0 +1,41 @@
+-- Leases a number of the permits of a fixed window rate limit atomically.
+--
+-- KEYS[1] The rate key, a hash of the remaining and the expiration fields, the same as the fixed window script.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The window duration in milliseconds.
+-- ARGV[3] The max number of calls in a window.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+-- ARGV[5] The number of the permits to lease.
+--
+-- Returns the number of the leased permits, the remaining value and the expiration epoch millisecond of the rate.
+
+local now = tonumber(ARGV[1])
+local rate = redis.call('HMGET', KEYS[1], 'remaining', 'expiration')
+local remaining = tonumber(rate[1])
+local expiration = tonumber(rate[2])
+local leased = 0
+
+if remaining == nil or expiration == nil or now > expiration then
+    remaining = tonumber(ARGV[3])
+    expiration = now + tonumber(ARGV[2])
+    leased = math.min(tonumber(ARGV[5]), remaining)
+    remaining = remaining - leased
+    redis.call('HMSET', KEYS[1], 'remaining', remaining, 'expiration', expiration)
+    redis.call('PEXPIREAT', KEYS[1], expiration + 1)
+elseif remaining > 0 then
+    leased = math.min(tonumber(ARGV[5]), remaining)
+    remaining = remaining - leased
+    redis.call('HSET', KEYS[1], 'remaining', remaining)
+elseif remaining == 0 then
+    remaining = -1
+    local blockDuration = tonumber(ARGV[4])
+    if blockDuration > 0 then
+        expiration = now + blockDuration
+        redis.call('HMSET', KEYS[1], 'remaining', remaining, 'expiration', expiration)
+        redis.call('PEXPIREAT', KEYS[1], expiration + 1)
+    else
+        redis.call('HSET', KEYS[1], 'remaining', remaining)
+    end
+end
+
+return { leased, remaining, expiration }
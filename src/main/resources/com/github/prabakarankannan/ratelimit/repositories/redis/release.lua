@@ -0,0 +1,16 @@
+-- Returns the unused permits of a lease to a fixed window rate limit atomically.
+--
+-- KEYS[1] The rate key, a hash of the remaining and the expiration fields, the same as the fixed window script.
+-- ARGV[1] The expiration epoch millisecond of the window that the permits are leased from.
+-- ARGV[2] The number of the unused permits.
+--
+-- Returns the remaining value of the rate, or -1 if the window is over, so the permits are dropped.
+
+local rate = redis.call('HMGET', KEYS[1], 'remaining', 'expiration')
+local remaining = tonumber(rate[1])
+
+if remaining == nil or tonumber(rate[2]) ~= tonumber(ARGV[1]) or remaining < 0 then
+    return -1
+end
+
+return redis.call('HINCRBY', KEYS[1], 'remaining', tonumber(ARGV[2]))
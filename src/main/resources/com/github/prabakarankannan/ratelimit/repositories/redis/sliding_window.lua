@@ -0,0 +1,65 @@
+-- Consumes a sliding window rate limit atomically, the count of the sliding window is estimated by the count of the
+-- current window plus the count of the previous window weighted by its part which is still in the sliding window.
+--
+-- KEYS[1] The window key, a hash of the start, the previous, the current and the blocked fields.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The window duration in milliseconds.
+-- ARGV[3] The max number of calls in a sliding window.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+--
+-- Returns the estimated remaining calls, or -1 if the call is rejected, and the end of the current window if the call
+-- is allowed, else the epoch millisecond that a call would be allowed.
+
+local now = tonumber(ARGV[1])
+local duration = tonumber(ARGV[2])
+local count = tonumber(ARGV[3])
+local blockDuration = tonumber(ARGV[4])
+local start = now - (now % duration)
+
+local window = redis.call('HMGET', KEYS[1], 'start', 'previous', 'current', 'blocked')
+local previous = 0
+local current = 0
+local blocked = tonumber(window[4]) or 0
+local windowStart = tonumber(window[1])
+
+if windowStart ~= nil then
+    if windowStart >= start then
+        start = windowStart
+        previous = tonumber(window[2])
+        current = tonumber(window[3])
+    elseif windowStart == start - duration then
+        previous = tonumber(window[3])
+    end
+end
+
+local remaining = -1
+local expiration
+if blocked > now then
+    expiration = blocked
+else
+    local elapsed = math.min(now - start, duration)
+    local limit = count * duration
+    local weightedPrevious = previous * (duration - elapsed)
+    if weightedPrevious + (current + 1) * duration <= limit then
+        current = current + 1
+        remaining = math.floor((limit - weightedPrevious - current * duration) / duration)
+        expiration = start + duration
+    elseif blockDuration > 0 then
+        blocked = now + blockDuration
+        expiration = blocked
+    else
+        local budget = (count - current - 1) * duration
+        if budget >= 0 and previous > 0 then
+            expiration = start + duration - math.floor(budget / previous)
+        elseif current == 0 then
+            expiration = start + duration
+        else
+            expiration = start + duration + math.max(0, duration - math.floor((count - 1) * duration / current))
+        end
+    end
+end
+
+redis.call('HMSET', KEYS[1], 'start', start, 'previous', previous, 'current', current, 'blocked', blocked)
+redis.call('PEXPIREAT', KEYS[1], math.max(start + 2 * duration, blocked) + 1)
+
+return { remaining, expiration }
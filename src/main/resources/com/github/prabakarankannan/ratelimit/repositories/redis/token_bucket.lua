@@ -0,0 +1,70 @@
+-- Consumes a token bucket rate limit atomically, the bucket is refilled lazily by the time passed since its update.
+--
+-- The tokens are scaled by the duration in milliseconds, so a token costs ARGV[2] units and the bucket
+-- is refilled by ARGV[3] units per millisecond.
+--
+-- KEYS[1] The bucket key, a hash of the tokens and the updated fields.
+-- ARGV[1] The current epoch millisecond.
+-- ARGV[2] The refill duration in milliseconds.
+-- ARGV[3] The number of tokens that are refilled per duration.
+-- ARGV[4] The block duration in milliseconds, zero means no blocking.
+-- ARGV[5] The capacity of the bucket in tokens.
+--
+-- Returns the remaining tokens, or -1 if there is no token, and the epoch millisecond that a token would be
+-- available if there is no token, else the epoch millisecond that the bucket would be full again.
+
+local now = tonumber(ARGV[1])
+local unit = tonumber(ARGV[2])
+local count = tonumber(ARGV[3])
+local blockDuration = tonumber(ARGV[4])
+local capacity = tonumber(ARGV[5]) * unit
+
+local function ceilDiv(dividend, divisor)
+    if dividend <= 0 then
+        return 0
+    end
+    return math.floor((dividend + divisor - 1) / divisor)
+end
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'updated')
+local tokens = tonumber(bucket[1])
+local updated = tonumber(bucket[2])
+
+if tokens == nil or updated == nil then
+    tokens = capacity
+    updated = now
+else
+    tokens = math.min(tokens, capacity)
+    if now > updated then
+        tokens = math.min(capacity, tokens + (now - updated) * count)
+        updated = now
+    end
+end
+
+local remaining
+local expiration
+if updated > now then
+    remaining = -1
+elseif tokens >= unit then
+    tokens = tokens - unit
+    remaining = math.floor(tokens / unit)
+elseif blockDuration > 0 then
+    -- A token is released by the end of the block, so the first call after the block is not a new violation.
+    tokens = unit
+    updated = now + blockDuration
+    remaining = -1
+else
+    remaining = -1
+end
+
+local full = updated + ceilDiv(capacity - tokens, count)
+if remaining < 0 then
+    expiration = updated + ceilDiv(unit - tokens, count)
+else
+    expiration = full
+end
+
+redis.call('HMSET', KEYS[1], 'tokens', tokens, 'updated', updated)
+redis.call('PEXPIREAT', KEYS[1], full + 1)
+
+return { remaining, expiration }
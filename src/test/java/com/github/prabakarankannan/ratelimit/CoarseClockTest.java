@@ -0,0 +1,75 @@
+package com.github.prabakarankannan.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link CoarseClock}.
+ *
+ * @author Prabakaran Kannan
+ */
+class CoarseClockTest {
+
+    @Test
+    void millis_ShouldBeTheTimeOfTheSourceClockWhenCreated() {
+        try (CoarseClock clock = new CoarseClock(Duration.ofMinutes(1), () -> 42)) {
+            assertEquals(42, clock.millis());
+        }
+    }
+
+    @Test
+    void millis_WhenSourceClockAdvances_ShouldBeUpdatedInTheBackground() throws InterruptedException {
+        AtomicLong source = new AtomicLong(1_000);
+        try (CoarseClock clock = new CoarseClock(Duration.ofMillis(1), source::get)) {
+            source.set(2_000);
+            awaitMillis(clock, 2_000);
+
+            assertEquals(2_000, clock.millis());
+        }
+    }
+
+    @Test
+    void millis_WhenSourceClockGoesBack_ShouldNotGoBack() throws InterruptedException {
+        AtomicLong source = new AtomicLong(2_000);
+        try (CoarseClock clock = new CoarseClock(Duration.ofMillis(1), source::get)) {
+            source.set(1_000);
+            TimeUnit.MILLISECONDS.sleep(20);
+            assertEquals(2_000, clock.millis());
+
+            source.set(3_000);
+            awaitMillis(clock, 3_000);
+        }
+    }
+
+    @Test
+    void constructor_WhenResolutionIsNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new CoarseClock(Duration.ZERO, RateLimitClock.monotonic()));
+    }
+
+    @Test
+    void monotonic_ShouldBeCloseToTheSystemClockAndNeverGoBack() {
+        RateLimitClock clock = RateLimitClock.monotonic();
+        long previous = clock.millis();
+        assertEquals(System.currentTimeMillis(), previous, 1_000);
+
+        for (int i = 0; i < 100_000; i++) {
+            long now = clock.millis();
+            if (now < previous)
+                throw new AssertionError("The clock went back from " + previous + " to " + now);
+            previous = now;
+        }
+    }
+
+    private static void awaitMillis(CoarseClock clock, long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && clock.millis() != expected; i++) {
+            TimeUnit.MILLISECONDS.sleep(2);
+        }
+        assertEquals(expected, clock.millis());
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link MatchedPoliciesCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+class MatchedPoliciesCacheTest {
+
+    private static final List<Policy> POLICIES = Collections.singletonList(
+            new Policy(Duration.ofSeconds(1), 1, "BY_IP", Collections.emptySet(), null));
+
+    @Test
+    void get_ShouldMatchOnceAndCountHitsAndMisses() {
+        AtomicInteger matches = new AtomicInteger();
+        BiFunction<String, String, List<Policy>> matcher = (uri, method) -> {
+            matches.incrementAndGet();
+            return POLICIES;
+        };
+        MatchedPoliciesCache cache = new MatchedPoliciesCache(10);
+
+        assertSame(POLICIES, cache.get("/test", "GET", matcher));
+        assertSame(POLICIES, cache.get("/test", "GET", matcher));
+        assertSame(POLICIES, cache.get("/test", "POST", matcher));
+        assertSame(POLICIES, cache.get("/test", "GET", matcher));
+
+        assertEquals(2, matches.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_ShouldNotGrowBeyondMaxSizeAndKeepTheHotUris() {
+        BiFunction<String, String, List<Policy>> matcher = (uri, method) -> POLICIES;
+        MatchedPoliciesCache cache = new MatchedPoliciesCache(8);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get("/hot", "GET", matcher);
+            cache.get("/users/" + i, "GET", matcher);
+        }
+
+        assertTrue(cache.size() <= 8, "Cache size " + cache.size());
+        long misses = cache.getMissCount();
+        cache.get("/hot", "GET", matcher);
+        assertEquals(misses, cache.getMissCount());
+    }
+
+    @Test
+    void constructor_ShouldRejectNonPositiveMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchedPoliciesCache(0));
+    }
+}
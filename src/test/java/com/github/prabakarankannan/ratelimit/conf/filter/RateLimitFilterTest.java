@@ -0,0 +1,145 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.conf.error.DefaultTooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+import com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.annotation.Nonnull;
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RateLimitFilter}.
+ *
+ * @author Prabakaran Kannan
+ */
+class RateLimitFilterTest {
+
+    private final InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+
+    private final AtomicInteger chainCalls = new AtomicInteger();
+
+    private final FilterChain chain = (request, response) -> chainCalls.incrementAndGet();
+
+    @AfterEach
+    void close() {
+        inMemoryRateCache.close();
+    }
+
+    @Test
+    void doFilter_WhenAsyncIsDisabled_ShouldConsumeOnTheCallingThread() throws Exception {
+        RateLimitFilter filter = filter(false, inMemoryRateCache);
+        MockHttpServletRequest request = request();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertFalse(request.isAsyncStarted());
+        assertEquals(1, chainCalls.get());
+    }
+
+    @Test
+    void doFilter_WhenAsyncRateIsNotExceeded_ShouldPassTheDispatchedRequestToTheChain() throws Exception {
+        RateLimitFilter filter = filter(true, inMemoryRateCache);
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertTrue(request.isAsyncStarted());
+        assertEquals(0, chainCalls.get());
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(1, chainCalls.get());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNull(request.getAttribute(RateLimitFilter.ASYNC_RESULT_ATTRIBUTE));
+    }
+
+    @Test
+    void doFilter_WhenAsyncRateExceed_ShouldReturnHttpResponseStatus429OnTheDispatch() throws Exception {
+        RateLimitFilter filter = filter(true, inMemoryRateCache);
+        MockHttpServletRequest first = request();
+        filter.doFilter(first, new MockHttpServletResponse(), chain);
+        filter.doFilter(first, new MockHttpServletResponse(), chain);
+
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+
+        assertEquals(1, chainCalls.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    }
+
+    @Test
+    void doFilter_WhenAsyncConsumptionFails_ShouldThrowTheFailureOnTheDispatch() throws Exception {
+        IllegalStateException failure = new IllegalStateException("The store is down.");
+        RateLimitFilter filter = filter(true, new RateLimiter() {
+
+            @Override
+            public Rate consume(@Nonnull RatePolicy ratePolicy) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+                return CompletableFuture.supplyAsync(() -> {
+                    throw failure;
+                });
+            }
+        });
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+        while (request.getAttribute(RateLimitFilter.ASYNC_RESULT_ATTRIBUTE) == null) {
+            Thread.yield();
+        }
+
+        assertEquals(failure, assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain)));
+        assertEquals(0, chainCalls.get());
+    }
+
+    private static RateLimitFilter filter(boolean async, RateLimiter rateLimiter) {
+        RateLimitProperties properties = new RateLimitProperties(true, 0, null,
+                Collections.singleton(new Policy(Duration.ofMinutes(1), 1, "BY_IP",
+                        Collections.singleton(new Route("/test", HttpMethod.GET)), null)),
+                Collections.emptySet(), null, async);
+
+        return new RateLimitFilter(properties, rateLimiter,
+                Collections.<String, RateLimitKeyGenerator>singletonMap(
+                        "BY_IP", new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"))),
+                new DefaultTooManyRequestErrorHandler());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test");
+        request.addHeader("X-Forwarded-For", "0.0.0.0");
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
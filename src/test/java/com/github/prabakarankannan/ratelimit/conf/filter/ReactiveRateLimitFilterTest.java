@@ -0,0 +1,93 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimitKeyGenerator;
+import com.github.prabakarankannan.ratelimit.conf.error.DefaultReactiveTooManyRequestErrorHandler;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+import com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ReactiveRateLimiterAdapter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link ReactiveRateLimitFilter}.
+ *
+ * @author Prabakaran Kannan
+ */
+class ReactiveRateLimitFilterTest {
+
+    private final InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+
+    private final AtomicInteger chainCalls = new AtomicInteger();
+
+    private final WebFilterChain chain = exchange -> Mono.fromRunnable(chainCalls::incrementAndGet);
+
+    private final ReactiveRateLimitFilter filter = new ReactiveRateLimitFilter(
+            new RateLimitProperties(true, 0, null,
+                    Collections.singleton(new Policy(Duration.ofMinutes(1), 1, "BY_IP",
+                            Collections.singleton(new Route("/test", HttpMethod.GET)), null)),
+                    Collections.emptySet()),
+            new ReactiveRateLimiterAdapter(inMemoryRateCache),
+            Collections.<String, ReactiveRateLimitKeyGenerator>singletonMap(
+                    "BY_IP", new ReactiveHeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"))),
+            new DefaultReactiveTooManyRequestErrorHandler());
+
+    @AfterEach
+    void close() {
+        inMemoryRateCache.close();
+    }
+
+    @Test
+    void filter_WhenRateIsNotExceeded_ShouldPassTheRequestToTheChain() {
+        MockServerWebExchange exchange = exchange("/test");
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(1, chainCalls.get());
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_WhenRateExceed_ShouldReturnHttpResponseStatus429() {
+        filter.filter(exchange("/test"), chain).block();
+        MockServerWebExchange exchange = exchange("/test");
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(1, chainCalls.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        assertNotNull(exchange.getResponse().getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void filter_WhenNoPolicyMatches_ShouldNotConsumeAnyRate() {
+        filter.filter(exchange("/other"), chain).block();
+        filter.filter(exchange("/other"), chain).block();
+
+        assertEquals(2, chainCalls.get());
+        assertEquals(0, inMemoryRateCache.size());
+    }
+
+    private static MockServerWebExchange exchange(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri).header("X-Forwarded-For", "0.0.0.0"));
+    }
+}
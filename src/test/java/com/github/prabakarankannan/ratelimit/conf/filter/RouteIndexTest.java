@@ -0,0 +1,105 @@
+package com.github.prabakarankannan.ratelimit.conf.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy.Route;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RouteIndex}.
+ *
+ * @author Prabakaran Kannan
+ */
+class RouteIndexTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/**", "/test", "/test/", "/test/*", "/test/**", "/test/*/", "/te?t", "/test*", "*/test", "test/**",
+            "/users/{id}", "/users/{id}/orders", "/users/{id:\\\\d+}", "/users/{id}.json", "/files/*.txt",
+            "/api/**/items", "/api/**/items/*", "/**/admin", "/**/admin/**", "/a/**/b/**/c", "/a/*/c", "/{x}/{y}",
+            "/", "/api/v?/**", "/static/**/*.css");
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/", "", "/test", "/test/", "test", "/test/a", "/test/a/", "/test/a/b", "/text", "/testing", "x/test",
+            "test/a", "/users/12", "/users/ab", "/users/12/orders", "/users/12.json", "/files/a.txt", "/files/a.csv",
+            "/api/items", "/api/x/items", "/api/x/y/items", "/api/x/items/1", "/admin", "/x/admin", "/x/admin/y",
+            "/a/b/c", "/a/x/b/y/c", "/a/b/b/c/c", "/a/c", "/a/x/c", "//test", "/test//a", "/api/v1/x", "/api/v10/x",
+            "/static/a/b/site.css", "/static/site.css", "/static/site.js");
+
+    @Test
+    void match_ShouldMatchTheSameRoutesOfAntPathMatcher() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        List<Policy> policies = new ArrayList<>();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            policies.add(policy(Duration.ofSeconds(i + 1), "K" + i, new Route(PATTERNS.get(i), null)));
+        }
+        RouteIndex routeIndex = new RouteIndex(policies);
+
+        for (String path : PATHS) {
+            List<Policy> expected = new ArrayList<>();
+            for (int i = 0; i < PATTERNS.size(); i++) {
+                if (antPathMatcher.match(PATTERNS.get(i), path))
+                    expected.add(policies.get(i));
+            }
+
+            assertEquals(expected, routeIndex.match(path, "GET"), "Matched policies of " + path);
+        }
+    }
+
+    @Test
+    void match_WhenRouteHasMethod_ShouldMatchOnlyThatMethod() {
+        Policy getPolicy = policy(Duration.ofSeconds(1), "GET", new Route("/test", HttpMethod.GET));
+        Policy anyPolicy = policy(Duration.ofSeconds(2), "ANY", new Route("/test", null));
+        RouteIndex routeIndex = new RouteIndex(Arrays.asList(getPolicy, anyPolicy));
+
+        assertEquals(Arrays.asList(getPolicy, anyPolicy), routeIndex.match("/test", "GET"));
+        assertEquals(Collections.singletonList(anyPolicy), routeIndex.match("/test", "POST"));
+        assertEquals(Collections.singletonList(anyPolicy), routeIndex.match("/test", "PROPFIND"));
+    }
+
+    @Test
+    void match_ShouldReturnPoliciesSortedByDurationAndOnlyOnce() {
+        Policy hourly = policy(Duration.ofHours(1), "HOURLY", new Route("/**", null));
+        Policy secondly = policy(Duration.ofSeconds(1), "SECONDLY", new Route("/test", null), new Route("/test/**", null));
+        RouteIndex routeIndex = new RouteIndex(Arrays.asList(hourly, secondly));
+
+        assertEquals(Arrays.asList(secondly, hourly), routeIndex.match("/test", "GET"));
+        assertEquals(Collections.singletonList(hourly), routeIndex.match("/other", "GET"));
+    }
+
+    @Test
+    void match_WhenCalledAgainWithTheSameMatchedPolicies_ShouldReturnTheSameList() {
+        RouteIndex routeIndex = new RouteIndex(Collections.singletonList(policy(Duration.ofSeconds(1), "TEST", new Route("/users/*", null))));
+
+        assertSame(routeIndex.match("/users/1", "GET"), routeIndex.match("/users/2", "GET"));
+        assertTrue(routeIndex.match("/orders/1", "GET").isEmpty());
+    }
+
+    @Test
+    void match_WhenThereAreMoreThan64Policies_ShouldMatchAllOfThem() {
+        List<Policy> policies = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            policies.add(policy(Duration.ofSeconds(i + 1), "K" + i, new Route("/test/" + (i % 2 == 0 ? "**" : "*"), null)));
+        }
+        RouteIndex routeIndex = new RouteIndex(policies);
+
+        assertEquals(policies, routeIndex.match("/test/a", "GET"));
+        assertEquals(50, routeIndex.match("/test/a/b", "GET").size());
+    }
+
+    private static Policy policy(Duration duration, String keyGenerator, Route... routes) {
+        return new Policy(duration, 1, keyGenerator, new HashSet<>(Arrays.asList(routes)), null);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.prabakarankannan.ratelimit.conf.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+import com.github.prabakarankannan.ratelimit.repositories.CaffeineRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.OffHeapRateCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.prabakarankannan.ratelimit.conf.metrics.MicrometerRateLimitRecorder.CONSUME_METER;
+import static com.github.prabakarankannan.ratelimit.conf.metrics.MicrometerRateLimitRecorder.REQUESTS_METER;
+import static com.github.prabakarankannan.ratelimit.conf.metrics.MicrometerRateLimitRecorder.STORE_SIZE_METER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link MicrometerRateLimitRecorder}.
+ *
+ * @author Prabakaran Kannan
+ */
+class MicrometerRateLimitRecorderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Policy named = new Policy("login", Duration.ofSeconds(5), 3, "BY_IP", Collections.emptySet(), null);
+
+    private final Policy unnamed = new Policy(Duration.ofMinutes(1), 10, "BY_IP", Collections.emptySet(), null);
+
+    @Test
+    void record_ShouldTimeTheConsumptionAndCountTheDecisionsByPolicy() {
+        MicrometerRateLimitRecorder recorder = new MicrometerRateLimitRecorder(
+                meterRegistry, Arrays.asList(named, unnamed), new InMemoryRateCache(Duration.ofMillis(100), false));
+
+        recorder.record(named, new Rate("key", Instant.now(), 2), 1_000);
+        recorder.record(named, new Rate("key", Instant.now(), -1), 3_000);
+        recorder.record(unnamed, new Rate("key", Instant.now(), 9), 2_000);
+
+        assertEquals(2, meterRegistry.get(CONSUME_METER).tag("policy", "login").timer().count());
+        assertEquals(4_000, meterRegistry.get(CONSUME_METER).tag("policy", "login").timer().totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(1, meterRegistry.get(REQUESTS_METER).tags("policy", "login", "result", "allowed").counter().count());
+        assertEquals(1, meterRegistry.get(REQUESTS_METER).tags("policy", "login", "result", "rejected").counter().count());
+        assertEquals(1, meterRegistry.get(REQUESTS_METER).tags("policy", "policy-1", "result", "allowed").counter().count());
+        assertEquals(0, meterRegistry.get(REQUESTS_METER).tags("policy", "policy-1", "result", "rejected").counter().count());
+    }
+
+    @Test
+    void record_ShouldIgnoreUnknownPolicies() {
+        MicrometerRateLimitRecorder recorder = new MicrometerRateLimitRecorder(
+                meterRegistry, Collections.singletonList(named), ratePolicy -> null);
+
+        recorder.record(unnamed, new Rate("key", Instant.now(), 1), 1_000);
+
+        assertEquals(1, meterRegistry.find(CONSUME_METER).timers().size());
+        assertNull(meterRegistry.find(STORE_SIZE_METER).gauge());
+    }
+
+    @Test
+    void constructor_ShouldRegisterTheStoreSizeOfInMemoryRateCache() {
+        InMemoryRateCache rateCache = new InMemoryRateCache(Duration.ofMillis(100), false);
+        new MicrometerRateLimitRecorder(meterRegistry, Collections.singletonList(named), rateCache);
+
+        rateCache.consume(new RatePolicy("a", Duration.ofSeconds(5), 3, null));
+        rateCache.consume(new RatePolicy("b", Duration.ofSeconds(5), 3, null));
+
+        assertEquals(2, meterRegistry.get(STORE_SIZE_METER).tag("store", "in_memory").gauge().value());
+    }
+
+    @Test
+    void constructor_ShouldRegisterTheStoreSizeOfCaffeineRateCache() {
+        CaffeineRateCache rateCache = new CaffeineRateCache(100);
+        new MicrometerRateLimitRecorder(meterRegistry, Collections.singletonList(named), rateCache);
+
+        rateCache.consume(new RatePolicy("a", Duration.ofSeconds(5), 3, null));
+        rateCache.consume(new RatePolicy("b", Duration.ofSeconds(5), 3, null));
+
+        assertEquals(2, meterRegistry.get(STORE_SIZE_METER).tag("store", "bounded_in_memory").gauge().value());
+    }
+
+    @Test
+    void constructor_ShouldRegisterTheStoreSizeOfOffHeapRateCache() {
+        OffHeapRateCache rateCache = new OffHeapRateCache(100);
+        new MicrometerRateLimitRecorder(meterRegistry, Collections.singletonList(named), rateCache);
+
+        rateCache.consume(new RatePolicy("a", Duration.ofSeconds(5), 3, null));
+        rateCache.consume(new RatePolicy("b", Duration.ofSeconds(5), 3, null));
+
+        assertEquals(2, meterRegistry.get(STORE_SIZE_METER).tag("store", "off_heap").gauge().value());
+    }
+}
@@ -9,13 +9,22 @@ import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties
 import com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator;
 import com.github.prabakarankannan.ratelimit.generators.HeaderNotPresentedException;
 
+import org.springframework.mock.web.MockHttpServletRequest;
+
 import javax.servlet.http.HttpServletRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 /**
  * Unit tests for {@link HeaderBasedKeyGenerator}.
@@ -65,4 +74,73 @@ class HeaderBasedKeyGeneratorTest {
 
         Assertions.assertEquals(6, generatedKey.split("_").length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateKey_WhenCompact_ShouldReturnA22CharactersKeyPerPolicy() {
+        HeaderBasedKeyGenerator keyGenerator = new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test");
+        request.addHeader("X-Forwarded-For", "0.0.0.0");
+
+        String hourly = keyGenerator.generateKey(request, new Policy(Duration.ofHours(1), 3, "TEST", null, null));
+        String daily = keyGenerator.generateKey(request, new Policy(Duration.ofDays(1), 3, "TEST", null, null));
+
+        assertEquals(22, hourly.length());
+        assertNotEquals(hourly, daily);
+        assertEquals(hourly, new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true)
+                .generateKey(request, new Policy(Duration.ofHours(1), 3, "TEST", null, null)));
+    }
+
+    @Test
+    void generateKey_WhenCompactAndHeadersDiffer_ShouldReturnDifferentKeys() {
+        HeaderBasedKeyGenerator keyGenerator = new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true);
+        Policy policy = new Policy(Duration.ofHours(1), 3, "TEST", null, null);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/test");
+        first.addHeader("X-Forwarded-For", "0.0.0.1");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/test");
+        second.addHeader("X-Forwarded-For", "0.0.0.2");
+
+        assertNotEquals(keyGenerator.generateKey(first, policy), keyGenerator.generateKey(second, policy));
+    }
+
+    @Test
+    void generateKey_WhenCompact_ShouldReturnTheTruncatedSha256OfTheLengthPrefixedParts() throws Exception {
+        HeaderBasedKeyGenerator keyGenerator = new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test");
+        request.addHeader("X-Forwarded-For", "0.0.0.0");
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (String part : new String[]{"/test", "GET", "0.0.0.0", "PT1H_3"}) {
+            digest.update(ByteBuffer.allocate(4).putInt(part.length()).array());
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+
+        assertEquals(expected, keyGenerator.generateKey(request, new Policy(Duration.ofHours(1), 3, "TEST", null, null)));
+    }
+
+    @Test
+    void generateKey_WhenCompactAndTheSeparatorMovesBetweenHeaders_ShouldReturnDifferentKeys() {
+        Set<String> params = new LinkedHashSet<>(Arrays.asList("X-Forwarded-For", "User-Id"));
+        HeaderBasedKeyGenerator keyGenerator = new HeaderBasedKeyGenerator(params, true);
+        Policy policy = new Policy(Duration.ofHours(1), 3, "TEST", null, null);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/test");
+        first.addHeader("X-Forwarded-For", "a_b");
+        first.addHeader("User-Id", "c");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/test");
+        second.addHeader("X-Forwarded-For", "a");
+        second.addHeader("User-Id", "b_c");
+
+        assertNotEquals(keyGenerator.generateKey(first, policy), keyGenerator.generateKey(second, policy));
+    }
+
+    @Test
+    void generateKey_WhenPoliciesShareTheKeyGenerator_ShouldLookUpTheHeadersOncePerRequest() {
+        HeaderBasedKeyGenerator keyGenerator = new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"));
+        MockHttpServletRequest request = Mockito.spy(new MockHttpServletRequest("GET", "/test"));
+        request.addHeader("X-Forwarded-For", "0.0.0.0");
+
+        assertEquals("/test_GET_PT1H_3_0.0.0.0", keyGenerator.generateKey(request, new Policy(Duration.ofHours(1), 3, "TEST", null, null)));
+        assertEquals("/test_GET_PT24H_10_0.0.0.0", keyGenerator.generateKey(request, new Policy(Duration.ofDays(1), 10, "TEST", null, null)));
+        Mockito.verify(request, Mockito.times(1)).getHeader("X-Forwarded-For");
+    }
+}
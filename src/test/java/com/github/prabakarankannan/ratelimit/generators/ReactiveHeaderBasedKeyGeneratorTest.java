@@ -0,0 +1,58 @@
+package com.github.prabakarankannan.ratelimit.generators;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties.Policy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ReactiveHeaderBasedKeyGenerator}.
+ *
+ * @author Prabakaran Kannan
+ */
+class ReactiveHeaderBasedKeyGeneratorTest {
+
+    private final Policy policy = new Policy(Duration.ofHours(1), 3, "TEST", null, null);
+
+    @Test
+    void generateKey_GivenNullHeader_ShouldThrownHeaderNotPresentedException() {
+        ReactiveHeaderBasedKeyGenerator keyGenerator = new ReactiveHeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"));
+
+        Assertions.assertThrows(HeaderNotPresentedException.class,
+                () -> keyGenerator.generateKey(MockServerHttpRequest.get("/test").build(), policy));
+    }
+
+    @Test
+    void generateKey_GivenTwoParam_ShouldReturnTheSameKeyAsTheServletKeyGenerator() {
+        ReactiveHeaderBasedKeyGenerator keyGenerator =
+                new ReactiveHeaderBasedKeyGenerator(new LinkedHashSet<>(Arrays.asList("X-Forwarded-For", "User-Id")));
+        MockServerHttpRequest request = MockServerHttpRequest.get("/test")
+                .header("X-Forwarded-For", "0.0.0.0")
+                .header("User-Id", "1234")
+                .build();
+
+        assertEquals("/test_GET_PT1H_3_0.0.0.0_1234", keyGenerator.generateKey(request, policy));
+    }
+
+    @Test
+    void generateKey_WhenCompact_ShouldReturnTheSameKeyAsTheCompactServletKeyGenerator() {
+        ReactiveHeaderBasedKeyGenerator keyGenerator = new ReactiveHeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true);
+        MockServerHttpRequest request = MockServerHttpRequest.get("/test").header("X-Forwarded-For", "0.0.0.0").build();
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/test");
+        servletRequest.addHeader("X-Forwarded-For", "0.0.0.0");
+
+        String key = keyGenerator.generateKey(request, policy);
+
+        assertEquals(22, key.length());
+        assertEquals(new HeaderBasedKeyGenerator(Collections.singleton("X-Forwarded-For"), true).generateKey(servletRequest, policy), key);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.prabakarankannan.ratelimit.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisScriptRateCache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class ReactiveApplicationIT {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void clearRedis() {
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "/test_GET_PT5S_1_123");
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "/test-block_GET_PT1S_1_0.0.0.0");
+    }
+
+    @Test
+    void requestForFirstTimeWithDeviceId_ShouldRecordARateInRedis() {
+        webTestClient.get().uri("/test").header("Device-Id", "123").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("test");
+
+        assertEquals("0", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "/test_GET_PT5S_1_123", "remaining"));
+    }
+
+    @Test
+    void whenRateExceed_ShouldReturnHttpResponseStatus429() {
+        webTestClient.get().uri("/test").header("Device-Id", "123").exchange().expectStatus().isOk();
+
+        webTestClient.get().uri("/test").header("Device-Id", "123").exchange()
+                .expectStatus().isEqualTo(429);
+
+        assertEquals("-1", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "/test_GET_PT5S_1_123", "remaining"));
+    }
+
+    @Test
+    void whenGivesTooManyRequest_ShouldBlockRequester() {
+        webTestClient.get().uri("/test-block").header("X-Forwarded-For", "0.0.0.0").exchange().expectStatus().isOk();
+
+        webTestClient.get().uri("/test-block").header("X-Forwarded-For", "0.0.0.0").exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().exists(RETRY_AFTER);
+
+        Long ttl = redisTemplate.getExpire(RedisScriptRateCache.KEY_PREFIX + "/test-block_GET_PT1S_1_0.0.0.0");
+        assertEquals(10, ttl, 1);
+    }
+}
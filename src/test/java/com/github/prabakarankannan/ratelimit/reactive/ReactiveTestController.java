@@ -0,0 +1,20 @@
+package com.github.prabakarankannan.ratelimit.reactive;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+public class ReactiveTestController {
+
+    @GetMapping("test")
+    public Mono<String> test() {
+        return Mono.just("test");
+    }
+
+    @GetMapping("test-block")
+    public Mono<String> testBlock() {
+        return Mono.just("test");
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.SLIDING_WINDOW;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CaffeineRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+class CaffeineRateCacheTest {
+
+    @Test
+    void consume_CreateRateForFirstTime_TheRateRemainingValueShouldBeEqualWIth2() {
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache();
+        Rate rate = caffeineRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null));
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+    }
+
+    @Test
+    void consume_WhenExceed_ShouldIncreaseExpiration2MinAndRateBeMinus1() {
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, Duration.ofMinutes(2));
+        caffeineRateCache.consume(ratePolicy);
+        Rate rate = caffeineRateCache.consume(ratePolicy);
+
+        long expirationDiff = rate.getExpiration().getEpochSecond() - Instant.now().getEpochSecond();
+
+        assertTrue(expirationDiff >= 119 && expirationDiff <= 120);
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(caffeineRateCache.consume(ratePolicy).isExceed());
+    }
+
+    @Test
+    void consume_WhenAlgorithmsDiffer_ShouldKeepTheirStatesApart() {
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache();
+        caffeineRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null));
+
+        assertEquals(2, caffeineRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 3)).getRemaining());
+        assertEquals(0, caffeineRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, SLIDING_WINDOW, 1)).getRemaining());
+        assertEquals(1, caffeineRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 2, null, GCRA, 2)).getRemaining());
+        assertTrue(caffeineRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null)).isExceed());
+    }
+
+    @Test
+    void consume_WhenManyOneHitKeysAreSprayed_ShouldKeepTheSizeBoundedAndTheHeavyHitter() {
+        // The evictions are done by the calling thread, so the admission of the heavy hitter does not depend on the timing.
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache(100, RateLimitClock.monotonic(), Runnable::run);
+        RatePolicy heavyHitter = new RatePolicy("heavy-hitter", Duration.ofDays(1), 1_000_000, null);
+        for (int i = 0; i < 50; i++) {
+            caffeineRateCache.consume(heavyHitter);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            caffeineRateCache.consume(new RatePolicy("sprayed-" + i, Duration.ofDays(1), 10, null));
+            if (i % 10 == 0)
+                caffeineRateCache.consume(heavyHitter);
+        }
+        caffeineRateCache.cleanUp();
+
+        assertTrue(caffeineRateCache.size() <= 100);
+        assertTrue(caffeineRateCache.getEvictionCount() > 0);
+        assertEquals(1_000_000 - 1_051, caffeineRateCache.consume(heavyHitter).getRemaining());
+    }
+
+    @Test
+    void consume_WhenRatesExpired_ShouldEvictThem() throws InterruptedException {
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache();
+        for (int i = 0; i < 10; i++) {
+            caffeineRateCache.consume(new RatePolicy("test-" + i, Duration.ofMillis(50), 3, null));
+        }
+
+        // The expiration wheel of Caffeine has about one second buckets.
+        TimeUnit.MILLISECONDS.sleep(1500);
+        caffeineRateCache.cleanUp();
+
+        assertEquals(0, caffeineRateCache.size());
+    }
+
+    @Test
+    void consume_WhenClockPassesTheExpirations_ShouldStartNewWindowsAndEvictTheOthersWithoutWaiting() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        CaffeineRateCache caffeineRateCache = new CaffeineRateCache(100, now::get);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(50), 1, null);
+        caffeineRateCache.consume(ratePolicy);
+        caffeineRateCache.consume(new RatePolicy("other", Duration.ofMillis(50), 1, null));
+        assertTrue(caffeineRateCache.consume(ratePolicy).isExceed());
+
+        now.addAndGet(2_000);
+        assertEquals(0, caffeineRateCache.consume(ratePolicy).getRemaining());
+        caffeineRateCache.cleanUp();
+
+        assertEquals(1, caffeineRateCache.size());
+    }
+
+    @Test
+    void constructor_WhenMaximumSizeIsNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new CaffeineRateCache(0));
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ExceededRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+class ExceededRateCacheTest {
+
+    private final CountingRateLimiter delegate = new CountingRateLimiter();
+
+    private final ExceededRateCache exceededRateCache = new ExceededRateCache(delegate, Duration.ofMillis(10));
+
+    @AfterEach
+    void close() {
+        exceededRateCache.close();
+    }
+
+    @Test
+    void consume_WhenRateExceed_ShouldAnswerFromTheCacheUntilItsExpiration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null);
+        exceededRateCache.consume(ratePolicy);
+        Rate exceeded = exceededRateCache.consume(ratePolicy);
+
+        Rate rate = exceededRateCache.consume(ratePolicy);
+
+        assertSame(exceeded, rate);
+        assertEquals(2, delegate.calls.get());
+        assertEquals(1, exceededRateCache.getHitCount());
+        assertEquals(1, exceededRateCache.size());
+    }
+
+    @Test
+    void consume_WhenRateDoesNotExceed_ShouldConsumeByTheDelegate() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+        exceededRateCache.consume(ratePolicy);
+        exceededRateCache.consume(ratePolicy);
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, exceededRateCache.size());
+    }
+
+    @Test
+    void consume_WhenCachedRateExpired_ShouldConsumeByTheDelegateAgain() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(50), 1, null);
+        exceededRateCache.consume(ratePolicy);
+        assertTrue(exceededRateCache.consume(ratePolicy).isExceed());
+
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(0, exceededRateCache.size());
+        exceededRateCache.consume(ratePolicy);
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    void consume_WhenAlgorithmsDiffer_ShouldNotShareTheCachedRates() {
+        exceededRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null));
+        exceededRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null));
+
+        exceededRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 1));
+
+        assertEquals(0, exceededRateCache.getHitCount());
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    void consumeAsync_WhenRateExceed_ShouldBeCompletedByTheCachedRate() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null);
+        exceededRateCache.consumeAsync(ratePolicy);
+        exceededRateCache.consumeAsync(ratePolicy);
+
+        CompletableFuture<Rate> rate = exceededRateCache.consumeAsync(ratePolicy).toCompletableFuture();
+
+        assertTrue(rate.isDone());
+        assertTrue(rate.join().isExceed());
+        assertEquals(2, delegate.calls.get());
+    }
+
+    /**
+     * Counts the consumptions, each one decreases the remaining value of the policy count.
+     */
+    private static final class CountingRateLimiter implements RateLimiter {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Rate consume(@Nonnull RatePolicy ratePolicy) {
+            int remaining = ratePolicy.getCount() - calls.incrementAndGet();
+            return new Rate(ratePolicy.getKey(), Instant.now().plus(ratePolicy.getDuration()), remaining);
+        }
+    }
+}
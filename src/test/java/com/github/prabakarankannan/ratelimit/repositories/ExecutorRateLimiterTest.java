@@ -0,0 +1,120 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ExecutorRateLimiter}.
+ *
+ * @author Prabakaran Kannan
+ */
+class ExecutorRateLimiterTest {
+
+    private final RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+
+    @Test
+    void consumeAsync_ShouldConsumeOnAThreadOfThePool() {
+        try (ExecutorRateLimiter executorRateLimiter = new ExecutorRateLimiter(threadNameRateLimiter())) {
+            Rate rate = executorRateLimiter.consumeAsync(ratePolicy).toCompletableFuture().join();
+
+            assertEquals("rate-limit-async", rate.getKey());
+        }
+    }
+
+    @Test
+    void consumeAsync_WhenDelegateIsBlocked_ShouldReleaseTheCallingThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RateLimiter blocked = ratePolicy -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Rate(ratePolicy.getKey(), Instant.now().plus(ratePolicy.getDuration()), 2);
+        };
+        try (ExecutorRateLimiter executorRateLimiter = new ExecutorRateLimiter(blocked)) {
+            CompletableFuture<Rate> rate = executorRateLimiter.consumeAsync(ratePolicy).toCompletableFuture();
+
+            assertFalse(rate.isDone());
+            release.countDown();
+            assertEquals(2, rate.join().getRemaining());
+        }
+    }
+
+    @Test
+    void consumeAsync_WhenThePoolIsSaturated_ShouldConsumeOnTheCallingThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        RateLimiter delegate = ratePolicy -> {
+            if (Thread.currentThread().getName().equals("rate-limit-async")) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new Rate(Thread.currentThread().getName(), Instant.now().plus(ratePolicy.getDuration()), 2);
+        };
+        try (ExecutorRateLimiter executorRateLimiter = new ExecutorRateLimiter(delegate, 1, 1)) {
+            executorRateLimiter.consumeAsync(ratePolicy);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executorRateLimiter.consumeAsync(ratePolicy);
+
+            Rate rate = executorRateLimiter.consumeAsync(ratePolicy).toCompletableFuture().join();
+
+            assertEquals(Thread.currentThread().getName(), rate.getKey());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void consumeAsync_WhenDelegateFails_ShouldCompleteExceptionally() {
+        RateLimiter failing = ratePolicy -> {
+            throw new IllegalStateException("Redis is down");
+        };
+        try (ExecutorRateLimiter executorRateLimiter = new ExecutorRateLimiter(failing)) {
+            CompletionException e = assertThrows(CompletionException.class, () ->
+                    executorRateLimiter.consumeAsync(ratePolicy).toCompletableFuture().join());
+
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    void consume_ShouldConsumeOnTheCallingThread() {
+        try (ExecutorRateLimiter executorRateLimiter = new ExecutorRateLimiter(threadNameRateLimiter())) {
+            Rate rate = executorRateLimiter.consume(ratePolicy);
+
+            assertNotEquals("rate-limit-async", rate.getKey());
+        }
+    }
+
+    @Test
+    void constructor_WhenThreadsAreNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ExecutorRateLimiter(threadNameRateLimiter(), 0, 1));
+    }
+
+    /**
+     * Answers a rate keyed by the name of the consuming thread.
+     */
+    private static RateLimiter threadNameRateLimiter() {
+        return ratePolicy -> new Rate(Thread.currentThread().getName(), Instant.now().plus(ratePolicy.getDuration()), 2);
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link FallbackRateLimiter}.
+ *
+ * @author Prabakaran Kannan
+ */
+class FallbackRateLimiterTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    @Test
+    void consume_WhenDelegateAnswersInTime_ShouldReturnTheRateOfTheDelegate() {
+        StubRateLimiter delegate = new StubRateLimiter();
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.LOCAL, 1)) {
+            Rate rate = fallbackRateLimiter.consume(new RatePolicy("test", Duration.ofMinutes(1), 10, null));
+
+            assertEquals(42, rate.getRemaining());
+            assertEquals(1, delegate.calls.get());
+            assertEquals(0, fallbackRateLimiter.getFallbackCount());
+            assertEquals(FallbackRateLimiter.State.CLOSED, fallbackRateLimiter.getState());
+        }
+    }
+
+    @Test
+    void consume_WhenDelegateIsSlow_ShouldReturnTheLocalRateWithinTheBudget() {
+        StubRateLimiter delegate = new StubRateLimiter();
+        delegate.delayMillis = 1_000;
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.LOCAL, 1)) {
+            long start = System.nanoTime();
+            Rate rate = fallbackRateLimiter.consume(new RatePolicy("test", Duration.ofMinutes(1), 10, null));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(9, rate.getRemaining());
+            assertTrue(elapsedMillis < 500, "The consumption took " + elapsedMillis + "ms");
+            assertEquals(1, fallbackRateLimiter.getFallbackCount());
+        }
+    }
+
+    @Test
+    void consume_WhenDelegateFailsInLocalMode_ShouldEnforceTheScaledPolicyLocally() {
+        StubRateLimiter delegate = new StubRateLimiter();
+        delegate.failing.set(true);
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.LOCAL, 0.5)) {
+            RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 4, null);
+
+            assertEquals(1, fallbackRateLimiter.consume(ratePolicy).getRemaining());
+            assertEquals(0, fallbackRateLimiter.consume(ratePolicy).getRemaining());
+            assertTrue(fallbackRateLimiter.consume(ratePolicy).isExceed());
+            assertEquals(3, fallbackRateLimiter.getFallbackCount());
+        }
+    }
+
+    @Test
+    void consume_WhenDelegateFailsInFailOpenMode_ShouldAllowTheRequests() {
+        StubRateLimiter delegate = new StubRateLimiter();
+        delegate.failing.set(true);
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.FAIL_OPEN, 1)) {
+            RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null);
+
+            for (int i = 0; i < 5; i++) {
+                Rate rate = fallbackRateLimiter.consume(ratePolicy);
+                assertFalse(rate.isExceed());
+                assertEquals(1, rate.getRemaining());
+            }
+            assertEquals(5, fallbackRateLimiter.getFallbackCount());
+        }
+    }
+
+    @Test
+    void consume_WhenFailureRateReachesTheThreshold_ShouldStopCallingTheDelegateUntilTheProbeSucceeds() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        StubRateLimiter delegate = new StubRateLimiter();
+        delegate.failing.set(true);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 100, null);
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.LOCAL,
+                1, 0.5, 2, Duration.ofSeconds(1), now::get)) {
+            fallbackRateLimiter.consume(ratePolicy);
+            fallbackRateLimiter.consume(ratePolicy);
+            assertEquals(FallbackRateLimiter.State.OPEN, fallbackRateLimiter.getState());
+
+            delegate.failing.set(false);
+            fallbackRateLimiter.consume(ratePolicy);
+            assertEquals(2, delegate.calls.get());
+
+            now.addAndGet(1_000);
+            assertEquals(42, fallbackRateLimiter.consume(ratePolicy).getRemaining());
+            assertEquals(3, delegate.calls.get());
+            assertEquals(FallbackRateLimiter.State.CLOSED, fallbackRateLimiter.getState());
+        }
+    }
+
+    @Test
+    void consume_WhenTheProbeFails_ShouldOpenTheBreakerAgain() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        StubRateLimiter delegate = new StubRateLimiter();
+        delegate.failing.set(true);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 100, null);
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.LOCAL,
+                1, 0.5, 1, Duration.ofSeconds(1), now::get)) {
+            fallbackRateLimiter.consume(ratePolicy);
+            assertEquals(FallbackRateLimiter.State.OPEN, fallbackRateLimiter.getState());
+
+            now.addAndGet(1_000);
+            fallbackRateLimiter.consume(ratePolicy);
+            fallbackRateLimiter.consume(ratePolicy);
+
+            assertEquals(2, delegate.calls.get());
+            assertEquals(FallbackRateLimiter.State.OPEN, fallbackRateLimiter.getState());
+        }
+    }
+
+    @Test
+    void consumeAsync_WhenDelegateNeverCompletes_ShouldBeCompletedByTheFallbackAfterTheBudget() {
+        RateLimiter delegate = new RateLimiter() {
+            @Override
+            public Rate consume(@Nonnull RatePolicy ratePolicy) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletionStage<Rate> consumeAsync(@Nonnull RatePolicy ratePolicy) {
+                return new CompletableFuture<>();
+            }
+        };
+        try (FallbackRateLimiter fallbackRateLimiter = new FallbackRateLimiter(delegate, TIMEOUT, FallbackRateLimiter.Mode.FAIL_OPEN, 1)) {
+            CompletableFuture<Rate> rate = fallbackRateLimiter.consumeAsync(new RatePolicy("test", Duration.ofMinutes(1), 3, null))
+                    .toCompletableFuture();
+
+            assertFalse(rate.isDone());
+            assertEquals(3, rate.join().getRemaining());
+            assertEquals(1, fallbackRateLimiter.getFallbackCount());
+        }
+    }
+
+    @Test
+    void constructor_WhenLocalRatioIsNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new FallbackRateLimiter(new StubRateLimiter(), TIMEOUT, FallbackRateLimiter.Mode.LOCAL, 0));
+    }
+
+    /**
+     * Answers a fixed remaining value, or fails if it's failing, optionally after a delay.
+     */
+    private static final class StubRateLimiter implements RateLimiter {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+        private volatile long delayMillis;
+
+        @Override
+        public Rate consume(@Nonnull RatePolicy ratePolicy) {
+            calls.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (failing.get())
+                throw new IllegalStateException("Redis is down");
+
+            return new Rate(ratePolicy.getKey(), Instant.now().plus(ratePolicy.getDuration()), 42);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Unit tests for {@link Fingerprints}.
+ *
+ * @author Prabakaran Kannan
+ */
+class FingerprintsTest {
+
+    private static final long SECRET0 = 0x0706050403020100L;
+
+    private static final long SECRET1 = 0x0f0e0d0c0b0a0908L;
+
+    @Test
+    void of_WhenSecretIsGiven_ShouldBeTheSipHashOfTheUtf16Chars() {
+        assertEquals(0x726fdb47dd0e0e31L, Fingerprints.of("", SECRET0, SECRET1));
+        assertEquals(0x0d6c8009d9a94f5aL, Fingerprints.of(chars(2), SECRET0, SECRET1));
+        assertEquals(0x93f5f5799a932462L, Fingerprints.of(chars(8), SECRET0, SECRET1));
+        assertEquals(0xf723ca908e7af2eeL, Fingerprints.of(chars(14), SECRET0, SECRET1));
+        assertEquals(0x3f2acc7f57c29bdbL, Fingerprints.of(chars(16), SECRET0, SECRET1));
+        assertEquals(0xad87a3535c49ef28L, Fingerprints.of(chars(30), SECRET0, SECRET1));
+    }
+
+    @Test
+    void of_WhenSecretsDiffer_TheFingerprintsShouldDiffer() {
+        assertNotEquals(Fingerprints.of("test", SECRET0, SECRET1), Fingerprints.of("test", SECRET1, SECRET0));
+    }
+
+    /**
+     * Returns the string of which UTF-16LE bytes are 0, 1, 2, ... up to the given number of bytes, the input of the
+     * reference SipHash test vectors.
+     */
+    private static String chars(int bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < bytes; i += 2) {
+            builder.append((char) (i | (i + 1) << 8));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link GcraState}.
+ *
+ * @author Prabakaran Kannan
+ */
+class GcraStateTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 10, null, GCRA, null);
+
+    @Test
+    void consume_ConsumeForFirstTime_TheRemainingValueShouldBeEqualWith9() {
+        Rate rate = new GcraState("test").consume(ratePolicy, NOW);
+
+        assertEquals(9, rate.getRemaining());
+        assertEquals(NOW + 100, rate.getExpiration().toEpochMilli());
+        assertEquals("test", rate.getKey());
+    }
+
+    @Test
+    void consume_WhenExceed_ShouldReturnTheExactTimeThatACallWouldBeAllowed() {
+        GcraState state = consume(new GcraState("test"), ratePolicy, 10, NOW);
+
+        Rate rate = state.consume(ratePolicy, NOW + 50);
+        assertEquals(-1, rate.getRemaining());
+        assertEquals(NOW + 100, rate.getExpiration().toEpochMilli());
+
+        assertEquals(-1, state.consume(ratePolicy, NOW + 99).getRemaining());
+        assertEquals(0, state.consume(ratePolicy, NOW + 100).getRemaining());
+    }
+
+    @Test
+    void consume_WhenCapacityIsMoreThanCount_ShouldAllowBurstsOfTheCapacity() {
+        RatePolicy bursting = new RatePolicy("test", Duration.ofSeconds(1), 10, null, GCRA, 20);
+        GcraState state = consume(new GcraState("test"), bursting, 19, NOW);
+
+        assertEquals(0, state.consume(bursting, NOW).getRemaining());
+        assertEquals(-1, state.consume(bursting, NOW).getRemaining());
+    }
+
+    @Test
+    void consume_WhenExceedWithBlockDuration_ShouldRejectUntilTheBlockEnds() {
+        RatePolicy blocking = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(1), GCRA, null);
+        GcraState state = consume(new GcraState("test"), blocking, 1, NOW);
+
+        assertEquals(NOW + 60_000, state.consume(blocking, NOW).getExpiration().toEpochMilli());
+
+        Rate rate = state.consume(blocking, NOW + 30_000);
+        assertEquals(-1, rate.getRemaining());
+        assertEquals(NOW + 60_000, rate.getExpiration().toEpochMilli());
+
+        assertEquals(0, state.consume(blocking, NOW + 60_000).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTheBlockEndsWithinAnEmissionInterval_ShouldNotBlockTheKeyAgain() {
+        RatePolicy blocking = new RatePolicy("test", Duration.ofSeconds(10), 1, Duration.ofMinutes(1), GCRA, null);
+        GcraState state = consume(new GcraState("test"), blocking, 1, NOW);
+        assertEquals(NOW + 60_000, state.consume(blocking, NOW).getExpiration().toEpochMilli());
+
+        assertEquals(0, state.consume(blocking, NOW + 61_000).getRemaining());
+        assertEquals(0, state.consume(blocking, NOW + 71_000).getRemaining());
+    }
+
+    @Test
+    void evict_WhenTheTheoreticalArrivalTimeIsPassed_ShouldNotBeConsumedAnymore() {
+        GcraState state = consume(new GcraState("test"), ratePolicy, 3, NOW);
+
+        assertFalse(state.evict(NOW + 299));
+        assertTrue(state.evict(NOW + 300));
+        assertNull(state.consume(ratePolicy, NOW + 300));
+    }
+
+    private GcraState consume(GcraState state, RatePolicy ratePolicy, int times, long nowMillis) {
+        for (int i = 0; i < times; i++) {
+            state.consume(ratePolicy, nowMillis);
+        }
+
+        return state;
+    }
+}
@@ -3,14 +3,32 @@ package com.github.prabakarankannan.ratelimit.repositories;
 import org.junit.jupiter.api.Test;
 
 import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitAlgorithm;
 import com.github.prabakarankannan.ratelimit.RatePolicy;
 import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
 
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.SLIDING_WINDOW;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for {@link InMemoryRateCache}.
@@ -64,4 +82,287 @@ class InMemoryRateCacheTest {
         assertEquals(120, expirationDiff);
         assertEquals(-1, rate.getRemaining());
     }
+
+    @Test
+    void consume_WhenWindowIsShorterThanASecond_ShouldStartANewWindowByTheClockMilliseconds() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false, now::get);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(100), 50, null);
+
+        for (int i = 49; i >= 0; i--) {
+            assertEquals(i, inMemoryRateCache.consume(ratePolicy).getRemaining());
+        }
+        Rate exceeded = inMemoryRateCache.consume(ratePolicy);
+        assertEquals(-1, exceeded.getRemaining());
+        assertEquals(1_000_100, exceeded.getExpiration().toEpochMilli());
+
+        now.addAndGet(100);
+        assertTrue(inMemoryRateCache.consume(ratePolicy).isExceed());
+
+        now.addAndGet(1);
+        assertEquals(49, inMemoryRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenBlockDurationIsShorterThanASecond_ShouldBlockByTheClockMilliseconds() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false, now::get);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(100), 1, Duration.ofMillis(250));
+        inMemoryRateCache.consume(ratePolicy);
+
+        now.addAndGet(50);
+        Rate blocked = inMemoryRateCache.consume(ratePolicy);
+        assertEquals(-1, blocked.getRemaining());
+        assertEquals(1_000_300, blocked.getExpiration().toEpochMilli());
+
+        now.addAndGet(200);
+        assertTrue(inMemoryRateCache.consume(ratePolicy).isExceed());
+
+        now.addAndGet(51);
+        assertEquals(0, inMemoryRateCache.consume(ratePolicy).getRemaining());
+        assertEquals(0, inMemoryRateCache.evictExpired());
+    }
+
+    @Test
+    void consume_WhenManyThreadsConsumeTheSameKey_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 1000, null);
+
+        int allowed = consumeConcurrently(8, 500, threadIndex -> ratePolicy, inMemoryRateCache);
+
+        assertEquals(1000, allowed);
+        assertEquals(-1, inMemoryRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenManyThreadsConsumeDifferentKeys_ShouldCountEachKeyIndependently() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+
+        int allowed = consumeConcurrently(8, 500,
+                threadIndex -> new RatePolicy("test-" + threadIndex, Duration.ofDays(1), 300, null),
+                inMemoryRateCache);
+
+        assertEquals(8 * 300, allowed);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(-1, inMemoryRateCache.consume(new RatePolicy("test-" + i, Duration.ofDays(1), 300, null)).getRemaining());
+        }
+    }
+
+    @Test
+    void consume_WhenAnotherThreadHoldsTheMonitorOfTheCache_ShouldNotWaitForIt() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofSeconds(1), false);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+
+        synchronized (inMemoryRateCache) {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Rate> rate = executor.submit(() -> inMemoryRateCache.consume(ratePolicy));
+
+                assertEquals(2, rate.get(5, TimeUnit.SECONDS).getRemaining());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsTokenBucket_ShouldAllowBurstsOfTheCapacity() {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null, TOKEN_BUCKET, 5);
+
+        for (int i = 4; i >= 0; i--) {
+            assertEquals(i, inMemoryRateCache.consume(ratePolicy).getRemaining());
+        }
+        assertEquals(-1, inMemoryRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTheSameKeyIsUsedByTokenBucketAndFixedWindow_ShouldCountEachAlgorithmIndependently() {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        inMemoryRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null, TOKEN_BUCKET, null));
+
+        assertEquals(2, inMemoryRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null)).getRemaining());
+        assertEquals(2, inMemoryRateCache.size());
+    }
+
+    @Test
+    void consume_WhenManyThreadsTakeTokensOfTheSameBucket_ShouldAllowExactlyTheCapacity() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 1, null, TOKEN_BUCKET, 1000);
+
+        int allowed = consumeConcurrently(8, 500, threadIndex -> ratePolicy, inMemoryRateCache);
+
+        assertEquals(1000, allowed);
+    }
+
+    @Test
+    void consume_WhenManyThreadsConsumeTheSameSlidingWindow_ShouldAllowAtMostTheCountOfThePolicy() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 1000, null, SLIDING_WINDOW, null);
+
+        int allowed = consumeConcurrently(8, 500, threadIndex -> ratePolicy, inMemoryRateCache);
+
+        assertTrue(allowed > 0 && allowed <= 1000, "Allowed " + allowed);
+        assertEquals(-1, inMemoryRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void evictExpired_WhenSlidingWindowsArePassed_ShouldRemoveItFromTheCache() throws InterruptedException {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false);
+        inMemoryRateCache.consume(new RatePolicy("passed", Duration.ofMillis(10), 1, null, SLIDING_WINDOW, null));
+        inMemoryRateCache.consume(new RatePolicy("live", Duration.ofDays(1), 1, null, SLIDING_WINDOW, null));
+        TimeUnit.MILLISECONDS.sleep(80);
+
+        assertEquals(1, inMemoryRateCache.evictExpired());
+        assertEquals(1, inMemoryRateCache.size());
+    }
+
+    @Test
+    void consume_WhenManyThreadsConsumeTheSameGcraKey_ShouldAllowExactlyTheCapacityOfThePolicy() throws Exception {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 1000, null, GCRA, null);
+
+        int allowed = consumeConcurrently(8, 500, threadIndex -> ratePolicy, inMemoryRateCache);
+
+        assertEquals(1000, allowed);
+        assertEquals(-1, inMemoryRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void evictExpired_WhenGcraTheoreticalArrivalTimeIsPassed_ShouldRemoveItFromTheCache() throws InterruptedException {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false);
+        RatePolicy passed = new RatePolicy("passed", Duration.ofMillis(10), 1, null, GCRA, null);
+        inMemoryRateCache.consume(passed);
+        inMemoryRateCache.consume(new RatePolicy("live", Duration.ofDays(1), 1, null, GCRA, null));
+        TimeUnit.MILLISECONDS.sleep(80);
+
+        assertEquals(1, inMemoryRateCache.evictExpired());
+        assertEquals(1, inMemoryRateCache.size());
+        assertEquals(0, inMemoryRateCache.consume(passed).getRemaining());
+    }
+
+    @Test
+    void evictExpired_WhenTokenBucketIsFull_ShouldRemoveItFromTheCache() throws InterruptedException {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false);
+        inMemoryRateCache.consume(new RatePolicy("full", Duration.ofMillis(20), 1, null, TOKEN_BUCKET, null));
+        inMemoryRateCache.consume(new RatePolicy("refilling", Duration.ofDays(1), 1, null, TOKEN_BUCKET, null));
+        TimeUnit.MILLISECONDS.sleep(80);
+
+        assertEquals(1, inMemoryRateCache.evictExpired());
+        assertEquals(1, inMemoryRateCache.size());
+    }
+
+    @Test
+    void evictExpired_WhenAnExpiredStateIsReplacedWhileEvicting_ShouldRemoveTheReplacementWhenItExpires() {
+        for (RateLimitAlgorithm algorithm : new RateLimitAlgorithm[]{TOKEN_BUCKET, SLIDING_WINDOW}) {
+            AtomicLong now = new AtomicLong(1_000_000);
+            AtomicInteger readsUntilConsume = new AtomicInteger(-1);
+            AtomicReference<Runnable> consumeWhileEvicting = new AtomicReference<>();
+            InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false, () -> {
+                if (readsUntilConsume.getAndDecrement() == 0)
+                    consumeWhileEvicting.get().run();
+                return now.get();
+            });
+            RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(20), 1, null, algorithm, null);
+            consumeWhileEvicting.set(() -> inMemoryRateCache.consume(ratePolicy));
+            inMemoryRateCache.consume(ratePolicy);
+            now.addAndGet(100);
+
+            // The second read is made by the eviction of the expired state, between reading and removing it.
+            readsUntilConsume.set(1);
+            assertEquals(0, inMemoryRateCache.evictExpired());
+            assertEquals(1, inMemoryRateCache.size());
+
+            now.addAndGet(100);
+            assertEquals(1, inMemoryRateCache.evictExpired());
+            assertEquals(0, inMemoryRateCache.size(), algorithm.name());
+        }
+    }
+
+    @Test
+    void evictExpired_WhenRateRecordExpired_ShouldRemoveItFromTheCache() throws InterruptedException {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false);
+        inMemoryRateCache.consume(new RatePolicy("expired", Duration.ofNanos(1), 3, null));
+        inMemoryRateCache.consume(new RatePolicy("live", Duration.ofDays(1), 3, null));
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertEquals(1, inMemoryRateCache.evictExpired());
+        assertEquals(1, inMemoryRateCache.size());
+        assertEquals(1, inMemoryRateCache.getEvictionCount());
+    }
+
+    @Test
+    void evictExpired_WhenRateRecordConsumedAfterScheduling_ShouldRemoveTheLatestRate() throws InterruptedException {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), false);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofNanos(1), 3, null);
+        Rate first = inMemoryRateCache.consume(ratePolicy);
+        TimeUnit.MILLISECONDS.sleep(50);
+        Rate second = inMemoryRateCache.consume(ratePolicy);
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertNotSame(first, second);
+        assertEquals(1, inMemoryRateCache.evictExpired());
+        assertEquals(0, inMemoryRateCache.size());
+    }
+
+    @Test
+    void evictExpired_WhenBackgroundExpirationIsOn_ShouldRemoveExpiredRatesWithoutCalling() throws InterruptedException {
+        try (InMemoryRateCache inMemoryRateCache = new InMemoryRateCache(Duration.ofMillis(10), true)) {
+            inMemoryRateCache.consume(new RatePolicy("test", Duration.ofNanos(1), 3, null));
+
+            for (int i = 0; i < 100 && inMemoryRateCache.size() > 0; i++) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+
+            assertEquals(0, inMemoryRateCache.size());
+            assertEquals(1, inMemoryRateCache.getEvictionCount());
+        }
+    }
+
+    /**
+     * Starts the given number of threads at the same time, each consumes its policy for the given times.
+     *
+     * @return The number of consumptions that were not exceeded.
+     */
+    @Test
+    void consumeAsync_ShouldBeCompletedByTheCallingThread() {
+        InMemoryRateCache inMemoryRateCache = new InMemoryRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+        inMemoryRateCache.consume(ratePolicy);
+        CompletableFuture<Rate> rate = inMemoryRateCache.consumeAsync(ratePolicy).toCompletableFuture();
+
+        assertTrue(rate.isDone());
+        assertEquals(1, rate.join().getRemaining());
+    }
+
+    private int consumeConcurrently(int threads, int consumesPerThread, IntFunction<RatePolicy> policyFactory, InMemoryRateCache cache) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                RatePolicy ratePolicy = policyFactory.apply(i);
+                Callable<Integer> task = () -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int j = 0; j < consumesPerThread; j++) {
+                        if (!cache.consume(ratePolicy).isExceed())
+                            allowed++;
+                    }
+                    return allowed;
+                };
+                results.add(executor.submit(task));
+            }
+
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+            return allowed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
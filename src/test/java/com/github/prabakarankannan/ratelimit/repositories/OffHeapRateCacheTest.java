@@ -0,0 +1,98 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link OffHeapRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+class OffHeapRateCacheTest {
+
+    @Test
+    void consume_CreateRateForFirstTime_TheRateRemainingValueShouldBeEqualWIth2() {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache();
+        Rate rate = offHeapRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null));
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+        assertEquals(1, offHeapRateCache.size());
+    }
+
+    @Test
+    void consume_WhenExceed_ShouldIncreaseExpiration2MinAndRateBeMinus1() {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, Duration.ofMinutes(2));
+        offHeapRateCache.consume(ratePolicy);
+        Rate rate = offHeapRateCache.consume(ratePolicy);
+
+        long expirationDiff = rate.getExpiration().getEpochSecond() - Instant.now().getEpochSecond();
+
+        assertTrue(expirationDiff >= 119 && expirationDiff <= 120);
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(offHeapRateCache.consume(ratePolicy).isExceed());
+    }
+
+    @Test
+    void consume_WhenRateExpired_ShouldStartANewWindowInTheSameRecord() throws InterruptedException {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache();
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(50), 1, null);
+        offHeapRateCache.consume(ratePolicy);
+        assertTrue(offHeapRateCache.consume(ratePolicy).isExceed());
+
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertEquals(0, offHeapRateCache.consume(ratePolicy).getRemaining());
+        assertEquals(1, offHeapRateCache.size());
+    }
+
+    @Test
+    void consume_WhenManyKeysAreSprayed_ShouldKeepTheSizeAndTheMemoryBounded() {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache(1_000);
+        long capacityBytes = offHeapRateCache.getCapacityBytes();
+        for (int i = 0; i < 100_000; i++) {
+            offHeapRateCache.consume(new RatePolicy("sprayed-" + i, Duration.ofDays(1), 10, null));
+        }
+
+        assertTrue(offHeapRateCache.size() * OffHeapRateCache.RECORD_SIZE <= capacityBytes);
+        assertTrue(offHeapRateCache.getEvictionCount() > 0);
+        assertEquals(capacityBytes, offHeapRateCache.getCapacityBytes());
+    }
+
+    @Test
+    void consume_WhenTableIsFull_ShouldReplaceTheRecordThatExpiresFirst() {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache(1);
+        RatePolicy longLived = new RatePolicy("long-lived", Duration.ofDays(1), 10, null);
+        offHeapRateCache.consume(longLived);
+        for (int i = 0; i < 10_000; i++) {
+            offHeapRateCache.consume(new RatePolicy("short-lived-" + i, Duration.ofMinutes(1), 10, null));
+        }
+
+        assertEquals(8, offHeapRateCache.consume(longLived).getRemaining());
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsNotFixedWindow_ShouldThrowIllegalArgumentException() {
+        OffHeapRateCache offHeapRateCache = new OffHeapRateCache();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                offHeapRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 1)));
+    }
+
+    @Test
+    void constructor_WhenMaximumSizeIsNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapRateCache(0));
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.SLIDING_WINDOW;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RateSnapshot}, by writing and reading the snapshots of {@link InMemoryRateCache}s.
+ *
+ * @author Prabakaran Kannan
+ */
+class RateSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void readSnapshot_ShouldRestoreTheStatesOfAllOfTheAlgorithms() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        RatePolicy fixedWindow = new RatePolicy("fixed", Duration.ofMinutes(1), 3, null);
+        RatePolicy tokenBucket = new RatePolicy("bucket", Duration.ofMinutes(1), 3, null, TOKEN_BUCKET, 3);
+        RatePolicy slidingWindow = new RatePolicy("sliding", Duration.ofMinutes(1), 3, null, SLIDING_WINDOW, 3);
+        RatePolicy gcra = new RatePolicy("gcra", Duration.ofMinutes(1), 3, null, GCRA, 3);
+
+        InMemoryRateCache previous = newCache();
+        for (RatePolicy ratePolicy : Arrays.asList(fixedWindow, tokenBucket, slidingWindow, gcra)) {
+            previous.consume(ratePolicy);
+            previous.consume(ratePolicy);
+        }
+        assertEquals(4, previous.writeSnapshot(snapshot));
+
+        InMemoryRateCache restored = newCache();
+        assertEquals(4, restored.readSnapshot(snapshot));
+
+        assertEquals(4, restored.size());
+        for (RatePolicy ratePolicy : Arrays.asList(fixedWindow, tokenBucket, slidingWindow, gcra)) {
+            Rate expected = previous.consume(ratePolicy);
+            Rate rate = restored.consume(ratePolicy);
+            assertEquals(expected.getRemaining(), rate.getRemaining(), ratePolicy.getAlgorithm().name());
+            assertEquals(expected.getExpiration(), rate.getExpiration(), ratePolicy.getAlgorithm().name());
+            assertTrue(restored.consume(ratePolicy).isExceed(), ratePolicy.getAlgorithm().name());
+        }
+    }
+
+    @Test
+    void readSnapshot_ShouldSkipTheStatesThatExpiredSinceTheSnapshot() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        InMemoryRateCache previous = newCache();
+        previous.consume(new RatePolicy("short", Duration.ofSeconds(1), 3, null));
+        previous.consume(new RatePolicy("long", Duration.ofMinutes(1), 3, null));
+        RatePolicy blocking = new RatePolicy("blocked", Duration.ofSeconds(1), 1, Duration.ofMinutes(1));
+        previous.consume(blocking);
+        previous.consume(blocking);
+        previous.consume(new RatePolicy("gcra", Duration.ofSeconds(1), 3, null, GCRA, 3));
+        previous.writeSnapshot(snapshot);
+
+        now.addAndGet(5_000);
+        InMemoryRateCache restored = newCache();
+
+        assertEquals(2, restored.readSnapshot(snapshot));
+        assertEquals(2, restored.size());
+        assertTrue(restored.consume(blocking).isExceed());
+        assertEquals(2, restored.consume(new RatePolicy("short", Duration.ofSeconds(1), 3, null)).getRemaining());
+    }
+
+    @Test
+    void readSnapshot_WhenAKeyIsConsumedAlready_ShouldKeepItsCurrentState() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+        InMemoryRateCache previous = newCache();
+        previous.consume(ratePolicy);
+        previous.consume(ratePolicy);
+        previous.writeSnapshot(snapshot);
+
+        InMemoryRateCache restored = newCache();
+        restored.consume(ratePolicy);
+
+        assertEquals(0, restored.readSnapshot(snapshot));
+        assertEquals(1, restored.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void readSnapshot_WhenThereAreManyKeys_ShouldRestoreAllOfThem() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        InMemoryRateCache previous = newCache();
+        for (int i = 0; i < 200_000; i++) {
+            previous.consume(new RatePolicy("key-" + i, Duration.ofMinutes(1), 3, null));
+        }
+
+        assertEquals(200_000, previous.writeSnapshot(snapshot));
+        InMemoryRateCache restored = newCache();
+
+        assertEquals(200_000, restored.readSnapshot(snapshot));
+        assertEquals(1, restored.consume(new RatePolicy("key-199999", Duration.ofMinutes(1), 3, null)).getRemaining());
+    }
+
+    @Test
+    void writeSnapshot_ShouldReplaceTheExistingSnapshotWithoutLeavingATemporaryFile() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        InMemoryRateCache cache = newCache();
+        cache.consume(new RatePolicy("first", Duration.ofMinutes(1), 3, null));
+        cache.writeSnapshot(snapshot);
+        cache.consume(new RatePolicy("second", Duration.ofMinutes(1), 3, null));
+
+        assertEquals(2, cache.writeSnapshot(snapshot));
+        assertEquals(2, newCache().readSnapshot(snapshot));
+        assertFalse(Files.exists(directory.resolve("rates.tmp")));
+    }
+
+    @Test
+    void readSnapshot_WhenTheFileIsNotASnapshot_ShouldThrowIOException() throws IOException {
+        Path file = directory.resolve("other");
+        Files.write(file, "not a snapshot of the rates".getBytes());
+
+        assertThrows(IOException.class, () -> newCache().readSnapshot(file));
+    }
+
+    @Test
+    void readSnapshot_WhenTheSnapshotIsTruncated_ShouldThrowIOException() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        ByteBuffer header = ByteBuffer.allocate(RateSnapshot.HEADER_SIZE).putInt(RateSnapshot.MAGIC).putInt(RateSnapshot.VERSION).putLong(3);
+        Files.write(snapshot, header.array());
+
+        assertThrows(IOException.class, () -> newCache().readSnapshot(snapshot));
+    }
+
+    @Test
+    void constructor_WhenSnapshotPathIsSet_ShouldRestoreTheSnapshotAndWriteItByClose() {
+        Path snapshot = directory.resolve("rates");
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+
+        InMemoryRateCache previous = new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, false, now::get, snapshot);
+        previous.consume(ratePolicy);
+        previous.close();
+        InMemoryRateCache restored = new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, false, now::get, snapshot);
+
+        assertEquals(1, restored.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void constructor_WhenSnapshotIsCorrupted_ShouldStartEmpty() throws IOException {
+        Path snapshot = directory.resolve("rates");
+        Files.write(snapshot, new byte[]{1, 2, 3});
+
+        InMemoryRateCache cache = new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, false, now::get, snapshot);
+
+        assertEquals(0, cache.size());
+    }
+
+    private InMemoryRateCache newCache() {
+        return new InMemoryRateCache(InMemoryRateCache.DEFAULT_EXPIRATION_INTERVAL, false, now::get);
+    }
+}
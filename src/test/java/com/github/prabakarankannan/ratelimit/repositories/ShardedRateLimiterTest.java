@@ -0,0 +1,91 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ShardedRateLimiter}.
+ *
+ * @author Prabakaran Kannan
+ */
+class ShardedRateLimiterTest {
+
+    @Test
+    void consume_WhenKeyIsConsumedAgain_ShouldBeConsumedByTheSameShard() {
+        ShardedRateLimiter shardedRateLimiter = new ShardedRateLimiter(shards(3));
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+
+        shardedRateLimiter.consume(ratePolicy);
+        shardedRateLimiter.consume(ratePolicy);
+
+        assertEquals(0, shardedRateLimiter.consume(ratePolicy).getRemaining());
+        assertSame(shardedRateLimiter.shard("test"), shardedRateLimiter.shard("test"));
+    }
+
+    @Test
+    void consume_WhenAlgorithmsDiffer_ShouldBeConsumedByTheShardOfTheKey() {
+        ShardedRateLimiter shardedRateLimiter = new ShardedRateLimiter(shards(3));
+        shardedRateLimiter.consume(new RatePolicy("test", Duration.ofMinutes(1), 3, null, TOKEN_BUCKET, 3));
+
+        InMemoryRateCache shard = (InMemoryRateCache) shardedRateLimiter.shard("test");
+        assertEquals(1, shard.size());
+    }
+
+    @Test
+    void shard_WhenManyKeysAreConsumed_ShouldSpreadThemOverAllOfTheShards() {
+        Map<String, RateLimiter> shards = shards(4);
+        ShardedRateLimiter shardedRateLimiter = new ShardedRateLimiter(shards);
+
+        Map<RateLimiter, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            counts.merge(shardedRateLimiter.shard("key-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 1_500 && count < 3_500);
+        }
+    }
+
+    @Test
+    void shard_WhenAShardIsRemoved_OnlyItsKeysShouldMove() {
+        Map<String, RateLimiter> shards = shards(4);
+        ShardedRateLimiter before = new ShardedRateLimiter(shards);
+        RateLimiter removed = shards.remove("shard-3");
+        ShardedRateLimiter after = new ShardedRateLimiter(shards);
+
+        for (int i = 0; i < 10_000; i++) {
+            RateLimiter shard = before.shard("key-" + i);
+            if (shard != removed) {
+                assertSame(shard, after.shard("key-" + i));
+            }
+        }
+    }
+
+    @Test
+    void constructor_WhenThereIsNoShard_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedRateLimiter(new HashMap<>()));
+    }
+
+    private static Map<String, RateLimiter> shards(int count) {
+        Map<String, RateLimiter> shards = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            shards.put("shard-" + i, new InMemoryRateCache());
+        }
+
+        return shards;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.SLIDING_WINDOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link SlidingWindow}.
+ *
+ * @author Prabakaran Kannan
+ */
+class SlidingWindowTest {
+
+    /**
+     * The start of a window, aligned by the duration of the policies.
+     */
+    private static final long START = 1_000_000L;
+
+    private final RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 10, null, SLIDING_WINDOW, null);
+
+    @Test
+    void consume_CreateWindowForFirstTime_TheRemainingValueShouldBeEqualWith9() {
+        Rate rate = SlidingWindow.consume(null, ratePolicy, START + 200).toRate(ratePolicy);
+
+        assertEquals(9, rate.getRemaining());
+        assertEquals(START + 1_000, rate.getExpiration().toEpochMilli());
+        assertEquals("test", rate.getKey());
+    }
+
+    @Test
+    void consume_WhenTheCountIsUsedAtTheEndOfAWindow_ShouldNotAllowTheCountAgainAtTheStartOfTheNextWindow() {
+        SlidingWindow window = consume(null, 10, START + 999);
+
+        Rate rate = SlidingWindow.consume(window, ratePolicy, START + 1_000).toRate(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        assertEquals(START + 1_100, rate.getExpiration().toEpochMilli());
+    }
+
+    @Test
+    void consume_WhenTheWeightOfThePreviousWindowDrops_ShouldAllowAgain() {
+        SlidingWindow window = consume(null, 10, START + 999);
+
+        assertEquals(-1, SlidingWindow.consume(window, ratePolicy, START + 1_099).toRate(ratePolicy).getRemaining());
+        assertEquals(0, SlidingWindow.consume(window, ratePolicy, START + 1_100).toRate(ratePolicy).getRemaining());
+        assertEquals(5, SlidingWindow.consume(window, ratePolicy, START + 1_600).toRate(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTheWindowsArePassed_ShouldStartFromNoCalls() {
+        SlidingWindow window = consume(null, 10, START);
+
+        assertEquals(9, SlidingWindow.consume(window, ratePolicy, START + 2_000).toRate(ratePolicy).getRemaining());
+        assertEquals(START + 2_000, window.getExpirationMillis());
+    }
+
+    @Test
+    void consume_WhenExceedWithBlockDuration_ShouldRejectUntilTheBlockEnds() {
+        RatePolicy blocking = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(1), SLIDING_WINDOW, null);
+        SlidingWindow window = SlidingWindow.consume(SlidingWindow.consume(null, blocking, START), blocking, START);
+
+        assertEquals(START + 60_000, window.toRate(blocking).getExpiration().toEpochMilli());
+        assertEquals(START + 60_000, window.getExpirationMillis());
+
+        window = SlidingWindow.consume(window, blocking, START + 30_000);
+        assertEquals(-1, window.toRate(blocking).getRemaining());
+        assertEquals(START + 60_000, window.toRate(blocking).getExpiration().toEpochMilli());
+
+        assertEquals(0, SlidingWindow.consume(window, blocking, START + 60_000).toRate(blocking).getRemaining());
+    }
+
+    private SlidingWindow consume(SlidingWindow window, int times, long nowMillis) {
+        for (int i = 0; i < times; i++) {
+            window = SlidingWindow.consume(window, ratePolicy, nowMillis);
+        }
+
+        return window;
+    }
+}
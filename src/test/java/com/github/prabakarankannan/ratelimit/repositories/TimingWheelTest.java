@@ -0,0 +1,92 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link TimingWheel}.
+ *
+ * @author Prabakaran Kannan
+ */
+class TimingWheelTest {
+
+    @Test
+    void advance_WhenDeadlineIsNotPassed_ShouldNotExpireTheItem() {
+        TimingWheel<String> timingWheel = new TimingWheel<>(10, 4, 0);
+        List<String> expired = new ArrayList<>();
+        timingWheel.schedule("test", 25);
+
+        assertEquals(0, timingWheel.advance(25, expired::add));
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    void advance_WhenDeadlineIsPassed_ShouldExpireTheItem() {
+        TimingWheel<String> timingWheel = new TimingWheel<>(10, 4, 0);
+        List<String> expired = new ArrayList<>();
+        timingWheel.schedule("test", 25);
+
+        assertEquals(1, timingWheel.advance(30, expired::add));
+        assertEquals(1, expired.size());
+        assertEquals("test", expired.get(0));
+    }
+
+    @Test
+    void advance_ShouldReturnOnlyTheNumberOfReclaimedItems() {
+        TimingWheel<String> timingWheel = new TimingWheel<>(10, 4, 0);
+        timingWheel.schedule("reclaimed", 5);
+        timingWheel.schedule("ignored", 5);
+
+        assertEquals(1, timingWheel.advance(10, "reclaimed"::equals));
+    }
+
+    @Test
+    void advance_WhenDeadlinesAreBeyondTheFirstLevel_ShouldExpireEachItemAfterItsDeadline() {
+        TimingWheel<Long> timingWheel = new TimingWheel<>(10, 4, 0);
+        Random random = new Random(42);
+        Map<Long, Long> expiredAt = new HashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            timingWheel.schedule(i, random.nextInt(100_000));
+        }
+
+        for (long now = 0; now <= 100_010; now += 7) {
+            long currentMillis = now;
+            timingWheel.advance(currentMillis, item -> expiredAt.put(item, currentMillis) == null);
+        }
+
+        random = new Random(42);
+        assertEquals(1000, expiredAt.size());
+        for (long i = 0; i < 1000; i++) {
+            long deadline = random.nextInt(100_000);
+            long expiration = expiredAt.get(i);
+            assertTrue(expiration > deadline, "The item " + i + " expired before its deadline");
+            assertTrue(expiration < deadline + 20, "The item " + i + " expired too late");
+        }
+    }
+
+    @Test
+    void advance_WhenScheduledAfterTheWheelMoved_ShouldExpireTheItemAfterItsDeadline() {
+        TimingWheel<String> timingWheel = new TimingWheel<>(10, 4, 0);
+        List<String> expired = new ArrayList<>();
+        timingWheel.advance(1_000, expired::add);
+
+        timingWheel.schedule("test", 1_500);
+
+        assertEquals(0, timingWheel.advance(1_500, expired::add));
+        assertEquals(1, timingWheel.advance(1_510, expired::add));
+    }
+
+    @Test
+    void constructor_GivenInvalidTick_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(0, 4, 0));
+    }
+}
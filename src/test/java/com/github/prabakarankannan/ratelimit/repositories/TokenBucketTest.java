@@ -0,0 +1,94 @@
+package com.github.prabakarankannan.ratelimit.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link TokenBucket}.
+ *
+ * @author Prabakaran Kannan
+ */
+class TokenBucketTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    void consume_CreateBucketForFirstTime_ShouldTakeATokenFromAFullBucket() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 3, null, TOKEN_BUCKET, null);
+        Rate rate = TokenBucket.consume(null, ratePolicy, NOW).toRate(ratePolicy);
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals(NOW + 334, rate.getExpiration().toEpochMilli());
+        assertEquals("test", rate.getKey());
+    }
+
+    @Test
+    void consume_WhenThereIsNoToken_ShouldBeExceededUntilTheNextToken() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 2, null, TOKEN_BUCKET, null);
+        TokenBucket bucket = null;
+        for (int i = 0; i < 2; i++) {
+            bucket = TokenBucket.consume(bucket, ratePolicy, NOW);
+        }
+        Rate rate = TokenBucket.consume(bucket, ratePolicy, NOW).toRate(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        assertEquals(NOW + 500, rate.getExpiration().toEpochMilli());
+    }
+
+    @Test
+    void consume_ShouldRefillLazilyByTheTimePassed() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 2, null, TOKEN_BUCKET, null);
+        TokenBucket bucket = TokenBucket.consume(TokenBucket.consume(null, ratePolicy, NOW), ratePolicy, NOW);
+
+        assertEquals(-1, TokenBucket.consume(bucket, ratePolicy, NOW + 499).toRate(ratePolicy).getRemaining());
+        assertEquals(0, TokenBucket.consume(bucket, ratePolicy, NOW + 500).toRate(ratePolicy).getRemaining());
+        assertEquals(1, TokenBucket.consume(bucket, ratePolicy, NOW + 10_000).toRate(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenCapacityIsSet_ShouldAllowBurstsOfTheCapacity() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 5);
+        TokenBucket bucket = null;
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            bucket = TokenBucket.consume(bucket, ratePolicy, NOW);
+            if (!bucket.toRate(ratePolicy).isExceed())
+                allowed++;
+        }
+
+        assertEquals(5, allowed);
+        assertEquals(NOW + 5 * 60_000, bucket.getExpirationMillis());
+    }
+
+    @Test
+    void consume_WhenExceedWithBlockDuration_ShouldNotRefillUntilTheBlockEnds() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(1), TOKEN_BUCKET, null);
+        TokenBucket bucket = TokenBucket.consume(TokenBucket.consume(null, ratePolicy, NOW), ratePolicy, NOW);
+
+        assertEquals(NOW + 60_000, bucket.toRate(ratePolicy).getExpiration().toEpochMilli());
+
+        bucket = TokenBucket.consume(bucket, ratePolicy, NOW + 30_000);
+        assertEquals(-1, bucket.toRate(ratePolicy).getRemaining());
+        assertEquals(NOW + 60_000, bucket.toRate(ratePolicy).getExpiration().toEpochMilli());
+
+        assertEquals(0, TokenBucket.consume(bucket, ratePolicy, NOW + 60_000).toRate(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTheBlockEndsWithinARefillInterval_ShouldNotBlockTheBucketAgain() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(10), 1, Duration.ofMinutes(1), TOKEN_BUCKET, null);
+        TokenBucket bucket = TokenBucket.consume(TokenBucket.consume(null, ratePolicy, NOW), ratePolicy, NOW);
+        assertEquals(NOW + 60_000, bucket.toRate(ratePolicy).getExpiration().toEpochMilli());
+
+        bucket = TokenBucket.consume(bucket, ratePolicy, NOW + 61_000);
+        assertEquals(0, bucket.toRate(ratePolicy).getRemaining());
+        assertEquals(0, TokenBucket.consume(bucket, ratePolicy, NOW + 71_000).toRate(ratePolicy).getRemaining());
+    }
+}
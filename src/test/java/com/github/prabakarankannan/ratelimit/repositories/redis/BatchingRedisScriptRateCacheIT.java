@@ -0,0 +1,118 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link BatchingRedisScriptRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@DataRedisTest(excludeAutoConfiguration = RedisRepositoriesAutoConfiguration.class)
+class BatchingRedisScriptRateCacheIT {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private BatchingRedisScriptRateCache batchingRateCache;
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "test");
+    }
+
+    @Test
+    void consume_ShouldCreateRateForFirstTime_TheRateRemainingValueShouldBeEqualWith2() {
+        Rate rate = batchingRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null));
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+    }
+
+    @Test
+    void consume_WhenManyThreadsConsumeConcurrently_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Rate>> results = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                results.add(executor.submit(() -> batchingRateCache.consume(ratePolicy)));
+            }
+
+            int allowed = 0;
+            for (Future<Rate> result : results) {
+                if (!result.get(30, TimeUnit.SECONDS).isExceed())
+                    allowed++;
+            }
+
+            assertEquals(100, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void consumeAsync_ShouldCompleteTheRatesByTheBatch() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 2, null);
+        List<Rate> rates = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rates.add(batchingRateCache.consumeAsync(ratePolicy).toCompletableFuture().get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, rates.get(0).getRemaining());
+        assertEquals(0, rates.get(1).getRemaining());
+        assertTrue(rates.get(2).isExceed());
+    }
+
+    @Test
+    void consume_WhenRedisLostTheScript_ShouldLoadItAgain() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+        batchingRateCache.consume(ratePolicy);
+        redisTemplate.execute((RedisConnection connection) -> {
+            connection.scriptFlush();
+            return null;
+        });
+
+        assertEquals(1, batchingRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenClosed_ShouldThrowIllegalStateException() {
+        BatchingRedisScriptRateCache closedRateCache = new BatchingRedisScriptRateCache(redisTemplate, Duration.ofMillis(1), 16);
+        closedRateCache.close();
+
+        assertThrows(IllegalStateException.class, () -> closedRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null)));
+    }
+
+    @Configuration
+    static class BatchingConfiguration {
+
+        @Bean
+        BatchingRedisScriptRateCache batchingRedisScriptRateCache(StringRedisTemplate redisTemplate) {
+            return new BatchingRedisScriptRateCache(redisTemplate, Duration.ofMillis(1), 16);
+        }
+    }
+}
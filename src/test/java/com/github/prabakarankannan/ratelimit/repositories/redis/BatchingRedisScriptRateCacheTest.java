@@ -0,0 +1,68 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link BatchingRedisScriptRateCache}, by a mocked redis template.
+ *
+ * @author Prabakaran Kannan
+ */
+class BatchingRedisScriptRateCacheTest {
+
+    private final RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+
+    private final StringRedisTemplate redisTemplate = Mockito.mock(StringRedisTemplate.class);
+
+    @Test
+    void consume_WhenABatchFailsByAnError_ShouldFailItsConsumptionsAndSendTheNextBatches() {
+        Mockito.when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any()))
+                .thenThrow(new NoClassDefFoundError("io/lettuce/core/Command"))
+                .thenReturn(Collections.singletonList(Arrays.asList(2L, 60_000L)));
+
+        try (BatchingRedisScriptRateCache rateCache = batchingRateCache(Duration.ofSeconds(5))) {
+            assertThrows(NoClassDefFoundError.class, () -> rateCache.consume(ratePolicy));
+
+            assertEquals(2, rateCache.consume(ratePolicy).getRemaining());
+        }
+    }
+
+    @Test
+    void consume_WhenTheBatchIsNotExecutedInTime_ShouldThrowQueryTimeoutException() {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any())).thenAnswer(invocation -> {
+            release.await();
+            return Collections.singletonList(Arrays.asList(2L, 60_000L));
+        });
+
+        try (BatchingRedisScriptRateCache rateCache = batchingRateCache(Duration.ofMillis(50))) {
+            assertThrows(QueryTimeoutException.class, () -> rateCache.consume(ratePolicy));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void constructor_WhenTimeoutIsNotPositive_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> batchingRateCache(Duration.ZERO));
+    }
+
+    private BatchingRedisScriptRateCache batchingRateCache(Duration timeout) {
+        return new BatchingRedisScriptRateCache(redisTemplate, Duration.ofMillis(1), 16, false, RateLimitClock.monotonic(), timeout);
+    }
+}
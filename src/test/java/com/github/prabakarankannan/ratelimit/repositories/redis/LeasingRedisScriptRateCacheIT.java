@@ -0,0 +1,157 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link LeasingRedisScriptRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@DataRedisTest(excludeAutoConfiguration = RedisRepositoriesAutoConfiguration.class)
+class LeasingRedisScriptRateCacheIT {
+
+    private static final String KEY = RedisScriptRateCache.KEY_PREFIX + "test";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private LeasingRedisScriptRateCache leasingRateCache;
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.delete(KEY);
+        redisTemplate.delete(RedisScriptRateCache.TOKEN_BUCKET_KEY_PREFIX + "test");
+    }
+
+    @AfterEach
+    void clearLeases() {
+        leasingRateCache.close();
+    }
+
+    @Test
+    void consume_ShouldLeaseAChunkOfThePermitsAndServeThemFromTheMemory() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null);
+        Rate rate = leasingRateCache.consume(ratePolicy);
+
+        assertEquals(99, rate.getRemaining());
+        assertEquals("90", redisTemplate.opsForHash().get(KEY, "remaining"));
+
+        for (int i = 0; i < 9; i++) {
+            leasingRateCache.consume(ratePolicy);
+        }
+        assertEquals("90", redisTemplate.opsForHash().get(KEY, "remaining"));
+
+        rate = leasingRateCache.consume(ratePolicy);
+        assertEquals(89, rate.getRemaining());
+        assertEquals("80", redisTemplate.opsForHash().get(KEY, "remaining"));
+    }
+
+    @Test
+    void consume_WhenExceed_ShouldRejectFromTheMemoryUntilTheWindowIsOver() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 20, null);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(leasingRateCache.consume(ratePolicy).getRemaining() >= 0);
+        }
+
+        Rate rate = leasingRateCache.consume(ratePolicy);
+        assertEquals(-1, rate.getRemaining());
+        assertEquals("-1", redisTemplate.opsForHash().get(KEY, "remaining"));
+
+        redisTemplate.delete(KEY);
+        assertTrue(leasingRateCache.consume(ratePolicy).isExceed());
+        assertEquals(rate.getExpiration(), leasingRateCache.consume(ratePolicy).getExpiration());
+    }
+
+    @Test
+    void consume_WhenLeaseIsLessThanTwoPermits_ShouldConsumeFromRedis() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 10, null);
+        leasingRateCache.consume(ratePolicy);
+
+        assertEquals("9", redisTemplate.opsForHash().get(KEY, "remaining"));
+        assertEquals(0, leasingRateCache.size());
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsNotFixedWindow_ShouldConsumeFromRedis() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null, TOKEN_BUCKET, 100);
+        leasingRateCache.consume(ratePolicy);
+
+        assertEquals(0, leasingRateCache.size());
+        assertTrue(redisTemplate.hasKey(RedisScriptRateCache.TOKEN_BUCKET_KEY_PREFIX + "test"));
+    }
+
+    @Test
+    void close_ShouldReturnTheUnusedPermitsToRedis() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null);
+        for (int i = 0; i < 3; i++) {
+            leasingRateCache.consume(ratePolicy);
+        }
+
+        leasingRateCache.close();
+
+        assertEquals("97", redisTemplate.opsForHash().get(KEY, "remaining"));
+        assertEquals(0, leasingRateCache.size());
+    }
+
+    @Test
+    void consume_WhenManyNodesLeaseTheSameKey_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null);
+        List<LeasingRedisScriptRateCache> nodes = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 2; i++) {
+                nodes.add(new LeasingRedisScriptRateCache(redisTemplate, 0.1));
+            }
+
+            List<Future<Rate>> results = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                LeasingRedisScriptRateCache node = nodes.get(i % nodes.size());
+                results.add(executor.submit(() -> node.consume(ratePolicy)));
+            }
+
+            int allowed = 0;
+            for (Future<Rate> result : results) {
+                if (!result.get(30, TimeUnit.SECONDS).isExceed())
+                    allowed++;
+            }
+
+            assertEquals(100, allowed);
+        } finally {
+            executor.shutdownNow();
+            nodes.forEach(LeasingRedisScriptRateCache::close);
+        }
+    }
+
+    @Configuration
+    static class LeasingConfiguration {
+
+        @Bean
+        LeasingRedisScriptRateCache leasingRedisScriptRateCache(StringRedisTemplate redisTemplate) {
+            return new LeasingRedisScriptRateCache(redisTemplate, 0.1);
+        }
+    }
+}
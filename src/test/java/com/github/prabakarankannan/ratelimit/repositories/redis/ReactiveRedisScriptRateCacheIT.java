@@ -0,0 +1,92 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link ReactiveRedisScriptRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@DataRedisTest(excludeAutoConfiguration = RedisRepositoriesAutoConfiguration.class)
+@ContextConfiguration(classes = {ReactiveRedisScriptRateCache.class, ReactiveRedisScriptRateCacheIT.ReactiveRedisConfiguration.class})
+class ReactiveRedisScriptRateCacheIT {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    @Autowired
+    private ReactiveRedisScriptRateCache reactiveRedisScriptRateCache;
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "test");
+        redisTemplate.delete(RedisScriptRateCache.GCRA_KEY_PREFIX + "test");
+    }
+
+    @Test
+    void consume_ShouldCreateRateForFirstTime_TheRateRemainingValueShouldBeEqualWith2() {
+        Rate rate = reactiveRedisScriptRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null)).block();
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+        assertEquals("2", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "test", "remaining"));
+        assertTrue(Duration.between(Instant.now(), rate.getExpiration()).toHours() >= 23);
+    }
+
+    @Test
+    void consume_WhenTheScriptIsNotLoaded_ShouldLoadItAndConsume() {
+        reactiveRedisTemplate.getConnectionFactory().getReactiveConnection().scriptingCommands().scriptFlush().block();
+
+        Rate rate = reactiveRedisScriptRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null)).block();
+
+        assertEquals(2, rate.getRemaining());
+    }
+
+    @Test
+    void consume_WhenManyRequestsConsumeTheSameKeyConcurrently_ShouldAllowExactlyTheCountOfThePolicy() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null, GCRA, null);
+
+        List<Rate> rates = Flux.range(0, 200)
+                .flatMap(i -> reactiveRedisScriptRateCache.consume(ratePolicy), 64)
+                .collectList()
+                .block();
+
+        assertEquals(200, rates.size());
+        assertEquals(100, rates.stream().filter(rate -> !rate.isExceed()).count());
+    }
+
+    @Configuration
+    static class ReactiveRedisConfiguration {
+
+        @Bean
+        ReactiveStringRedisTemplate reactiveStringRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+            return new ReactiveStringRedisTemplate(connectionFactory);
+        }
+    }
+}
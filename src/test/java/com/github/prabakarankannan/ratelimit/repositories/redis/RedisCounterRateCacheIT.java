@@ -0,0 +1,127 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link RedisCounterRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@DataRedisTest(excludeAutoConfiguration = RedisRepositoriesAutoConfiguration.class)
+class RedisCounterRateCacheIT {
+
+    private static final String KEY = RedisCounterRateCache.COUNTER_KEY_PREFIX + "test";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCounterRateCache redisCounterRateCache;
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.delete(KEY);
+        redisTemplate.delete("rates:test");
+        redisTemplate.delete("rates:test:phantom");
+        redisTemplate.opsForSet().remove("rates", "test");
+    }
+
+    @Test
+    void consume_ShouldCreateRateForFirstTime_TheCounterShouldBeAPlainIntegerKeyWithExpiration() {
+        Rate rate = redisCounterRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null));
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+        assertEquals("1", redisTemplate.opsForValue().get(KEY));
+        assertTrue(redisTemplate.getExpire(KEY, TimeUnit.HOURS) >= 23);
+        assertTrue(Duration.between(Instant.now(), rate.getExpiration()).toHours() >= 23);
+    }
+
+    @Test
+    void consume_WhenExceedWithoutBlocking_ShouldKeepTheExpirationAndStopCounting() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null);
+        Rate first = redisCounterRateCache.consume(ratePolicy);
+        redisCounterRateCache.consume(ratePolicy);
+        Rate rate = redisCounterRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(Math.abs(first.getExpiration().toEpochMilli() - rate.getExpiration().toEpochMilli()) < 1000);
+        assertEquals("2", redisTemplate.opsForValue().get(KEY));
+    }
+
+    @Test
+    void consume_WhenExceedWithBlockDuration_ShouldExpireTheCounterByTheBlockDuration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, Duration.ofMinutes(2));
+        redisCounterRateCache.consume(ratePolicy);
+        Rate rate = redisCounterRateCache.consume(ratePolicy);
+
+        long expirationDiff = rate.getExpiration().getEpochSecond() - Instant.now().getEpochSecond();
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(expirationDiff >= 119 && expirationDiff <= 120);
+        assertTrue(redisTemplate.getExpire(KEY, TimeUnit.SECONDS) > 60);
+    }
+
+    @Test
+    void consume_WhenCounterExpired_ShouldStartANewWindow() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(100), 1, null);
+        redisCounterRateCache.consume(ratePolicy);
+        assertTrue(redisCounterRateCache.consume(ratePolicy).isExceed());
+
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(0, redisCounterRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenMigrationIsEnabled_ShouldSeedTheCounterByTheRateHashAndDeleteIt() {
+        redisTemplate.opsForHash().put("rates:test", "remaining", "1");
+        redisTemplate.expire("rates:test", 1, TimeUnit.MINUTES);
+        redisTemplate.opsForValue().set("rates:test:phantom", "");
+        redisTemplate.opsForSet().add("rates", "test");
+
+        RedisCounterRateCache migrating = new RedisCounterRateCache(redisTemplate, true);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+
+        assertEquals(0, migrating.consume(ratePolicy).getRemaining());
+        assertTrue(migrating.consume(ratePolicy).isExceed());
+        assertTrue(redisTemplate.getExpire(KEY, TimeUnit.SECONDS) <= 60);
+        assertFalse(redisTemplate.hasKey("rates:test"));
+        assertFalse(redisTemplate.hasKey("rates:test:phantom"));
+        assertFalse(redisTemplate.opsForSet().isMember("rates", "test"));
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsNotFixedWindow_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                redisCounterRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 1)));
+    }
+
+    @Configuration
+    static class CounterConfiguration {
+
+        @Bean
+        RedisCounterRateCache redisCounterRateCache(StringRedisTemplate redisTemplate) {
+            return new RedisCounterRateCache(redisTemplate);
+        }
+    }
+}
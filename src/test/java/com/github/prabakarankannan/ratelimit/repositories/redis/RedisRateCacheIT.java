@@ -7,6 +7,7 @@ import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import com.github.prabakarankannan.ratelimit.RatePolicy;
 import com.github.prabakarankannan.ratelimit.repositories.redis.RateHash;
@@ -16,6 +17,9 @@ import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRepository;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -37,6 +41,9 @@ class RedisRateCacheIT {
     @Autowired
     private RedisRateCache redisRateCache;
 
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
     @BeforeEach
     void flushRedis() {
         redisRepository.deleteAll();
@@ -54,6 +61,21 @@ class RedisRateCacheIT {
         assertTrue(hoursDiff >= 23);
     }
 
+    @Test
+    void consume_WhenTheSameKeyIsConsumedConcurrently_ShouldCountEachConsumption() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 1_000, null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            executor.execute(() -> redisRateCache.consume(ratePolicy));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Optional<RateHash> rateHash = redisRepository.findById("test");
+        assertTrue(rateHash.isPresent());
+        assertEquals(800, rateHash.get().getRemaining());
+    }
+
     @Test
     void consume_WhenDoesNotExceed_TheRateRemainingValueShouldBeEqualWIth1() {
         RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
@@ -90,4 +112,38 @@ class RedisRateCacheIT {
 
         assertEquals(-1, rateHash.get().getRemaining());
     }
+
+    @Test
+    void consume_WhenWindowIsShorterThanASecond_ShouldStartANewWindowBeforeTheHashExpires() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(100), 1, null);
+        redisRateCache.consume(ratePolicy);
+        assertTrue(redisRateCache.consume(ratePolicy).isExceed());
+        assertTrue(redisTemplate.getExpire("rates:test", TimeUnit.MILLISECONDS) > 0);
+
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        assertEquals(0, redisRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTheClockIsBehindTheSystemClock_ShouldExpireTheHashByTheClock() {
+        RedisRateCache behindRateCache = new RedisRateCache(redisRepository, () -> System.currentTimeMillis() - 3_600_000);
+        behindRateCache.consume(new RatePolicy("test", Duration.ofMinutes(1), 3, null));
+
+        assertTrue(redisTemplate.getExpire("rates:test", TimeUnit.SECONDS) >= 59);
+    }
+
+    @Test
+    void consume_WhenBlockDurationIsShorterThanASecond_ShouldBlockByTheMilliseconds() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, Duration.ofMillis(500));
+        redisRateCache.consume(ratePolicy);
+        long before = System.currentTimeMillis();
+        redisRateCache.consume(ratePolicy);
+
+        Optional<RateHash> rateHash = redisRepository.findById("test");
+        assertTrue(rateHash.isPresent());
+
+        long blockMillis = rateHash.get().getExpiration().toEpochMilli() - before;
+        assertTrue(blockMillis >= 400 && blockMillis <= 600, "Blocked for " + blockMillis);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,315 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.GCRA;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.SLIDING_WINDOW;
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link RedisScriptRateCache}.
+ *
+ * @author Prabakaran Kannan
+ */
+@DataRedisTest(excludeAutoConfiguration = RedisRepositoriesAutoConfiguration.class)
+@ContextConfiguration(classes = RedisScriptRateCache.class)
+class RedisScriptRateCacheIT {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisScriptRateCache redisScriptRateCache;
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "test");
+        redisTemplate.delete(RedisScriptRateCache.TOKEN_BUCKET_KEY_PREFIX + "test");
+        redisTemplate.delete(RedisScriptRateCache.SLIDING_WINDOW_KEY_PREFIX + "test");
+        redisTemplate.delete(RedisScriptRateCache.GCRA_KEY_PREFIX + "test");
+        redisTemplate.delete(RedisScriptRateCache.KEY_PREFIX + "{test}");
+        redisTemplate.delete(RedisScriptRateCache.GCRA_KEY_PREFIX + "{test}");
+    }
+
+    @Test
+    void consume_ShouldCreateRateForFirstTime_TheRateRemainingValueShouldBeEqualWith2() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(2, rate.getRemaining());
+        assertEquals("test", rate.getKey());
+        assertEquals("2", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "test", "remaining"));
+
+        long hoursDiff = Duration.between(Instant.now(), rate.getExpiration()).toHours();
+        assertTrue(hoursDiff >= 23);
+    }
+
+    @Test
+    void consume_WhenDoesNotExceed_TheRateRemainingValueShouldBeEqualWIth1() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(1, rate.getRemaining());
+    }
+
+    @Test
+    void consume_WhenExceedWithoutBlocking_TheRateShouldBeExceededAndKeepTheExpiration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, null);
+        Rate first = redisScriptRateCache.consume(ratePolicy);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        assertEquals(first.getExpiration(), rate.getExpiration());
+    }
+
+    @Test
+    void consume_WhenExceed_ShouldIncreaseExpiration2MinAndRateBeMinus1() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 1, Duration.ofMinutes(2));
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        long expirationDiff = rate.getExpiration().getEpochSecond() - Instant.now().getEpochSecond();
+
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(expirationDiff >= 119);
+        assertTrue(redisTemplate.getExpire(RedisScriptRateCache.KEY_PREFIX + "test", TimeUnit.SECONDS) >= 119);
+    }
+
+    @Test
+    void consume_WhenRateExpired_ShouldCreateNewRate() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(100), 1, null);
+        redisScriptRateCache.consume(ratePolicy);
+        TimeUnit.MILLISECONDS.sleep(200);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(0, rate.getRemaining());
+    }
+
+    @Test
+    void consume_WhenManyNodesConsumeTheSameKey_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null);
+        List<RedisScriptRateCache> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new RedisScriptRateCache(redisTemplate));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (RedisScriptRateCache node : nodes) {
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int j = 0; j < 50; j++) {
+                        if (!node.consume(ratePolicy).isExceed())
+                            allowed++;
+                    }
+                    return allowed;
+                }));
+            }
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(100, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsTokenBucket_ShouldAllowBurstsOfTheCapacityAndKeepTheFixedWindowApart() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null, TOKEN_BUCKET, 5);
+
+        for (int i = 4; i >= 0; i--) {
+            assertEquals(i, redisScriptRateCache.consume(ratePolicy).getRemaining());
+        }
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        long minutesToRetry = Duration.between(Instant.now(), rate.getExpiration()).toMinutes();
+        assertTrue(minutesToRetry >= 479 && minutesToRetry <= 480, "Minutes to retry " + minutesToRetry);
+        assertEquals(2, redisScriptRateCache.consume(new RatePolicy("test", Duration.ofDays(1), 3, null)).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTokenBucketIsEmpty_ShouldRefillLazily() throws InterruptedException {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMillis(200), 1, null, TOKEN_BUCKET, null);
+        redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, redisScriptRateCache.consume(ratePolicy).getRemaining());
+        TimeUnit.MILLISECONDS.sleep(250);
+        assertEquals(0, redisScriptRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenTokenBucketExceedWithBlockDuration_ShouldBlockItByTheBlockDuration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(2), TOKEN_BUCKET, null);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        long secondsToRetry = Duration.between(Instant.now(), rate.getExpiration()).getSeconds();
+        assertTrue(secondsToRetry >= 119 && secondsToRetry <= 120, "Seconds to retry " + secondsToRetry);
+        assertTrue(redisTemplate.getExpire(RedisScriptRateCache.TOKEN_BUCKET_KEY_PREFIX + "test", TimeUnit.SECONDS) >= 119);
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsSlidingWindow_ShouldAllowTheCountOfTheSlidingWindow() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null, SLIDING_WINDOW, null);
+
+        for (int i = 2; i >= 0; i--) {
+            assertEquals(i, redisScriptRateCache.consume(ratePolicy).getRemaining());
+        }
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        assertTrue(rate.getExpiration().isAfter(Instant.now()));
+        assertEquals("3", redisTemplate.opsForHash().get(RedisScriptRateCache.SLIDING_WINDOW_KEY_PREFIX + "test", "current"));
+    }
+
+    @Test
+    void consume_WhenSlidingWindowExceedWithBlockDuration_ShouldBlockItByTheBlockDuration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(2), SLIDING_WINDOW, null);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        long secondsToRetry = Duration.between(Instant.now(), rate.getExpiration()).getSeconds();
+        assertTrue(secondsToRetry >= 119 && secondsToRetry <= 120, "Seconds to retry " + secondsToRetry);
+        assertEquals(-1, redisScriptRateCache.consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenManyNodesConsumeTheSameSlidingWindow_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null, SLIDING_WINDOW, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                RedisScriptRateCache node = new RedisScriptRateCache(redisTemplate);
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int j = 0; j < 50; j++) {
+                        if (!node.consume(ratePolicy).isExceed())
+                            allowed++;
+                    }
+                    return allowed;
+                }));
+            }
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertTrue(allowed > 0 && allowed <= 100, "Allowed " + allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsGcra_ShouldKeepOnlyTheTheoreticalArrivalTime() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null, GCRA, null);
+
+        for (int i = 2; i >= 0; i--) {
+            assertEquals(i, redisScriptRateCache.consume(ratePolicy).getRemaining());
+        }
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        long hoursToRetry = Duration.between(Instant.now(), rate.getExpiration()).toHours();
+        assertTrue(hoursToRetry >= 7 && hoursToRetry <= 8, "Hours to retry " + hoursToRetry);
+
+        String tat = redisTemplate.opsForValue().get(RedisScriptRateCache.GCRA_KEY_PREFIX + "test");
+        assertTrue(Long.parseLong(tat) > Instant.now().plus(Duration.ofHours(23)).toEpochMilli() * 1000, "Tat " + tat);
+        Long ttl = redisTemplate.getExpire(RedisScriptRateCache.GCRA_KEY_PREFIX + "test", TimeUnit.HOURS);
+        assertTrue(ttl >= 23 && ttl <= 24, "Ttl " + ttl);
+    }
+
+    @Test
+    void consume_WhenGcraExceedWithBlockDuration_ShouldBlockItByTheBlockDuration() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(2), GCRA, null);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consume(ratePolicy);
+
+        assertEquals(-1, rate.getRemaining());
+        long secondsToRetry = Duration.between(Instant.now(), rate.getExpiration()).getSeconds();
+        assertTrue(secondsToRetry >= 119 && secondsToRetry <= 120, "Seconds to retry " + secondsToRetry);
+        assertEquals(rate.getExpiration(), redisScriptRateCache.consume(ratePolicy).getExpiration());
+    }
+
+    @Test
+    void consume_WhenManyNodesConsumeTheSameGcraKey_ShouldAllowExactlyTheCountOfThePolicy() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 100, null, GCRA, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                RedisScriptRateCache node = new RedisScriptRateCache(redisTemplate);
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int j = 0; j < 50; j++) {
+                        if (!node.consume(ratePolicy).isExceed())
+                            allowed++;
+                    }
+                    return allowed;
+                }));
+            }
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(100, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void consumeAsync_ShouldConsumeTheRateOnTheReactiveConnection() throws Exception {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofDays(1), 3, null);
+        redisScriptRateCache.consume(ratePolicy);
+        Rate rate = redisScriptRateCache.consumeAsync(ratePolicy).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, rate.getRemaining());
+        assertEquals("1", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "test", "remaining"));
+    }
+
+    @Test
+    void consume_WhenHashTagged_TheKeysOfAllOfTheAlgorithmsShouldShareTheHashTag() {
+        RedisScriptRateCache hashTagged = new RedisScriptRateCache(redisTemplate, true);
+        hashTagged.consume(new RatePolicy("test", Duration.ofDays(1), 3, null));
+        hashTagged.consume(new RatePolicy("test", Duration.ofDays(1), 3, null, GCRA, 3));
+
+        assertEquals("2", redisTemplate.opsForHash().get(RedisScriptRateCache.KEY_PREFIX + "{test}", "remaining"));
+        assertTrue(redisTemplate.hasKey(RedisScriptRateCache.GCRA_KEY_PREFIX + "{test}"));
+        assertEquals(false, redisTemplate.hasKey(RedisScriptRateCache.KEY_PREFIX + "test"));
+    }
+}
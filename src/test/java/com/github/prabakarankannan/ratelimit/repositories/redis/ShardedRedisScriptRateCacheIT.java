@@ -0,0 +1,84 @@
+package com.github.prabakarankannan.ratelimit.repositories.redis;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.prabakarankannan.ratelimit.RateLimiter;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.repositories.ShardedRateLimiter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for a {@link ShardedRateLimiter} of {@link RedisScriptRateCache}s, each shard on its own redis database.
+ *
+ * @author Prabakaran Kannan
+ */
+class ShardedRedisScriptRateCacheIT {
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+
+    private final List<StringRedisTemplate> redisTemplates = new ArrayList<>();
+
+    private ShardedRateLimiter shardedRateLimiter;
+
+    @BeforeEach
+    void createShards() {
+        Map<String, RateLimiter> shards = new LinkedHashMap<>();
+        for (int database = 1; database <= 2; database++) {
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration("localhost", 6379);
+            configuration.setDatabase(database);
+            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+            connectionFactory.afterPropertiesSet();
+            connectionFactories.add(connectionFactory);
+
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            redisTemplate.getConnectionFactory().getConnection().flushDb();
+            redisTemplates.add(redisTemplate);
+            shards.put("redis://localhost:6379/" + database, new RedisScriptRateCache(redisTemplate, true));
+        }
+
+        shardedRateLimiter = new ShardedRateLimiter(shards);
+    }
+
+    @AfterEach
+    void destroyShards() {
+        for (LettuceConnectionFactory connectionFactory : connectionFactories) {
+            connectionFactory.getConnection().flushDb();
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void consume_WhenManyKeysAreConsumed_EachShardShouldKeepSomeOfThem() {
+        for (int i = 0; i < 100; i++) {
+            shardedRateLimiter.consume(new RatePolicy("key-" + i, Duration.ofMinutes(1), 3, null));
+        }
+
+        long first = redisTemplates.get(0).keys(RedisScriptRateCache.KEY_PREFIX + "*").size();
+        long second = redisTemplates.get(1).keys(RedisScriptRateCache.KEY_PREFIX + "*").size();
+        assertEquals(100, first + second);
+        assertTrue(first > 0 && second > 0);
+    }
+
+    @Test
+    void consume_WhenKeyIsConsumedAgain_ShouldBeCountedByItsShard() {
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 2, null);
+        shardedRateLimiter.consume(ratePolicy);
+        shardedRateLimiter.consume(ratePolicy);
+
+        assertTrue(shardedRateLimiter.consume(ratePolicy).isExceed());
+        assertTrue(shardedRateLimiter.consumeAsync(ratePolicy).toCompletableFuture().join().isExceed());
+    }
+}
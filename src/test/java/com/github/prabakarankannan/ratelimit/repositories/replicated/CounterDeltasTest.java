@@ -0,0 +1,72 @@
+package com.github.prabakarankannan.ratelimit.repositories.replicated;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CounterDeltas}.
+ *
+ * @author Prabakaran Kannan
+ */
+class CounterDeltasTest {
+
+    @Test
+    void decode_ShouldReturnTheEncodedDeltas() {
+        List<ByteBuffer> datagrams = CounterDeltas.encode(42, Arrays.asList(
+                new CounterDeltas.Delta("first", 1_000, 60_000, 3),
+                new CounterDeltas.Delta("ключ", 2_000, 100, 7)));
+
+        assertEquals(1, datagrams.size());
+        CounterDeltas.Datagram datagram = CounterDeltas.decode(datagrams.get(0));
+        assertEquals(42, datagram.nodeId);
+        assertEquals(2, datagram.deltas.size());
+        assertEquals("ключ", datagram.deltas.get(1).key);
+        assertEquals(2_000, datagram.deltas.get(1).windowStart);
+        assertEquals(100, datagram.deltas.get(1).durationMillis);
+        assertEquals(7, datagram.deltas.get(1).count);
+    }
+
+    @Test
+    void encode_WhenDeltasDoNotFitADatagram_ShouldSplitThemIntoSeveralDatagrams() {
+        List<CounterDeltas.Delta> deltas = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            deltas.add(new CounterDeltas.Delta("key-" + i, 0, 1_000, i));
+        }
+
+        List<ByteBuffer> datagrams = CounterDeltas.encode(1, deltas);
+
+        int decoded = 0;
+        for (ByteBuffer datagram : datagrams) {
+            assertTrue(datagram.remaining() <= CounterDeltas.MAX_DATAGRAM_SIZE);
+            decoded += CounterDeltas.decode(datagram).deltas.size();
+        }
+        assertTrue(datagrams.size() > 1);
+        assertEquals(1_000, decoded);
+    }
+
+    @Test
+    void encode_WhenAKeyDoesNotFitADatagram_ShouldSkipIt() {
+        char[] key = new char[CounterDeltas.MAX_DATAGRAM_SIZE];
+        Arrays.fill(key, 'k');
+
+        List<ByteBuffer> datagrams = CounterDeltas.encode(1, Arrays.asList(
+                new CounterDeltas.Delta(new String(key), 0, 1_000, 1),
+                new CounterDeltas.Delta("test", 0, 1_000, 1)));
+
+        assertEquals(1, CounterDeltas.decode(datagrams.get(0)).deltas.size());
+    }
+
+    @Test
+    void decode_WhenItIsNotADatagramOfTheDeltas_ShouldReturnNull() {
+        assertNull(CounterDeltas.decode(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5})));
+        assertNull(CounterDeltas.decode(ByteBuffer.allocate(16).putInt(CounterDeltas.MAGIC).putLong(1).putShort((short) 2).flip()));
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.prabakarankannan.ratelimit.repositories.replicated;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RatePolicy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static com.github.prabakarankannan.ratelimit.RateLimitAlgorithm.TOKEN_BUCKET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ReplicatedRateCache}, by several nodes on the loopback interface.
+ *
+ * @author Prabakaran Kannan
+ */
+class ReplicatedRateCacheTest {
+
+    private static final Duration INTERVAL = Duration.ofMillis(10);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final List<ReplicatedRateCache> nodes = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        nodes.forEach(ReplicatedRateCache::close);
+    }
+
+    @Test
+    void consume_WhenThereIsNoPeer_ShouldEnforceThePolicyLocally() {
+        ReplicatedRateCache node = startNodes(1).get(0);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 2, null);
+
+        Rate first = node.consume(ratePolicy);
+
+        assertEquals(1, first.getRemaining());
+        assertEquals(1_020_000, first.getExpiration().toEpochMilli());
+        assertEquals(0, node.consume(ratePolicy).getRemaining());
+        assertTrue(node.consume(ratePolicy).isExceed());
+        assertEquals(1, node.size());
+    }
+
+    @Test
+    void consume_WhenPeersConsumed_ShouldCountTheirCallsAfterTheyAreReplicated() throws InterruptedException {
+        List<ReplicatedRateCache> nodes = startNodes(3);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 10, null);
+        for (int i = 0; i < 3; i++) {
+            nodes.get(0).consume(ratePolicy);
+            nodes.get(1).consume(ratePolicy);
+        }
+
+        awaitUntil(() -> nodes.get(2).count("test") == 6);
+
+        assertEquals(3, nodes.get(2).consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenThePolicyCountIsUsedUpOverTheNodes_AllOfTheNodesShouldRejectTheCalls() throws InterruptedException {
+        List<ReplicatedRateCache> nodes = startNodes(3);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 6, null);
+        for (ReplicatedRateCache node : nodes) {
+            node.consume(ratePolicy);
+            node.consume(ratePolicy);
+        }
+
+        awaitUntil(() -> nodes.stream().allMatch(node -> node.count("test") == 6));
+
+        for (ReplicatedRateCache node : nodes) {
+            assertTrue(node.consume(ratePolicy).isExceed());
+        }
+    }
+
+    @Test
+    void consume_WhenTheWindowIsOver_ShouldNotCountTheCallsOfThePeersInThePreviousWindow() throws InterruptedException {
+        List<ReplicatedRateCache> nodes = startNodes(2);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 2, null);
+        nodes.get(0).consume(ratePolicy);
+        nodes.get(0).consume(ratePolicy);
+        awaitUntil(() -> nodes.get(1).count("test") == 2);
+
+        now.addAndGet(1_000);
+
+        assertEquals(1, nodes.get(1).consume(ratePolicy).getRemaining());
+    }
+
+    @Test
+    void consume_WhenExceedWithBlockDuration_ShouldBlockTheKeyOnTheNode() {
+        ReplicatedRateCache node = startNodes(1).get(0);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(1), 1, Duration.ofMinutes(1));
+        node.consume(ratePolicy);
+
+        Rate blocked = node.consume(ratePolicy);
+        now.addAndGet(1_000);
+
+        assertEquals(1_060_000, blocked.getExpiration().toEpochMilli());
+        assertTrue(node.consume(ratePolicy).isExceed());
+    }
+
+    @Test
+    void consume_WhenCountersExpired_ShouldRemoveThem() throws InterruptedException {
+        ReplicatedRateCache node = startNodes(1).get(0);
+        node.consume(new RatePolicy("test", Duration.ofSeconds(1), 1, null));
+
+        now.addAndGet(2 * ReplicatedRateCache.SWEEP_INTERVAL_MILLIS);
+
+        awaitUntil(() -> node.size() == 0);
+        assertEquals(1, node.getEvictionCount());
+    }
+
+    @Test
+    void consume_WhenAlgorithmIsNotFixedWindow_ShouldThrowIllegalArgumentException() {
+        ReplicatedRateCache node = startNodes(1).get(0);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                node.consume(new RatePolicy("test", Duration.ofMinutes(1), 1, null, TOKEN_BUCKET, 1)));
+    }
+
+    @Test
+    void close_ShouldSendTheLastCountersToThePeers() throws InterruptedException {
+        List<ReplicatedRateCache> nodes = startNodes(2);
+        ReplicatedRateCache closing = new ReplicatedRateCache(loopback(), Collections.singletonList(nodes.get(1).getLocalAddress()),
+                Duration.ofHours(1), now::get);
+        nodes.get(1).setPeers(Arrays.asList(nodes.get(0).getLocalAddress(), closing.getLocalAddress()));
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 5, null);
+        closing.consume(ratePolicy);
+
+        closing.close();
+
+        awaitUntil(() -> nodes.get(1).count("test") == 1);
+        assertFalse(nodes.get(1).consume(ratePolicy).isExceed());
+    }
+
+    @Test
+    void receive_WhenTheSenderIsNotAPeer_ShouldDropItsCounters() throws IOException, InterruptedException {
+        List<ReplicatedRateCache> nodes = startNodes(2);
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 5, null);
+        try (DatagramChannel stranger = DatagramChannel.open().bind(loopback())) {
+            CounterDeltas.Delta delta = new CounterDeltas.Delta("test", 960_000, 60_000, 1_000);
+            for (ByteBuffer datagram : CounterDeltas.encode(42, Collections.singletonList(delta))) {
+                stranger.send(datagram, nodes.get(1).getLocalAddress());
+            }
+        }
+
+        nodes.get(0).consume(ratePolicy);
+
+        awaitUntil(() -> nodes.get(1).count("test") > 0);
+        assertEquals(1, nodes.get(1).count("test"));
+        assertFalse(nodes.get(1).consume(ratePolicy).isExceed());
+    }
+
+    @Test
+    void constructor_WhenThePortIsBoundAlready_ShouldThrowIllegalStateException() {
+        InetSocketAddress bound = startNodes(1).get(0).getLocalAddress();
+
+        assertThrows(IllegalStateException.class, () -> new ReplicatedRateCache(bound, Collections.emptyList(), INTERVAL, now::get));
+    }
+
+    /**
+     * Starts the given number of nodes on the loopback interface, each one is a peer of the others.
+     */
+    private List<ReplicatedRateCache> startNodes(int count) {
+        List<ReplicatedRateCache> started = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            started.add(new ReplicatedRateCache(loopback(), Collections.emptyList(), INTERVAL, now::get));
+        }
+
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        started.forEach(node -> addresses.add(node.getLocalAddress()));
+        for (ReplicatedRateCache node : started) {
+            List<InetSocketAddress> peers = new ArrayList<>(addresses);
+            peers.remove(node.getLocalAddress());
+            node.setPeers(peers);
+        }
+
+        nodes.addAll(started);
+        return started;
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "The condition is not met in time.");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -1,29 +1,70 @@
 package com.github.prbakarankannan.ratelimit.conf;
 
+import com.github.prabakarankannan.ratelimit.CoarseClock;
 import com.github.prabakarankannan.ratelimit.Rate;
+import com.github.prabakarankannan.ratelimit.RateLimitClock;
+import com.github.prabakarankannan.ratelimit.RateLimitKeyGenerator;
 import com.github.prabakarankannan.ratelimit.RateLimiter;
 import com.github.prabakarankannan.ratelimit.RatePolicy;
+import com.github.prabakarankannan.ratelimit.ReactiveRateLimiter;
 import com.github.prabakarankannan.ratelimit.conf.RateLimitAutoConfiguration;
 import com.github.prabakarankannan.ratelimit.conf.error.TooManyRequestErrorHandler;
 import com.github.prabakarankannan.ratelimit.conf.filter.RateLimitFilter;
+import com.github.prabakarankannan.ratelimit.conf.filter.ReactiveRateLimitFilter;
+import com.github.prabakarankannan.ratelimit.conf.metrics.MicrometerRateLimitRecorder;
+import com.github.prabakarankannan.ratelimit.conf.metrics.RateLimitRecorder;
+import com.github.prabakarankannan.ratelimit.conf.properties.RateLimitProperties;
+import com.github.prabakarankannan.ratelimit.repositories.CaffeineRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ExceededRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ExecutorRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.FallbackRateLimiter;
 import com.github.prabakarankannan.ratelimit.repositories.InMemoryRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.OffHeapRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.ReactiveRateLimiterAdapter;
+import com.github.prabakarankannan.ratelimit.repositories.ShardedRateLimiter;
+import com.github.prabakarankannan.ratelimit.repositories.replicated.ReplicatedRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.ReactiveRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.BatchingRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.LeasingRedisScriptRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisCounterRateCache;
 import com.github.prabakarankannan.ratelimit.repositories.redis.RedisRateCache;
+import com.github.prabakarankannan.ratelimit.repositories.redis.RedisScriptRateCache;
 import com.github.prbakarankannan.ratelimit.conf.RateLimitAutoConfigurationTest.TestAutoConfig.CustomRateLimiter;
 import com.github.prbakarankannan.ratelimit.conf.RateLimitAutoConfigurationTest.TestAutoConfig.CustomTooManyRequestErrorHandler;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import javax.annotation.Nonnull;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for {@link RateLimitAutoConfiguration}.
@@ -36,6 +77,9 @@ class RateLimitAutoConfigurationTest {
             .withBean(ServerProperties.class)
             .withConfiguration(AutoConfigurations.of(RateLimitAutoConfiguration.class));
 
+    private final ReactiveWebApplicationContextRunner reactiveContextRunner = new ReactiveWebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RateLimitAutoConfiguration.class));
+
     @Test
     void whenRateLimitEnabledIsFalse_ShouldNotAutoConfigure() {
         contextRunner.withPropertyValues("rate-limit.enabled=false").run(context -> {
@@ -61,6 +105,212 @@ class RateLimitAutoConfigurationTest {
         ).run(context -> assertEquals(InMemoryRateCache.class, context.getBean(RateLimiter.class).getClass()));
     }
 
+    @Test
+    void whenRepositoryIsInMemoryAndSnapshotIsEnabled_TheStatesShouldBeKeptOverTheRestarts(@TempDir Path directory) {
+        Path snapshot = directory.resolve("rates");
+        RatePolicy ratePolicy = new RatePolicy("test", Duration.ofMinutes(1), 3, null);
+        WebApplicationContextRunner snapshotContextRunner = contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.in-memory.snapshot.enabled=true",
+                "rate-limit.in-memory.snapshot.path=" + snapshot,
+                "rate-limit.policies[0].duration=1m",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        );
+
+        snapshotContextRunner.run(context -> context.getBean(RateLimiter.class).consume(ratePolicy));
+
+        assertTrue(Files.exists(snapshot));
+        snapshotContextRunner.run(context -> assertEquals(1, context.getBean(RateLimiter.class).consume(ratePolicy).getRemaining()));
+    }
+
+    @Test
+    void whenKeyGeneratorIsCompact_TheKeyGeneratorShouldGenerateCompactKeys() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR",
+                "rate-limit.keyGenerators[0].compact=true"
+        ).run(context -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test");
+            request.addHeader("X-FORWARD-FOR", "0.0.0.0");
+            RateLimitProperties.Policy policy = context.getBean(RateLimitProperties.class).getPolicies().get(0);
+
+            String key = context.getBean("BY_IP", RateLimitKeyGenerator.class).generateKey(request, policy);
+            assertEquals(22, key.length());
+        });
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsBoundedInMemory_TheRatLimiterShouldBeInstanceOfCaffeineRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=BOUNDED_IN_MEMORY",
+                "rate-limit.in-memory.maximum-size=1000",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+            assertEquals(CaffeineRateCache.class, rateLimiter.getClass());
+            assertEquals(1000, ((CaffeineRateCache) rateLimiter).getMaximumSize());
+        });
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsOffHeap_TheRatLimiterShouldBeInstanceOfOffHeapRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=OFF_HEAP",
+                "rate-limit.in-memory.maximum-size=1000",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+            assertEquals(OffHeapRateCache.class, rateLimiter.getClass());
+            assertEquals(1000, ((OffHeapRateCache) rateLimiter).getMaximumSize());
+        });
+    }
+
+    @Test
+    void whenClockIsCoarse_TheRateLimitClockShouldBeInstanceOfCoarseClock() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.clock.coarse=true",
+                "rate-limit.clock.resolution=5ms",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            RateLimitClock clock = context.getBean(RateLimitClock.class);
+            assertEquals(CoarseClock.class, clock.getClass());
+            assertEquals(Duration.ofMillis(5), ((CoarseClock) clock).getResolution());
+        });
+    }
+
+    @Test
+    void whenExistsACustomRateLimitClockBean_TheRateLimiterShouldComputeTheWindowsByIt() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=BOUNDED_IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withBean(RateLimitClock.class, () -> () -> 1_000_000L).run(context -> {
+            Rate rate = context.getBean(RateLimiter.class).consume(new RatePolicy("test", Duration.ofSeconds(5), 3, null));
+            assertEquals(1_005_000, rate.getExpiration().toEpochMilli());
+        });
+    }
+
+    @Test
+    void whenRepositoryIsRedisScriptAndShardsAreSet_TheRateLimiterShouldBeInstanceOfShardedRateLimiter() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.hash-tag.enabled=true",
+                "rate-limit.redis.shards[0]=redis://localhost:6379/1",
+                "rate-limit.redis.shards[1]=redis://localhost:6379/2",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class)).run(context -> {
+            RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+            assertEquals(ShardedRateLimiter.class, rateLimiter.getClass());
+            assertEquals(2, ((ShardedRateLimiter) rateLimiter).getShards().size());
+        });
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsRedisCounter_TheRateLimiterShouldBeInstanceOfRedisCounterRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_COUNTER",
+                "rate-limit.redis.migration.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertEquals(RedisCounterRateCache.class, context.getBean(RateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsReplicatedInMemory_TheRatLimiterShouldBeInstanceOfReplicatedRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REPLICATED_IN_MEMORY",
+                "rate-limit.in-memory.replication.host=127.0.0.1",
+                "rate-limit.in-memory.replication.port=0",
+                "rate-limit.in-memory.replication.peers[0]=127.0.0.1:7601",
+                "rate-limit.in-memory.replication.peers[1]=[::1]:7602",
+                "rate-limit.in-memory.replication.interval=50ms",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            ReplicatedRateCache rateLimiter = (ReplicatedRateCache) context.getBean(RateLimiter.class);
+            assertEquals(2, rateLimiter.getPeers().size());
+            assertEquals(7602, rateLimiter.getPeers().get(1).getPort());
+            assertEquals(Duration.ofMillis(50), rateLimiter.getInterval());
+        });
+    }
+
+    @Test
+    void whenRepositoryIsOffHeapAndPolicyAlgorithmIsNotFixedWindow_TheContextShouldFail() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=OFF_HEAP",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].algorithm=TOKEN_BUCKET",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> assertNotNull(context.getStartupFailure()));
+    }
+
     @Test
     void whenRateLimitEnabledAndRepositoryIsRedis_TheRatLimiterShouldBeInstanceOfRedisRateCache() {
         contextRunner.withPropertyValues(
@@ -79,6 +329,256 @@ class RateLimitAutoConfigurationTest {
                 .run(context -> assertEquals(RedisRateCache.class, context.getBean(RateLimiter.class).getClass()));
     }
 
+    @Test
+    void whenAsyncIsEnabledAndRepositoryIsRedis_TheRateLimiterShouldConsumeOnAnExecutorRateLimiter() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=REDIS",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> {
+                    RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+                    assertEquals(ExecutorRateLimiter.class, rateLimiter.getClass());
+                    assertEquals(RedisRateCache.class, ((ExecutorRateLimiter) rateLimiter).getDelegate().getClass());
+                });
+    }
+
+    @Test
+    void whenAsyncIsEnabledAndRepositoryIsRedisCounter_TheRateLimiterShouldConsumeOnAnExecutorRateLimiter() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=REDIS_COUNTER",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> {
+                    RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+                    assertEquals(ExecutorRateLimiter.class, rateLimiter.getClass());
+                    assertEquals(RedisCounterRateCache.class, ((ExecutorRateLimiter) rateLimiter).getDelegate().getClass());
+                });
+    }
+
+    @Test
+    void whenAsyncIsEnabledAndRepositoryIsRedisScriptOnAReactiveConnection_TheRateLimiterShouldNotBeDecorated() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertEquals(RedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenAsyncAndLeaseAreEnabledAndRepositoryIsRedisScript_TheRateLimiterShouldConsumeOnAnExecutorRateLimiter() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.lease.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> {
+                    RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+                    assertEquals(ExecutorRateLimiter.class, rateLimiter.getClass());
+                    assertEquals(LeasingRedisScriptRateCache.class, ((ExecutorRateLimiter) rateLimiter).getDelegate().getClass());
+                });
+    }
+
+    @Test
+    void whenAsyncAndFallbackAreEnabledAndRepositoryIsRedis_TheRateLimiterShouldConsumeOnTheFallbackThreads() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=REDIS",
+                "rate-limit.redis.fallback.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> {
+                    RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+                    assertEquals(FallbackRateLimiter.class, rateLimiter.getClass());
+                    assertEquals(RedisRateCache.class, ((FallbackRateLimiter) rateLimiter).getDelegate().getClass());
+                });
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsRedisScript_TheRatLimiterShouldBeInstanceOfRedisScriptRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertEquals(RedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsRedisScriptAndBatchIsEnabled_TheRatLimiterShouldBeInstanceOfBatchingRedisScriptRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.batch.enabled=true",
+                "rate-limit.redis.batch.window=100us",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertEquals(BatchingRedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsRedisScriptAndLeaseIsEnabled_TheRatLimiterShouldBeInstanceOfLeasingRedisScriptRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.lease.enabled=true",
+                "rate-limit.redis.lease.ratio=0.1",
+                "rate-limit.redis.batch.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertEquals(LeasingRedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenRateLimitEnabledAndRepositoryIsRedisScriptAndExceededCacheIsEnabled_TheRatLimiterShouldBeInstanceOfExceededRateCache() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.exceeded-cache.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class)).run(context -> {
+            RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+            assertEquals(ExceededRateCache.class, rateLimiter.getClass());
+            assertEquals(RedisScriptRateCache.class, ((ExceededRateCache) rateLimiter).getDelegate().getClass());
+        });
+    }
+
+    @Test
+    void whenRepositoryIsRedisScriptAndItIsDecorated_TheScriptsShouldBeLoadedOnStartup() {
+        RedisConnection connection = Mockito.mock(RedisConnection.class);
+        RedisConnectionFactory connectionFactory = Mockito.mock(RedisConnectionFactory.class);
+        Mockito.when(connectionFactory.getConnection()).thenReturn(connection);
+
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.exceeded-cache.enabled=true",
+                "rate-limit.redis.fallback.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=4",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withBean(StringRedisTemplate.class, () -> new StringRedisTemplate(connectionFactory))
+                .run(context -> {
+                    assertEquals(ExceededRateCache.class, context.getBean(RateLimiter.class).getClass());
+                    Mockito.verify(connection, Mockito.times(4)).scriptLoad(ArgumentMatchers.any(byte[].class));
+                });
+    }
+
+    @Test
+    void whenRepositoryIsRedisScriptAndFallbackIsEnabledAndRedisIsDown_TheRatesShouldBeDecidedByTheLocalFallback() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.exceeded-cache.enabled=true",
+                "rate-limit.redis.fallback.enabled=true",
+                "rate-limit.redis.fallback.local-ratio=0.5",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=4",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR",
+                "spring.redis.port=1"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .withBean(SimpleMeterRegistry.class)
+                .run(context -> {
+                    RateLimiter rateLimiter = context.getBean(RateLimiter.class);
+                    FallbackRateLimiter fallbackRateLimiter = (FallbackRateLimiter) ((ExceededRateCache) rateLimiter).getDelegate();
+                    assertEquals(RedisScriptRateCache.class, fallbackRateLimiter.getDelegate().getClass());
+
+                    RatePolicy ratePolicy = new RatePolicy("test", Duration.ofSeconds(5), 4, null);
+                    assertEquals(1, rateLimiter.consume(ratePolicy).getRemaining());
+                    assertEquals(0, rateLimiter.consume(ratePolicy).getRemaining());
+                    assertTrue(rateLimiter.consume(ratePolicy).isExceed());
+                    assertEquals(3, context.getBean(MeterRegistry.class)
+                            .get(MicrometerRateLimitRecorder.FALLBACKS_METER).tag("mode", "local").functionCounter().count());
+                });
+    }
+
+    @Test
+    void whenRepositoryIsRedisAndAPolicyAlgorithmIsTokenBucket_ShouldFailToStart() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].algorithm=TOKEN_BUCKET",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class))
+                .run(context -> assertNotNull(context.getStartupFailure()));
+    }
+
     @Test
     void whenExistsACustomRateLimiterImplementationBeanAndRepositoryPropertyIsInMemory_ShouldNotRegisterBeanOfInMemoryRateCache() {
         contextRunner.withPropertyValues(
@@ -133,6 +633,175 @@ class RateLimitAutoConfigurationTest {
                 .run(context -> assertEquals(CustomTooManyRequestErrorHandler.class, context.getBean(TooManyRequestErrorHandler.class).getClass()));
     }
 
+    @Test
+    void whenExistsMeterRegistryBean_ShouldRegisterBeanOfMicrometerRateLimitRecorder() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].name=all",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withBean(SimpleMeterRegistry.class)
+                .run(context -> {
+                    assertEquals(MicrometerRateLimitRecorder.class, context.getBean(RateLimitRecorder.class).getClass());
+                    assertNotNull(context.getBean(MeterRegistry.class).get(MicrometerRateLimitRecorder.CONSUME_METER).tag("policy", "all").timer());
+                });
+    }
+
+    @Test
+    void whenNotExistsMeterRegistryBean_TheRateLimitRecorderShouldRecordNothing() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> assertSame(RateLimitRecorder.NOOP, context.getBean(RateLimitRecorder.class)));
+    }
+
+    @Test
+    void whenWebApplicationIsServlet_ShouldNotRegisterBeanOfReactiveRateLimitFilter() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            assertNotNull(context.getBean(RateLimitFilter.class));
+            assertThrows(NoSuchBeanDefinitionException.class, () -> context.getBean(ReactiveRateLimitFilter.class));
+        });
+    }
+
+    @Test
+    void whenWebApplicationIsReactiveAndRepositoryIsInMemory_ShouldRegisterReactiveRateLimitFilterAndAdaptTheRateLimiter() {
+        reactiveContextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            assertNotNull(context.getBean(ReactiveRateLimitFilter.class));
+            assertEquals(ReactiveRateLimiterAdapter.class, context.getBean(ReactiveRateLimiter.class).getClass());
+            assertThrows(NoSuchBeanDefinitionException.class, () -> context.getBean(RateLimitFilter.class));
+        });
+    }
+
+    @Test
+    void whenWebApplicationIsReactiveAndRepositoryIsRedisScript_TheReactiveRateLimiterShouldBeInstanceOfReactiveRedisScriptRateCache() {
+        reactiveContextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class))
+                .run(context -> assertEquals(ReactiveRedisScriptRateCache.class, context.getBean(ReactiveRateLimiter.class).getClass()));
+    }
+
+    @Test
+    void whenWebApplicationIsReactiveAndRedisScriptExceededCacheIsEnabled_TheReactiveRateLimiterShouldConsumeByExceededRateCache() {
+        reactiveContextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.exceeded-cache.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class))
+                .run(context -> {
+                    assertEquals(ExceededRateCache.class, context.getBean(RateLimiter.class).getClass());
+                    assertNotEquals(ReactiveRedisScriptRateCache.class, context.getBean(ReactiveRateLimiter.class).getClass());
+                });
+    }
+
+    @Test
+    void whenWebApplicationIsReactiveAndRedisScriptLeaseIsEnabled_TheReactiveRateLimiterShouldConsumeByLeasingRedisScriptRateCache() {
+        reactiveContextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.lease.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class))
+                .run(context -> {
+                    assertEquals(LeasingRedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass());
+                    assertNotEquals(ReactiveRedisScriptRateCache.class, context.getBean(ReactiveRateLimiter.class).getClass());
+                });
+    }
+
+    @Test
+    void whenWebApplicationIsReactiveAndRedisScriptBatchIsEnabled_TheReactiveRateLimiterShouldConsumeByBatchingRedisScriptRateCache() {
+        reactiveContextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.repository=REDIS_SCRIPT",
+                "rate-limit.redis.batch.enabled=true",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.ReactiveHeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).withConfiguration(AutoConfigurations.of(RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class))
+                .run(context -> {
+                    assertEquals(BatchingRedisScriptRateCache.class, context.getBean(RateLimiter.class).getClass());
+                    assertNotEquals(ReactiveRedisScriptRateCache.class, context.getBean(ReactiveRateLimiter.class).getClass());
+                });
+    }
+
+    @Test
+    void whenAsyncIsEnabled_TheRateLimitFilterShouldBeRegisteredForTheAsyncDispatches() {
+        contextRunner.withPropertyValues(
+                "rate-limit.enabled=true",
+                "rate-limit.async=true",
+                "rate-limit.repository=IN_MEMORY",
+                "rate-limit.policies[0].duration=5s",
+                "rate-limit.policies[0].count=3",
+                "rate-limit.policies[0].keyGenerator= BY_IP",
+                "rate-limit.policies[0].routes[0].uri=/**",
+                "rate-limit.keyGenerators[0].name=BY_IP",
+                "rate-limit.keyGenerators[0].generator=com.github.prabakarankannan.ratelimit.generators.HeaderBasedKeyGenerator",
+                "rate-limit.keyGenerators[0].params[0]=X-FORWARD-FOR"
+        ).run(context -> {
+            FilterRegistrationBean<?> registration = context.getBean(FilterRegistrationBean.class);
+            assertSame(context.getBean(RateLimitFilter.class), registration.getFilter());
+            assertTrue(registration.isAsyncSupported());
+            assertTrue(context.getBean(RateLimitProperties.class).isAsync());
+        });
+    }
+
     static class TestAutoConfig {
 
         @Bean